@@ -181,4 +181,78 @@ public interface ChanceManConfig extends Config
     {
         return 150;
     }
+
+    @ConfigItem(
+            keyName = "prefetchSceneDrops",
+            name = "Prefetch nearby drop tables",
+            description = "Quietly download drop tables for attackable NPCs around you so Show Drops opens instantly.",
+            position = 18
+    )
+    default boolean prefetchSceneDrops() { return false; }
+
+    @net.runelite.client.config.Range(min = 1, max = 60)
+    @ConfigItem(
+            keyName = "prefetchPerMinute",
+            name = "Prefetch budget (per minute)",
+            description = "Maximum number of drop tables prefetched from the wiki per minute.",
+            position = 19
+    )
+    default int prefetchPerMinute() { return 10; }
+
+    @net.runelite.client.config.Range(min = 1, max = 4)
+    @ConfigItem(
+            keyName = "prefetchConcurrency",
+            name = "Prefetch concurrency",
+            description = "Maximum number of prefetches in flight at once.",
+            position = 20
+    )
+    default int prefetchConcurrency() { return 1; }
+
+    @net.runelite.client.config.Range(min = 1, max = 8)
+    @ConfigItem(
+            keyName = "clientTaskBudgetMs",
+            name = "Client thread budget (ms)",
+            description = "Time per frame that background jobs such as item scans may spend on the client thread.",
+            position = 21
+    )
+    default int clientTaskBudgetMs() { return 2; }
+
+    enum RollWeighting
+    {
+        UNIFORM("Uniform"),
+        CHEAP_ITEMS("Favour cheap items"),
+        KNOWN_DROPS("Favour known drops");
+
+        private final String label;
+
+        RollWeighting(String label)
+        {
+            this.label = label;
+        }
+
+        @Override
+        public String toString()
+        {
+            return label;
+        }
+    }
+
+    @ConfigItem(
+            keyName = "rollWeighting",
+            name = "Roll weighting",
+            description = "How rolls pick among locked items: evenly, biased toward low Grand Exchange prices," +
+                    " or biased toward items with common drop sources in your cached drop tables.",
+            position = 22
+    )
+    default RollWeighting rollWeighting() { return RollWeighting.UNIFORM; }
+
+    @net.runelite.client.config.Range(min = 0, max = 50)
+    @ConfigItem(
+            keyName = "burstThreshold",
+            name = "Burst roll threshold",
+            description = "When this many rolls are waiting, play them as one combined animation with a grouped" +
+                    " chat summary. 0 always plays rolls one at a time.",
+            position = 23
+    )
+    default int burstThreshold() { return 5; }
 }
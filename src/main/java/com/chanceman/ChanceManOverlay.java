@@ -1,9 +1,11 @@
 package com.chanceman;
 
+import com.chanceman.audio.RollSoundPool;
+import com.chanceman.managers.RollStateMachine;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
-import net.runelite.client.audio.AudioPlayer;
 import net.runelite.client.game.ItemManager;
+import net.runelite.client.ui.FontManager;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
@@ -12,23 +14,24 @@ import net.runelite.client.util.ImageUtil;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.awt.*;
-import java.awt.geom.Ellipse2D;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.function.Supplier;
+import java.util.function.IntSupplier;
 
 /**
  * Renders and animates the ChanceMan rolling strip overlay.
  * <p>Flow:</p>
  * <ol>
- *   <li>{@link #startRollAnimation(int, int, Supplier)} primes the strip and starts the spin timer.</li>
+ *   <li>{@link #startRollAnimation(int, int, IntSupplier)} primes the strip; the roll manager then starts
+ *       the {@link RollStateMachine} set through {@link #setTimeline}, whose clock drives every phase.</li>
  *   <li>{@link #render(Graphics2D)} scrolls items, snaps to a slot near the end, then highlights the winner.</li>
  *   <li>{@link #getFinalItem()} returns the centered item after snap/highlight.</li>
  * </ol>
+ * <p>{@link #startBurstAnimation(int[], int, IntSupplier)} runs several strips ("lanes")
+ * stacked under each other through the same phases, each landing on its own forced item.</p>
+ * <p>Everything a frame needs is prepared up front: each lane's whole reel of items and
+ * icons is drawn when the roll starts, and the box, slot frame and glow are pre-rendered
+ * once. The frame loop only moves offsets and blits, so it allocates nothing.</p>
  */
 @Singleton
 @Slf4j
@@ -60,54 +63,104 @@ public class ChanceManOverlay extends Overlay {
     private static final int FRAME_CONTENT_INSET = 4;
     private static final Color SHADE_BOTTOM = new Color(0, 0, 0, 60);
     private static final Color SHADE_TOP = new Color(255, 255, 255, 25);
+    private static final int LANE_GAP = 4;
+    /** Lanes drawn at most; a burst beyond this shows the rest as "+N more". */
+    public static final int MAX_LANES = 8;
+    /** Per-lane speed spread so stacked strips do not scroll in lockstep. */
+    private static final float LANE_SPEED_SPREAD = 0.06f;
+
+    // Derived geometry, fixed for every frame
+    private static final int BOX_WIDTH = ICON_COUNT * ICON_W + (ICON_COUNT - 1) * SPACING
+            + EXTRA_WIDTH_BUFFER + OUTER_PAD * 2;
+    private static final int BOX_HEIGHT = ICON_H + OUTER_PAD * 2;
+    private static final int INNER_WIDTH = BOX_WIDTH - OUTER_PAD * 2;
+    private static final int INNER_ICON_W = ICON_W - FRAME_CONTENT_INSET * 2;
+    private static final int INNER_ICON_H = ICON_H - FRAME_CONTENT_INSET * 2;
+    private static final float WINNER_SCALE = 1.12f;
+    private static final int GLOW_W = (int) (ICON_W * 2.2);
+    private static final int GLOW_H = (int) (ICON_H * 2.2);
+
+    /**
+     * Items per reel. The fastest lane crosses about 40 slots in a full spin,
+     * plus the visible strip and the snap; the reel wraps if a roll ever runs longer.
+     */
+    private static final int REEL_LENGTH = 64;
+
+    private static final AlphaComposite GLOW_COMPOSITE = AlphaComposite.SrcOver.derive(0.85f);
 
     private final Client client;
     private final ItemManager itemManager;
 
-    private final List<Integer> rollingItems = Collections.synchronizedList(new ArrayList<>());
-
-    private static float toDb(int percent) {
-        int p = Math.max(0, Math.min(100, percent));
-        if (p == 0) {
-            return -80.0f; // effectively mute
+    /** One scrolling strip and its snap state. Reused from roll to roll. */
+    private static final class Lane {
+        final int[] reel = new int[REEL_LENGTH];
+        final BufferedImage[] reelImages = new BufferedImage[REEL_LENGTH];
+        /** Reel index of the left-most visible slot. */
+        int head;
+        float speedScale;
+        int forcedFinalItemId;
+        BufferedImage forcedFinalImage;
+        float rollOffset; // cumulative horizontal scroll in px
+        boolean isSnapping;
+        long snapStartMs;
+        float snapTarget;
+        int winnerDelta;
+
+        int slot(int visibleIndex) {
+            return (head + visibleIndex) % REEL_LENGTH;
         }
-        double lin = p / 100.0;
-        return (float) (20.0 * Math.log10(lin));
     }
 
+    /** Lane storage; the first {@link #laneCount} are live. Client thread only. */
+    private final Lane[] lanes = new Lane[MAX_LANES];
+    private int laneCount = 0;
+    /** Burst results that did not get a lane, and their caption. */
+    private int hiddenCount = 0;
+    private String hiddenCaption = "";
+    private int hiddenCaptionWidth = -1;
+
     // Textures
     private final BufferedImage rollBoxImage =
             ImageUtil.loadImageResource(getClass(), "/com/chanceman/roll_box.png");
     private final BufferedImage iconFrameImage =
             ImageUtil.loadImageResource(getClass(), "/com/chanceman/icon_slot.png");
 
+    // Pre-rendered at final size on first use
+    private BufferedImage boxSprite;
+    private BufferedImage frameSprite;
+    private BufferedImage glowSprite;
+
     @Inject
-    private AudioPlayer audioPlayer;
-    @Inject
-    private ChanceManConfig config;
+    private RollSoundPool rollSounds;
 
     // Animation state
     private volatile boolean isAnimating = false;
     private volatile long rollDurationMs;
-    private volatile long rollStartNs = 0L;
+    /** Phase clock shared with the roll manager; the strip only moves when it advances. */
+    private volatile RollStateMachine timeline;
 
     // Motion state
-    private float rollOffset = 0f; // cumulative horizontal scroll in px
     private float currentSpeed = INITIAL_SPEED; // px/s
-    private Supplier<Integer> randomLockedItemSupplier;
-    private volatile long lastUpdateNanos = 0L;
+    private long lastElapsedMs = -1L;
 
-    // Snap state
-    private boolean isSnapping = false;
-    private long snapStartNs = 0L;
-    private float snapBase;
-    private float snapResidualStart;
-    private float snapTarget;
-    private int winnerDelta = 0;
+    // Render time metric, reported once per roll
+    private int frameCount;
+    private long frameNanosTotal;
+    private long frameNanosMax;
 
     // When set (>0), the roll will always visually land on this item for the highlight.
     private volatile int forcedFinalItemId = 0;
 
+    /** Drive the animation from this timeline; null stops it. */
+    public void setTimeline(RollStateMachine timeline)
+    {
+        this.timeline = timeline;
+        if (timeline == null)
+        {
+            isAnimating = false;
+        }
+    }
+
     /** Force the final (winning) item shown during the highlight phase. */
     public void setForcedFinalItem(int itemId)
     {
@@ -123,52 +176,70 @@ public class ChanceManOverlay extends Overlay {
         this.itemManager = itemManager;
         setPosition(OverlayPosition.DYNAMIC);
         setLayer(OverlayLayer.ABOVE_WIDGETS);
+        for (int i = 0; i < MAX_LANES; i++) {
+            lanes[i] = new Lane();
+        }
     }
 
     /**
      * Starts the roll animation. Populates the strip and resets timers/state.
+     * Client thread.
      *
      * @param dummy reserved; kept for API compatibility
      * @param rollDurationMs spin duration (ms) before highlight
      * @param randomLockedItemSupplier supplier of random locked item ids
      */
-    public void startRollAnimation(int dummy, int rollDurationMs, Supplier<Integer> randomLockedItemSupplier) {
-        if (config.enableRollSounds()) {
-            Thread t = new Thread(() -> {
-                try {
-                    float volumeDb = toDb(config.rollSoundVolume());
-                    audioPlayer.play(ChanceManOverlay.class, "/com/chanceman/tick.wav", volumeDb);
-                } catch (IOException ex) {
-                    log.warn("ChanceMan: failed to play tick.wav", ex);
-                } catch (Exception ex) { // or Throwable, but Exception is usually enough
-                    log.warn("ChanceMan: unexpected error while playing tick.wav", ex);
-                }
-            }, "ChanceMan-Audio");
-            t.setDaemon(true);
-            t.start();
-        }
+    public void startRollAnimation(int dummy, int rollDurationMs, IntSupplier randomLockedItemSupplier) {
+        start(new int[]{forcedFinalItemId}, 0, rollDurationMs, randomLockedItemSupplier);
+    }
+
+    /**
+     * Starts a multi-lane animation for a burst of rolls whose results are already known.
+     * The first {@link #MAX_LANES} results get a lane each and the rest are counted in a
+     * "+N more" caption. Client thread.
+     *
+     * @param finalItems rolled item ids, in roll order
+     * @param rollDurationMs spin duration (ms) before highlight
+     * @param randomLockedItemSupplier supplier of random locked item ids for the strips
+     */
+    public void startBurstAnimation(int[] finalItems, int rollDurationMs, IntSupplier randomLockedItemSupplier) {
+        int shown = Math.min(finalItems.length, MAX_LANES);
+        int[] forced = new int[shown];
+        System.arraycopy(finalItems, 0, forced, 0, shown);
+        start(forced, finalItems.length - shown, rollDurationMs, randomLockedItemSupplier);
+    }
+
+    private void start(int[] forcedPerLane, int hidden, int rollDurationMs, IntSupplier randomLockedItemSupplier) {
+        rollSounds.play();
 
         this.rollDurationMs = rollDurationMs;
-        this.rollStartNs = System.nanoTime();
-        this.rollOffset = 0f;
         this.currentSpeed = INITIAL_SPEED;
-        this.randomLockedItemSupplier = randomLockedItemSupplier;
-        this.isAnimating = true;
-        this.lastUpdateNanos = System.nanoTime();
-
-        this.isSnapping = false;
-        this.snapStartNs = 0L;
-        this.snapBase = 0f;
-        this.snapResidualStart = 0f;
-        this.snapTarget = 0f;
-        this.winnerDelta = 0;
-
-        synchronized (rollingItems) {
-            rollingItems.clear();
-            for (int i = 0; i < DRAW_COUNT; i++) {
-                rollingItems.add(randomLockedItemSupplier.get());
+        this.hiddenCount = hidden;
+        this.hiddenCaption = hidden > 0 ? "+" + hidden + " more" : "";
+        this.hiddenCaptionWidth = -1;
+        this.lastElapsedMs = -1L;
+        resetFrameStats();
+
+        // Draw every lane's whole reel now so the frame loop never looks up an item or icon
+        laneCount = forcedPerLane.length;
+        for (int l = 0; l < laneCount; l++) {
+            Lane lane = lanes[l];
+            for (int i = 0; i < REEL_LENGTH; i++) {
+                int id = randomLockedItemSupplier.getAsInt();
+                lane.reel[i] = id;
+                lane.reelImages[i] = itemManager.getImage(id, 1, false);
             }
+            lane.head = 0;
+            lane.speedScale = 1f + l * LANE_SPEED_SPREAD;
+            lane.forcedFinalItemId = forcedPerLane[l];
+            lane.forcedFinalImage = forcedPerLane[l] > 0 ? itemManager.getImage(forcedPerLane[l], 1, false) : null;
+            lane.rollOffset = 0f;
+            lane.isSnapping = false;
+            lane.snapStartMs = 0L;
+            lane.snapTarget = 0f;
+            lane.winnerDelta = 0;
         }
+        this.isAnimating = true;
     }
 
     /**
@@ -177,14 +248,12 @@ public class ChanceManOverlay extends Overlay {
      * @return item id, or 0 if unavailable
      */
     public int getFinalItem() {
-        synchronized (rollingItems) {
-            int centerIndex = ICON_COUNT / 2;
-            int idx = Math.min(centerIndex + winnerDelta, rollingItems.size() - 1);
-            if (idx >= 0 && idx < rollingItems.size()) {
-                return rollingItems.get(idx);
-            }
+        if (laneCount == 0) {
+            return 0;
         }
-        return 0;
+        Lane lane = lanes[0];
+        int idx = Math.min(ICON_COUNT / 2 + lane.winnerDelta, DRAW_COUNT - 1);
+        return lane.reel[lane.slot(idx)];
     }
 
     /**
@@ -195,39 +264,41 @@ public class ChanceManOverlay extends Overlay {
     }
 
     /**
-     * Advances the animation and draws the strip. Returns null (overlay API).
+     * Advances the animation and draws the strip of each lane. Returns null (overlay API).
      */
     @Override
     public Dimension render(Graphics2D g) {
-        if (!isAnimating) {
+        final RollStateMachine tl = timeline;
+        if (!isAnimating || tl == null) {
             return null;
         }
+        if (tl.isIdle()) {
+            isAnimating = false;
+            reportFrameStats();
+            return null;
+        }
+        final long frameStartNs = System.nanoTime();
 
         // Rendering hints once per frame
         g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        ensureSprites();
 
-        final long nowNs = System.nanoTime();
-        final long elapsedMs = (nowNs - rollStartNs) / 1_000_000L;
+        // Timeline time stands still while the roll is paused, and so does the strip
+        final long elapsedMs = tl.getElapsedMs();
         final boolean inHighlightPhase = (elapsedMs > rollDurationMs);
 
-        // Stop after highlight
-        if (elapsedMs > rollDurationMs + HIGHLIGHT_DURATION_MS) {
-            isAnimating = false;
-            return null;
-        }
-
         // Compute clamped dt and ease the speed (quintic-ish falloff via (1 - t)^3)
-        final long nowNanos = System.nanoTime();
         float dt = 0f;
-        if (lastUpdateNanos != 0L) {
-            dt = (nowNs - lastUpdateNanos) / 1_000_000_000f;
+        if (lastElapsedMs >= 0L) {
+            dt = (elapsedMs - lastElapsedMs) / 1000f;
             if (dt > MAX_DT) dt = MAX_DT;
         }
-        lastUpdateNanos = nowNs;
+        lastElapsedMs = elapsedMs;
 
         final float t = (rollDurationMs > 0) ? Math.min(1f, elapsedMs / (float) rollDurationMs) : 1f;
-        final float eased = (float) Math.pow(1f - t, 3);
+        final float rest = 1f - t;
+        final float eased = rest * rest * rest;
         currentSpeed = MIN_SPEED + (INITIAL_SPEED - MIN_SPEED) * eased;
 
         // Viewport + box geometry
@@ -235,198 +306,256 @@ public class ChanceManOverlay extends Overlay {
         final int vpY = client.getViewportYOffset();
         final int vpWidth = client.getViewportWidth();
         final int centerX = vpX + (vpWidth / 2);
-        final int boxTopY = vpY + OFFSET_TOP;
+        final int boxLeftX = centerX - (BOX_WIDTH / 2) + BOX_SHIFT_X;
+
+        final long remainingMs = rollDurationMs - elapsedMs;
+        int boxTopY = vpY + OFFSET_TOP;
+        for (int l = 0; l < laneCount; l++) {
+            renderLane(g, lanes[l], boxLeftX, boxTopY, elapsedMs, remainingMs, inHighlightPhase, dt);
+            boxTopY += BOX_HEIGHT + LANE_GAP;
+        }
+
+        if (hiddenCount > 0) {
+            g.setFont(FontManager.getRunescapeSmallFont());
+            if (hiddenCaptionWidth < 0) {
+                hiddenCaptionWidth = g.getFontMetrics().stringWidth(hiddenCaption);
+            }
+            final int textX = boxLeftX + (BOX_WIDTH - hiddenCaptionWidth) / 2;
+            final int textY = boxTopY + g.getFont().getSize();
+            g.setColor(Color.BLACK);
+            g.drawString(hiddenCaption, textX + 1, textY + 1);
+            g.setColor(Color.WHITE);
+            g.drawString(hiddenCaption, textX, textY);
+        }
 
-        final int totalIconsWidth = ICON_COUNT * ICON_W + (ICON_COUNT - 1) * SPACING;
-        final int totalWidthWithBuffer = totalIconsWidth + EXTRA_WIDTH_BUFFER;
-        final int boxWidth = totalWidthWithBuffer + OUTER_PAD * 2;
-        final int boxHeight = ICON_H + OUTER_PAD * 2;
-        final int boxLeftX = centerX - (boxWidth / 2) + BOX_SHIFT_X;
+        final long frameNs = System.nanoTime() - frameStartNs;
+        frameCount++;
+        frameNanosTotal += frameNs;
+        if (frameNs > frameNanosMax) frameNanosMax = frameNs;
+        return null;
+    }
 
+    /** Moves one lane for this frame and draws its box, icons and winner highlight. */
+    private void renderLane(Graphics2D g, Lane lane, int boxLeftX, int boxTopY,
+                            long elapsedMs, long remainingMs, boolean inHighlightPhase, float dt) {
         // Content rect
         final int contentLeftX = boxLeftX + OUTER_PAD;
-        final int innerWidth = boxWidth - OUTER_PAD * 2;
-        final float contentCenterX = contentLeftX + innerWidth / 2f + CENTER_NUDGE_PX;
+        final int contentRightX = contentLeftX + INNER_WIDTH;
+        final float contentCenterX = contentLeftX + INNER_WIDTH / 2f + CENTER_NUDGE_PX;
         final float middleIndex = ICON_COUNT / 2f;
         final float iconsLeftXF = contentCenterX - middleIndex * STEP - ICON_W / 2f;
         final int iconsY = boxTopY + OUTER_PAD;
+        final int contentBottomY = iconsY + ICON_H;
 
-        // Background frame + subtle lines
-        if (rollBoxImage != null) {
-            final Composite prev = g.getComposite();
-            g.setComposite(AlphaComposite.SrcOver.derive(0.95f));
-            g.drawImage(rollBoxImage, boxLeftX, boxTopY, boxWidth, boxHeight, null);
-            g.setComposite(prev);
-
-            g.setColor(SHADE_BOTTOM);
-            g.fillRect(boxLeftX, boxTopY + boxHeight - 2, boxWidth, 2);
-            g.setColor(SHADE_TOP);
-            g.drawLine(boxLeftX + 2, boxTopY + 2, boxLeftX + boxWidth - 3, boxTopY + 2);
+        // Background frame + subtle lines, pre-rendered
+        if (boxSprite != null) {
+            g.drawImage(boxSprite, boxLeftX, boxTopY, null);
         }
 
-        // Clip to the strip content
-        final Shape oldClip = g.getClip();
-        g.setClip(contentLeftX, boxTopY + OUTER_PAD, innerWidth, ICON_H);
-
-        synchronized (rollingItems) {
-            // Begin snap near the end of spin (or immediately if we already hit highlight)
-            final long remainingMs = rollDurationMs - elapsedMs;
-            if (!isSnapping && (remainingMs <= SNAP_DURATION_MS || inHighlightPhase)) {
-                startSnap(nowNs);
-            }
+        // Begin snap near the end of spin (or immediately if we already hit highlight)
+        if (!lane.isSnapping && (remainingMs <= SNAP_DURATION_MS || inHighlightPhase)) {
+            startSnap(lane, elapsedMs);
+        }
 
-            // Advance motion
-            if (!inHighlightPhase) {
-                if (isSnapping) {
-                    // Smoothstep to the target slot
-                    final long snapElapsedNs = nowNs - snapStartNs;
-                    final float u = Math.min(1f, snapElapsedNs / (SNAP_DURATION_MS * 1_000_000f));
-                    final float s = u * u * (3f - 2f * u);
-                    final float start = rollOffset;
-                    final float end = snapTarget;
-                    rollOffset = start + (end - start) * s;
-
-                    if (rollOffset >= STEP) {
-                        normalizeOnce();
-                        winnerDelta = 0;
-                        snapBase = 0f;
-                        snapTarget = 0f;
-                        snapResidualStart = 0f;
-                    }
-                } else {
-                    rollOffset += currentSpeed * dt;
-                    while (rollOffset >= STEP) {
-                        normalizeOnce();
-                    }
+        // Advance motion
+        if (!inHighlightPhase) {
+            if (lane.isSnapping) {
+                // Smoothstep to the target slot
+                final long snapElapsedMs = elapsedMs - lane.snapStartMs;
+                final float u = Math.min(1f, snapElapsedMs / (float) SNAP_DURATION_MS);
+                final float s = u * u * (3f - 2f * u);
+                final float start = lane.rollOffset;
+                final float end = lane.snapTarget;
+                lane.rollOffset = start + (end - start) * s;
+
+                if (lane.rollOffset >= STEP) {
+                    normalizeOnce(lane);
+                    lane.winnerDelta = 0;
+                    lane.snapTarget = 0f;
                 }
             } else {
-                // During highlight, ensure exact snap
-                if (isSnapping) {
-                    rollOffset = snapTarget;
-                    if (rollOffset >= STEP) {
-                        normalizeOnce();
-                        winnerDelta = 0;
-                    }
+                lane.rollOffset += currentSpeed * lane.speedScale * dt;
+                while (lane.rollOffset >= STEP) {
+                    normalizeOnce(lane);
                 }
             }
-
-            // Inner content area of the frame
-            final int innerBoxXInset = FRAME_CONTENT_INSET;
-            final int innerBoxYInset = FRAME_CONTENT_INSET;
-            final int innerBoxW = ICON_W - innerBoxXInset * 2;
-            final int innerBoxH = ICON_H - innerBoxYInset * 2;
-
-            // Draw items
-            final int itemsToDraw = Math.min(rollingItems.size(), DRAW_COUNT);
-            for (int i = 0; i < itemsToDraw; i++) {
-                final int itemId = rollingItems.get(i);
-                final BufferedImage image = itemManager.getImage(itemId, 1, false);
-                if (image == null) continue;
-
-                final float drawXF = iconsLeftXF + i * STEP - rollOffset;
-                final int drawX = Math.round(drawXF);
-
-                if (iconFrameImage != null) {
-                    g.drawImage(iconFrameImage, drawX, iconsY, ICON_W, ICON_H, null);
+        } else {
+            // During highlight, ensure exact snap
+            if (lane.isSnapping) {
+                lane.rollOffset = lane.snapTarget;
+                if (lane.rollOffset >= STEP) {
+                    normalizeOnce(lane);
+                    lane.winnerDelta = 0;
                 }
+            }
+        }
 
-                final int x = drawX + innerBoxXInset;
-                final int y = iconsY + innerBoxYInset;
-                g.drawImage(image, x, y, innerBoxW, innerBoxH, null);
+        // Draw items, cropped by hand to the strip content instead of clipping
+        for (int i = 0; i < DRAW_COUNT; i++) {
+            final BufferedImage image = lane.reelImages[lane.slot(i)];
+            if (image == null) continue;
+
+            final int drawX = Math.round(iconsLeftXF + i * STEP - lane.rollOffset);
+            if (frameSprite != null) {
+                drawCropped(g, frameSprite, drawX, iconsY, ICON_W, ICON_H,
+                        contentLeftX, iconsY, contentRightX, contentBottomY);
             }
+            drawCropped(g, image, drawX + FRAME_CONTENT_INSET, iconsY + FRAME_CONTENT_INSET,
+                    INNER_ICON_W, INNER_ICON_H, contentLeftX, iconsY, contentRightX, contentBottomY);
+        }
+
+        // Highlight winner
+        if (inHighlightPhase) {
+            final int centerIndex = ICON_COUNT / 2;
+            final int winnerIndex = Math.min(centerIndex + lane.winnerDelta, DRAW_COUNT - 1);
+            final int baseX = Math.round(iconsLeftXF + centerIndex * STEP - lane.rollOffset);
 
-            // Highlight winner
-            if (inHighlightPhase) {
-                final int centerIndex = ICON_COUNT / 2;
-                final int winnerIndex = Math.min(centerIndex + winnerDelta, rollingItems.size() - 1);
-
-                final float baseXF = iconsLeftXF + centerIndex * STEP - rollOffset;
-                final int baseX = Math.round(baseXF);
-
-                final int glowW = (int) (ICON_W * 2.2);
-                final int glowH = (int) (ICON_H * 2.2);
-                final float cx = baseX + ICON_W / 2f;
-                final float cy = iconsY + ICON_H / 2f;
-
-                // Radial glow
-                final RadialGradientPaint glow = new RadialGradientPaint(
-                        new Point2D.Float(cx, cy),
-                        glowW / 2f,
-                        new float[]{0f, 1f},
-                        new Color[]{
-                                new Color(255, 255, 160, 150),
-                                new Color(255, 255, 160, 0)
-                        }
-                );
+            // Radial glow, kept inside the strip like the icons
+            if (glowSprite != null) {
+                final int cx = baseX + ICON_W / 2;
+                final int cy = iconsY + ICON_H / 2;
                 final Composite old = g.getComposite();
-                g.setComposite(AlphaComposite.SrcOver.derive(0.85f));
-                g.setPaint(glow);
-                g.fill(new Ellipse2D.Float(cx - glowW / 2f, cy - glowH / 2f, glowW, glowH));
+                g.setComposite(GLOW_COMPOSITE);
+                drawCropped(g, glowSprite, cx - GLOW_W / 2, cy - GLOW_H / 2, GLOW_W, GLOW_H,
+                        contentLeftX, iconsY, contentRightX, contentBottomY);
                 g.setComposite(old);
+            }
 
-                // Slightly larger winner icon, centered inside the frame
-                final float centerScale = 1.12f;
-                final int innerBoxX = baseX + innerBoxXInset;
-                final int innerBoxY = iconsY + innerBoxYInset;
-
-                final int scaledW = (int) (innerBoxW * centerScale);
-                final int scaledH = (int) (innerBoxH * centerScale);
-                final int scaledX = innerBoxX + (innerBoxW - scaledW) / 2;
-                final int scaledY = innerBoxY + (innerBoxH - scaledH) / 2;
+            // Slightly larger winner icon, centered inside the frame
+            final int scaledW = (int) (INNER_ICON_W * WINNER_SCALE);
+            final int scaledH = (int) (INNER_ICON_H * WINNER_SCALE);
+            final int scaledX = baseX + FRAME_CONTENT_INSET + (INNER_ICON_W - scaledW) / 2;
+            final int scaledY = iconsY + FRAME_CONTENT_INSET + (INNER_ICON_H - scaledH) / 2;
 
-                final int centerItemId = rollingItems.get(winnerIndex);
-                final BufferedImage centerImg = itemManager.getImage(centerItemId, 1, false);
-                if (centerImg != null) {
-                    g.drawImage(centerImg, scaledX, scaledY, scaledW, scaledH, null);
-                }
+            final BufferedImage centerImg = lane.reelImages[lane.slot(winnerIndex)];
+            if (centerImg != null) {
+                g.drawImage(centerImg, scaledX, scaledY, scaledW, scaledH, null);
             }
         }
+    }
 
-        g.setClip(oldClip);
-        return null;
+    /**
+     * Draws {@code img} scaled to w x h at (x, y), with the parts outside the
+     * [left, right) x [top, bottom) rectangle cut off.
+     */
+    private static void drawCropped(Graphics2D g, BufferedImage img, int x, int y, int w, int h,
+                                    int left, int top, int right, int bottom) {
+        final int dx1 = Math.max(x, left);
+        final int dx2 = Math.min(x + w, right);
+        final int dy1 = Math.max(y, top);
+        final int dy2 = Math.min(y + h, bottom);
+        if (dx2 <= dx1 || dy2 <= dy1) {
+            return;
+        }
+        if (dx1 == x && dx2 == x + w && dy1 == y && dy2 == y + h) {
+            g.drawImage(img, x, y, w, h, null);
+            return;
+        }
+        final int srcW = img.getWidth();
+        final int srcH = img.getHeight();
+        g.drawImage(img, dx1, dy1, dx2, dy2,
+                (dx1 - x) * srcW / w, (dy1 - y) * srcH / h,
+                (dx2 - x) * srcW / w, (dy2 - y) * srcH / h, null);
     }
 
     /**
-     * Advances the strip by one slot when a full step is crossed.
-     * Removes the left-most item and appends one from the supplier.
+     * Advances a lane by one slot when a full step is crossed.
+     * The left-most item scrolls off and the next one on the reel comes in.
      */
-    private void normalizeOnce() {
-        if (rollOffset >= STEP) {
-            rollOffset -= STEP;
-            if (!rollingItems.isEmpty()) {
-                rollingItems.remove(0);
-            }
-            if (randomLockedItemSupplier != null) {
-                rollingItems.add(randomLockedItemSupplier.get());
-            }
+    private void normalizeOnce(Lane lane) {
+        if (lane.rollOffset >= STEP) {
+            lane.rollOffset -= STEP;
+            lane.head = (lane.head + 1) % REEL_LENGTH;
         }
     }
+
     /**
-     * Initializes snap state targeting the nearest slot boundary.
+     * Initializes a lane's snap state targeting the nearest slot boundary.
      * Ensures roll always aligns to a slot even if the highlight phase began before the snap window ticked.
      */
-    private void startSnap(long nowNs) {
-        isSnapping = true;
-        snapStartNs = nowNs;
+    private void startSnap(Lane lane, long elapsedMs) {
+        lane.isSnapping = true;
+        lane.snapStartMs = elapsedMs;
 
-        final float k = (float) Math.floor(rollOffset / STEP);
-        snapBase = k * STEP;
-        snapResidualStart = rollOffset - snapBase; // [0, STEP)
+        final float k = (float) Math.floor(lane.rollOffset / STEP);
+        final float snapBase = k * STEP;
+        final float snapResidualStart = lane.rollOffset - snapBase; // [0, STEP)
         final boolean goNext = (snapResidualStart / STEP) >= SNAP_NEXT_THRESHOLD;
-        winnerDelta = goNext ? 1 : 0;
-        snapTarget = goNext ? (snapBase + STEP) : snapBase;
+        lane.winnerDelta = goNext ? 1 : 0;
+        lane.snapTarget = goNext ? (snapBase + STEP) : snapBase;
 
-        // If a final item was forced (group sync), inject it into the winning slot so the
-        // highlight (and getFinalItem) resolves to the shared rolled item.
-        final int forced = forcedFinalItemId;
-        if (forced > 0)
+        // If a final item was forced (group sync or burst), inject it into the winning slot so
+        // the highlight (and getFinalItem) resolves to the shared rolled item.
+        if (lane.forcedFinalItemId > 0)
         {
-            final int centerIndex = ICON_COUNT / 2;
-            final int winnerIndex = Math.min(centerIndex + winnerDelta, rollingItems.size() - 1);
-            if (winnerIndex >= 0 && winnerIndex < rollingItems.size())
-            {
-                rollingItems.set(winnerIndex, forced);
-            }
+            final int winnerIndex = Math.min(ICON_COUNT / 2 + lane.winnerDelta, DRAW_COUNT - 1);
+            final int slot = lane.slot(winnerIndex);
+            lane.reel[slot] = lane.forcedFinalItemId;
+            lane.reelImages[slot] = lane.forcedFinalImage;
+        }
+    }
+
+    /** Renders the box, slot frame and glow at their drawn sizes, once. */
+    private void ensureSprites() {
+        if (boxSprite == null && rollBoxImage != null) {
+            boxSprite = createSprite(BOX_WIDTH, BOX_HEIGHT);
+            final Graphics2D sg = boxSprite.createGraphics();
+            sg.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            sg.setComposite(AlphaComposite.SrcOver.derive(0.95f));
+            sg.drawImage(rollBoxImage, 0, 0, BOX_WIDTH, BOX_HEIGHT, null);
+            sg.setComposite(AlphaComposite.SrcOver);
+            sg.setColor(SHADE_BOTTOM);
+            sg.fillRect(0, BOX_HEIGHT - 2, BOX_WIDTH, 2);
+            sg.setColor(SHADE_TOP);
+            sg.drawLine(2, 2, BOX_WIDTH - 3, 2);
+            sg.dispose();
+        }
+        if (frameSprite == null && iconFrameImage != null) {
+            frameSprite = createSprite(ICON_W, ICON_H);
+            final Graphics2D sg = frameSprite.createGraphics();
+            sg.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            sg.drawImage(iconFrameImage, 0, 0, ICON_W, ICON_H, null);
+            sg.dispose();
+        }
+        if (glowSprite == null) {
+            glowSprite = createSprite(GLOW_W, GLOW_H);
+            final Graphics2D sg = glowSprite.createGraphics();
+            sg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            sg.setPaint(new RadialGradientPaint(
+                    new Point2D.Float(GLOW_W / 2f, GLOW_H / 2f),
+                    GLOW_W / 2f,
+                    new float[]{0f, 1f},
+                    new Color[]{
+                            new Color(255, 255, 160, 150),
+                            new Color(255, 255, 160, 0)
+                    }
+            ));
+            sg.fillOval(0, 0, GLOW_W, GLOW_H);
+            sg.dispose();
+        }
+    }
+
+    private static BufferedImage createSprite(int w, int h) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            return GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice()
+                    .getDefaultConfiguration()
+                    .createCompatibleImage(w, h, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private void resetFrameStats() {
+        frameCount = 0;
+        frameNanosTotal = 0L;
+        frameNanosMax = 0L;
+    }
+
+    private void reportFrameStats() {
+        if (frameCount > 0 && log.isDebugEnabled()) {
+            log.debug("Roll overlay: {} frames, avg {} us, max {} us", frameCount,
+                    frameNanosTotal / frameCount / 1000L, frameNanosMax / 1000L);
         }
+        resetFrameStats();
     }
 }
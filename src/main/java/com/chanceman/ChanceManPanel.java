@@ -1,9 +1,13 @@
 package com.chanceman;
 
+import com.chanceman.managers.ItemSetSnapshot;
 import com.chanceman.managers.ObtainedItemsManager;
 import com.chanceman.managers.RollAnimationManager;
 import com.chanceman.managers.RolledItemsManager;
-import net.runelite.api.ItemComposition;
+import com.chanceman.ui.ItemListModel;
+import com.chanceman.ui.ItemNameIndex;
+import com.chanceman.ui.ItemResolver;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.ui.PluginPanel;
@@ -14,10 +18,12 @@ import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.awt.image.BufferedImage;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Panel for Chance Man.
@@ -33,35 +39,81 @@ public class ChanceManPanel extends PluginPanel
 {
     private final ObtainedItemsManager obtainedItemsManager;
     private final RolledItemsManager rolledItemsManager;
-    private final ItemManager itemManager;
-    private final HashSet<Integer> allTradeableItems;
-    private final ClientThread clientThread;
+    private final Set<Integer> allTradeableItems;
     private final RollAnimationManager rollAnimationManager;
 
-    private final Map<Integer, ImageIcon> itemIconCache = new ConcurrentHashMap<>();
-    private final Map<Integer, String> itemNameCache = new ConcurrentHashMap<>();
-    private final Set<Integer> nameFetchInFlight = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    private final Set<Integer> iconFetchInFlight = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    /** Rows resolved ahead of and behind the viewport. */
+    private static final int PREFETCH_ROWS = 40;
+
+    private final ItemResolver resolver;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("chanceman-panel").setDaemon(true).build());
+    /** Name search index; null until the plugin has scanned the tradeable items. */
+    private volatile ItemNameIndex nameIndex;
+
+    /** A list computed on the worker, waiting for the Swing thread. */
+    private static final class ListUpdate
+    {
+        final List<Integer> items;
+        final int total;
+
+        ListUpdate(List<Integer> items, int total)
+        {
+            this.items = items;
+            this.total = total;
+        }
+    }
+
+    /** Cached newest-first view of one mode and the manager versions it was built from. */
+    private static final class ModeView
+    {
+        final long rolledVersion;
+        final long obtainedVersion;
+        final List<Integer> items;
+
+        ModeView(long rolledVersion, long obtainedVersion, List<Integer> items)
+        {
+            this.rolledVersion = rolledVersion;
+            this.obtainedVersion = obtainedVersion;
+            this.items = items;
+        }
+    }
+
+    private final AtomicBoolean updateQueued = new AtomicBoolean();
+    private final AtomicReference<ListUpdate> pendingUpdate = new AtomicReference<>();
+
+    // Worker-thread state
+    private final Map<ListMode, ModeView> views = new EnumMap<>(ListMode.class);
+    private ItemSetSnapshot rolledSnapshot;
+    private ItemSetSnapshot obtainedSnapshot;
+    private ItemNameIndex hitsIndex;
+    private String hitsQuery;
+    private BitSet hits;
 
     private final JLabel modeLabel = new JLabel("Items Rolled");
     private final JTextField searchField = new JTextField();
-    private final DefaultListModel<Integer> listModel = new DefaultListModel<>();
+    private final ItemListModel listModel = new ItemListModel();
     private final JList<Integer> itemList = new JList<>(listModel);
     private final JLabel countLabel = new JLabel("0/0");
     private final JButton rollButton = new JButton("Roll");
 
     private enum ListMode
     {
-        ROLLED("Rolled"),
-        OBTAINED("Obtained"),
-        ROLLED_NOT_OBTAINED("Rolled, not Obtained"),
-        USABLE("Usable");
+        ROLLED("Rolled", true, false),
+        OBTAINED("Obtained", false, true),
+        ROLLED_NOT_OBTAINED("Rolled, not Obtained", true, true),
+        USABLE("Usable", true, true);
 
         private final String label;
+        /** Which manager sets the mode's view is built from. */
+        private final boolean usesRolled;
+        private final boolean usesObtained;
 
-        ListMode(String label)
+        ListMode(String label, boolean usesRolled, boolean usesObtained)
         {
             this.label = label;
+            this.usesRolled = usesRolled;
+            this.usesObtained = usesObtained;
         }
 
         public String label()
@@ -92,17 +144,16 @@ public class ChanceManPanel extends PluginPanel
             ObtainedItemsManager obtainedItemsManager,
             RolledItemsManager rolledItemsManager,
             ItemManager itemManager,
-            HashSet<Integer> allTradeableItems,
+            Set<Integer> allTradeableItems,
             ClientThread clientThread,
             RollAnimationManager rollAnimationManager
     )
     {
         this.obtainedItemsManager = obtainedItemsManager;
         this.rolledItemsManager = rolledItemsManager;
-        this.itemManager = itemManager;
         this.allTradeableItems = allTradeableItems;
-        this.clientThread = clientThread;
         this.rollAnimationManager = rollAnimationManager;
+        this.resolver = new ItemResolver(itemManager, clientThread, this::repaintResolved);
         init();
     }
 
@@ -295,6 +346,7 @@ public class ChanceManPanel extends PluginPanel
                 JScrollPane.HORIZONTAL_SCROLLBAR_NEVER
         );
         scroll.setBorder(null);
+        scroll.getViewport().addChangeListener(e -> prefetchAroundViewport());
 
         JPanel wrap = new JPanel(new BorderLayout());
         wrap.setOpaque(false);
@@ -359,221 +411,261 @@ public class ChanceManPanel extends PluginPanel
         }
     }
 
-    public void updatePanel()
+    /**
+     * Index item names for searching, off the client thread, then refresh the
+     * list. Names also seed the cell renderer cache.
+     */
+    public void setItemNames(Map<Integer, String> names)
     {
-        final ListMode modeSnap = listMode;
-        final String searchSnap = searchText;
-
-        clientThread.invokeLater(() ->
+        final Map<Integer, String> copy = new HashMap<>(names);
+        worker.execute(() ->
         {
-            Set<Integer> obtained = obtainedItemsManager.getObtainedItems();
-            Set<Integer> rolled = rolledItemsManager.getRolledItems();
-            List<Integer> base = new ArrayList<>();
-
-            switch (modeSnap)
-            {
-                case ROLLED:
-                    base.addAll(rolled);
-                    break;
-
-                case OBTAINED:
-                    base.addAll(obtained);
-                    break;
-
-                case ROLLED_NOT_OBTAINED:
-                    // Show what you can buy/unlock but haven't obtained yet
-                    base.addAll(rolled);
-                    base.removeIf(obtained::contains);
-                    break;
-
-                case USABLE:
-                    base.addAll(rolled);
-                    base.removeIf(id -> !obtained.contains(id));
-                    break;
-            }
-
-            Collections.reverse(base);
-
-            if (searchSnap != null && !searchSnap.isEmpty())
-            {
-                base.removeIf(id ->
-                {
-                    ItemComposition comp = itemManager.getItemComposition(id);
-                    String name = comp.getName();
-                    return name == null || !name.toLowerCase().contains(searchSnap);
-                });
-            }
-
-            final int total;
-            synchronized (allTradeableItems)
-            {
-                total = allTradeableItems.size();
-            }
-
-            SwingUtilities.invokeLater(() ->
-            {
-                listModel.clear();
-                for (Integer id : base)
-                {
-                    listModel.addElement(id);
-                }
-                countLabel.setText(base.size() + "/" + total);
-
-                // extra stability during mode swaps
-                itemList.revalidate();
-                itemList.repaint();
-            });
+            nameIndex = ItemNameIndex.build(copy);
+            resolver.setNameIndex(nameIndex);
+            SwingUtilities.invokeLater(itemList::repaint);
+            updatePanel();
         });
     }
 
-    private class ItemCellRenderer extends JPanel implements ListCellRenderer<Integer>
+    /** Stop the background worker; the panel is discarded afterwards. */
+    public void shutDown()
     {
-        private final JLabel icon = new JLabel();
-        private final JLabel name = new JLabel();
+        worker.shutdownNow();
+        resolver.close();
+    }
 
-        ItemCellRenderer()
+    /** Queue the rows around the viewport so scrolling finds them resolved. */
+    private void prefetchAroundViewport()
+    {
+        int first = itemList.getFirstVisibleIndex();
+        int last = itemList.getLastVisibleIndex();
+        if (first < 0)
         {
-            setLayout(new BorderLayout(8, 0));
-            setOpaque(true);
-            icon.setPreferredSize(new Dimension(32, 32));
-
-            add(icon, BorderLayout.WEST);
-            add(name, BorderLayout.CENTER);
-            name.setFont(new Font("SansSerif", Font.PLAIN, 11));
+            return;
         }
-
-        @Override
-        public Component getListCellRendererComponent(
-                JList<? extends Integer> list, Integer value, int index,
-                boolean isSelected, boolean cellHasFocus)
+        int from = Math.max(0, first - PREFETCH_ROWS);
+        int to = Math.min(listModel.getSize() - 1, last + PREFETCH_ROWS);
+        List<Integer> ids = new ArrayList<>(to - from + 1);
+        // Visible rows first, then outward
+        for (int i = first; i <= last; i++)
         {
-            ImageIcon ico = itemIconCache.get(value);
-            if (ico != null)
-            {
-                icon.setIcon(ico);
-            }
-            else
-            {
-                icon.setIcon(null);
-                requestItemIcon(value, list, index);
-            }
-
-            String cached = itemNameCache.get(value);
-            if (cached != null)
+            ids.add(listModel.getElementAt(i));
+        }
+        for (int d = 1; first - d >= from || last + d <= to; d++)
+        {
+            if (last + d <= to)
             {
-                name.setText(cached);
+                ids.add(listModel.getElementAt(last + d));
             }
-            else
+            if (first - d >= from)
             {
-                name.setText("Loading...");
-                requestItemName(value, list, index);
+                ids.add(listModel.getElementAt(first - d));
             }
-
-            setBackground(isSelected ? list.getSelectionBackground() : new Color(60, 63, 65));
-            name.setForeground(new Color(220, 220, 220));
-            return this;
         }
+        resolver.prefetch(ids);
     }
 
-    private void requestItemName(int itemId, JList<?> list, int index)
+    /** Repaint the one region spanning every visible row resolved in a batch. */
+    private void repaintResolved(Set<Integer> ids)
     {
-        if (!nameFetchInFlight.add(itemId))
+        int first = itemList.getFirstVisibleIndex();
+        int last = itemList.getLastVisibleIndex();
+        if (first < 0)
         {
             return;
         }
-
-        clientThread.invokeLater(() ->
+        int lo = -1;
+        int hi = -1;
+        for (int i = first; i <= last; i++)
         {
-            String resolved = "Unknown";
-            try
+            if (ids.contains(listModel.getElementAt(i)))
             {
-                ItemComposition comp = itemManager.getItemComposition(itemId);
-                if (comp.getName() != null)
+                if (lo < 0)
                 {
-                    resolved = comp.getName();
+                    lo = i;
                 }
+                hi = i;
             }
-            catch (Exception ignored)
-            {
-            }
-
-            final String finalName = resolved;
-            SwingUtilities.invokeLater(() ->
-            {
-                itemNameCache.put(itemId, finalName);
-                nameFetchInFlight.remove(itemId);
-
-                Rectangle r = list.getCellBounds(index, index);
-                if (r != null) list.repaint(r);
-                else list.repaint();
-            });
-        });
+        }
+        if (lo >= 0)
+        {
+            Rectangle r = itemList.getCellBounds(lo, hi);
+            if (r != null) itemList.repaint(r);
+        }
     }
 
-    private void requestItemIcon(int itemId, JList<?> list, int index)
+    /**
+     * Recompute the visible list for the current mode and search text on the
+     * panel worker, then apply it to the list as a diff. Calls made while an
+     * update is still queued fold into it, so a burst of changes costs one pass.
+     */
+    public void updatePanel()
     {
-        if (!iconFetchInFlight.add(itemId))
+        if (updateQueued.compareAndSet(false, true))
         {
-            return;
+            worker.execute(this::recompute);
         }
+    }
+
+    private void recompute()
+    {
+        updateQueued.set(false);
+        final ListMode modeSnap = listMode;
+        final String searchSnap = searchText;
 
-        clientThread.invokeLater(() ->
+        List<Integer> visible = view(modeSnap);
+        if (searchSnap != null && !searchSnap.isEmpty())
         {
-            ImageIcon resolved = null;
-            try
+            final ItemNameIndex index = nameIndex;
+            if (index != hitsIndex || !searchSnap.equals(hitsQuery))
             {
-                BufferedImage img = itemManager.getImage(itemId, 1, false);
-                if (img != null)
-                {
-                    resolved = new ImageIcon(img);
-                }
+                hits = index != null ? index.match(searchSnap) : new BitSet();
+                hitsIndex = index;
+                hitsQuery = searchSnap;
             }
-            catch (Exception ignored)
+            final BitSet matched = hits;
+            List<Integer> filtered = new ArrayList<>();
+            for (Integer id : visible)
             {
+                boolean match;
+                if (index != null && index.contains(id))
+                {
+                    match = matched.get(id);
+                }
+                else
+                {
+                    // Not indexed yet: only names already shown in the list can match
+                    String name = resolver.peekName(id);
+                    match = name != null && name.toLowerCase().contains(searchSnap);
+                }
+                if (match)
+                {
+                    filtered.add(id);
+                }
             }
+            visible = filtered;
+        }
+
+        final int total;
+        synchronized (allTradeableItems)
+        {
+            total = allTradeableItems.size();
+        }
 
-            final ImageIcon finalIcon = resolved;
+        // Only the newest result matters; one Swing task drains it
+        if (pendingUpdate.getAndSet(new ListUpdate(visible, total)) == null)
+        {
             SwingUtilities.invokeLater(() ->
             {
-                if (finalIcon != null)
+                ListUpdate update = pendingUpdate.getAndSet(null);
+                if (update != null)
                 {
-                    itemIconCache.put(itemId, finalIcon);
+                    listModel.apply(update.items);
+                    countLabel.setText(update.items.size() + "/" + update.total);
+                    prefetchAroundViewport();
                 }
-                iconFetchInFlight.remove(itemId);
-
-                Rectangle r = list.getCellBounds(index, index);
-                if (r != null) list.repaint(r);
-                else list.repaint();
             });
-        });
+        }
     }
 
-    private void performManualRoll(java.awt.event.ActionEvent e)
+    /**
+     * Newest-first items for a mode. Views are cached per mode and reused
+     * until a manager they depend on reports a new version, so switching
+     * back and forth between modes does not rebuild anything. Worker only.
+     */
+    private List<Integer> view(ListMode mode)
     {
-        if (rollAnimationManager.isRolling()) return;
-        if (!rollAnimationManager.hasTradeablesReady()) return;
+        long rolledVersion = rolledItemsManager.getVersion();
+        long obtainedVersion = obtainedItemsManager.getVersion();
+        ModeView cached = views.get(mode);
+        if (cached != null
+                && (!mode.usesRolled || cached.rolledVersion == rolledVersion)
+                && (!mode.usesObtained || cached.obtainedVersion == obtainedVersion))
+        {
+            return cached.items;
+        }
 
-        final List<Integer> tradeableSnapshot;
-        synchronized (allTradeableItems)
+        if (rolledSnapshot == null || rolledSnapshot.getVersion() != rolledVersion)
+        {
+            rolledSnapshot = rolledItemsManager.getRolledSnapshot();
+        }
+        if (obtainedSnapshot == null || obtainedSnapshot.getVersion() != obtainedVersion)
         {
-            tradeableSnapshot = new ArrayList<>(allTradeableItems);
+            obtainedSnapshot = obtainedItemsManager.getObtainedSnapshot();
         }
+        Set<Integer> rolled = rolledSnapshot.getItems();
+        Set<Integer> obtained = obtainedSnapshot.getItems();
+        List<Integer> base = new ArrayList<>();
 
-        List<Integer> locked = new ArrayList<>();
-        for (int id : tradeableSnapshot)
+        switch (mode)
         {
-            if (!rolledItemsManager.isRolled(id))
-            {
-                locked.add(id);
-            }
+            case ROLLED:
+                base.addAll(rolled);
+                break;
+
+            case OBTAINED:
+                base.addAll(obtained);
+                break;
+
+            case ROLLED_NOT_OBTAINED:
+                // Show what you can buy/unlock but haven't obtained yet
+                base.addAll(rolled);
+                base.removeIf(obtained::contains);
+                break;
+
+            case USABLE:
+                base.addAll(rolled);
+                base.removeIf(id -> !obtained.contains(id));
+                break;
         }
 
-        if (locked.isEmpty()) return;
+        Collections.reverse(base);
+        List<Integer> items = Collections.unmodifiableList(base);
+        views.put(mode, new ModeView(rolledSnapshot.getVersion(), obtainedSnapshot.getVersion(), items));
+        return items;
+    }
 
-        rollAnimationManager.setManualRoll(true);
-        rollAnimationManager.enqueueRoll(
-                locked.get(new Random().nextInt(locked.size()))
-        );
+    private class ItemCellRenderer extends JPanel implements ListCellRenderer<Integer>
+    {
+        private final JLabel icon = new JLabel();
+        private final JLabel name = new JLabel();
+
+        ItemCellRenderer()
+        {
+            setLayout(new BorderLayout(8, 0));
+            setOpaque(true);
+            icon.setPreferredSize(new Dimension(32, 32));
+
+            add(icon, BorderLayout.WEST);
+            add(name, BorderLayout.CENTER);
+            name.setFont(new Font("SansSerif", Font.PLAIN, 11));
+        }
+
+        @Override
+        public Component getListCellRendererComponent(
+                JList<? extends Integer> list, Integer value, int index,
+                boolean isSelected, boolean cellHasFocus)
+        {
+            // Misses are queued; the resolver repaints these rows once they land
+            icon.setIcon(resolver.getIcon(value));
+            String resolved = resolver.getName(value);
+            name.setText(resolved != null ? resolved : "Loading...");
+
+            setBackground(isSelected ? list.getSelectionBackground() : new Color(60, 63, 65));
+            name.setForeground(new Color(220, 220, 220));
+            return this;
+        }
+    }
+
+    private void performManualRoll(java.awt.event.ActionEvent e)
+    {
+        if (rollAnimationManager.isRolling()) return;
+        if (!rollAnimationManager.hasTradeablesReady()) return;
+
+        int pick = rollAnimationManager.pickLockedItem();
+        if (pick < 0) return;
+
+        rollAnimationManager.enqueueManualRoll(pick);
     }
 
     @Override
@@ -4,10 +4,28 @@ import com.chanceman.account.AccountChanged;
 import com.chanceman.account.AccountManager;
 import com.chanceman.drops.DropFetcher;
 import com.chanceman.drops.DropCache;
+import com.chanceman.drops.DropIngestPipeline;
+import com.chanceman.drops.DropPrefetcher;
+import com.chanceman.drops.NpcCatalog;
 import com.chanceman.filters.EnsouledHeadMapping;
 import com.chanceman.menus.ActionHandler;
+import com.chanceman.audio.RollSoundPool;
+import com.chanceman.filters.CompiledItemFilter;
 import com.chanceman.filters.ItemsFilter;
+import com.chanceman.party.GroupChanceManRollBatchMessage;
 import com.chanceman.party.GroupChanceManRollMessage;
+import com.chanceman.party.GroupChanceManRollResendMessage;
+import com.chanceman.party.PartySetDeltaMessage;
+import com.chanceman.party.PartySetDigestMessage;
+import com.chanceman.party.PartySetSegmentsMessage;
+import com.chanceman.party.PartySetSync;
+import com.chanceman.party.SentRollLog;
+import com.chanceman.party.VersionVector;
+import com.chanceman.persist.ItemRulesStore;
+import com.chanceman.persist.RollEvent;
+import com.chanceman.persist.RollHistoryStore;
+import com.chanceman.persist.TradeableUniverseCache;
+import com.chanceman.scheduling.ClientTaskScheduler;
 import com.chanceman.ui.DropsTabUI;
 import com.chanceman.ui.DropsTooltipOverlay;
 import com.chanceman.ui.MusicWidgetController;
@@ -17,7 +35,11 @@ import com.chanceman.ui.ItemDimmerController;
 import com.google.gson.Gson;
 import com.google.inject.Provides;
 import lombok.Getter;
+import com.chanceman.managers.LockedItemPool;
 import com.chanceman.managers.RollAnimationManager;
+import com.chanceman.managers.RollWeights;
+import com.chanceman.managers.TradeableUniverse;
+import com.chanceman.managers.TradeableUniverseChanged;
 import com.chanceman.managers.RolledItemsManager;
 import com.chanceman.managers.ObtainedItemsManager;
 import net.runelite.api.*;
@@ -27,8 +49,11 @@ import net.runelite.client.callback.ClientThread;
 import net.runelite.client.chat.ChatMessageManager;
 import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.game.ItemManager;
+import net.runelite.client.party.PartyMember;
 import net.runelite.client.party.PartyService;
 import net.runelite.client.party.WSClient;
+import net.runelite.client.party.events.UserPart;
+import net.runelite.client.party.messages.PartyMemberMessage;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.ClientToolbar;
@@ -41,6 +66,8 @@ import net.runelite.client.config.ConfigManager;
 import javax.inject.Inject;
 import javax.swing.*;
 import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -72,26 +99,60 @@ public class ChanceManPlugin extends Plugin
     @Inject private DropsTabUI dropsTabUI;
     @Inject private DropFetcher dropFetcher;
     @Inject private DropCache dropCache;
+    @Inject private DropPrefetcher dropPrefetcher;
+    @Inject private DropIngestPipeline dropIngestPipeline;
+    @Inject private NpcCatalog npcCatalog;
+    @Inject private TradeableUniverseCache tradeableUniverseCache;
+    @Inject private ItemRulesStore itemRulesStore;
+    @Inject private ClientTaskScheduler clientTaskScheduler;
+    @Inject private LockedItemPool lockedItemPool;
+    @Inject private RollWeights rollWeights;
+    @Inject private RollSoundPool rollSoundPool;
+    @Inject private RollHistoryStore rollHistoryStore;
+    @Inject private TradeableUniverse tradeableUniverse;
     @Inject private MusicWidgetController musicWidgetController;
     @Inject private NpcSearchService npcSearchService;
     @Inject private MusicSearchButton musicSearchButton;
     @Inject private ItemDimmerController itemDimmerController;
     @Inject private PartyService partyService;
+    @Inject private PartySetSync partySetSync;
     @Inject private WSClient wsClient;
 
     private ChanceManPanel chanceManPanel;
     private NavigationButton navButton;
     private ExecutorService fileExecutor;
-    @Getter private final HashSet<Integer> allTradeableItems = new LinkedHashSet<>();
     private static final int GE_SEARCH_BUILD_SCRIPT = 751;
+    private static final String INGEST_COMMAND = "chanceman-ingest";
+    private static final String ROLL_COMMAND = "chanceman-roll";
+    private static final String HISTORY_COMMAND = "chanceman-history";
+    /** Rolls listed by name in a history summary. */
+    private static final int HISTORY_NAMES_SHOWN = 10;
     private volatile boolean tradeableItemsInitialized = false;
+    /** Bumped per refresh so a slower, older refresh does not overwrite a newer one. */
+    private volatile int tradeableRefreshGeneration;
+    /** A refresh is loading or scanning; the tick must not restart it. */
+    private volatile boolean tradeableRefreshPending;
+    private ClientTaskScheduler.Handle tradeableScan;
+    /** Names from the installed scan, for name rules. */
+    private volatile Map<Integer, String> tradeableNames = Collections.emptyMap();
+    private static final int ITEM_ID_LIMIT = 40000;
+    /** Item ids examined per scheduler step. */
+    private static final int SCAN_STEP = 256;
+    private static final int ITEM_CONFIG_GROUP = 10;
     private boolean featuresActive = false;
 
-    // De-dupe roll events received over party.
-    private final LinkedHashSet<String> processedEventIds = new LinkedHashSet<>();
-    private static final int MAX_PROCESSED_EVENTS = 500;
+    // De-dupe v2 roll events received over party and spot missed ones.
+    private final VersionVector receivedRolls = new VersionVector();
+    // Recently sent rolls, for members who report a gap.
+    private final SentRollLog sentRolls = new SentRollLog();
     private final Random groupRandom = new Random();
 
+    // Outgoing rolls of the current tick, sent as one batch on the next GameTick. Client thread only.
+    private final GroupChanceManRollBatchMessage.Builder pendingRolls = new GroupChanceManRollBatchMessage.Builder();
+    /** Random high word per session; the low word is this member's roll sequence. */
+    private final long eventIdPrefix = (long) groupRandom.nextInt() << 32;
+    private int nextEventSeq;
+
     @Provides
     ChanceManConfig provideConfig(ConfigManager configManager)
     {
@@ -124,6 +185,11 @@ public class ChanceManPlugin extends Plugin
             if (wsClient != null)
             {
                 wsClient.registerMessage(GroupChanceManRollMessage.class);
+                wsClient.registerMessage(GroupChanceManRollBatchMessage.class);
+                wsClient.registerMessage(GroupChanceManRollResendMessage.class);
+                wsClient.registerMessage(PartySetDigestMessage.class);
+                wsClient.registerMessage(PartySetSegmentsMessage.class);
+                wsClient.registerMessage(PartySetDeltaMessage.class);
             }
         }
         catch (Exception ignored) {}
@@ -131,8 +197,10 @@ public class ChanceManPlugin extends Plugin
         getInjector().getInstance(ActionHandler.class).startUp();
         accountManager.init();
         dropFetcher.startUp();
+        npcCatalog.startUp();
         dropCache.startUp();
         dropCache.getAllNpcData();
+        eventBus.register(dropPrefetcher);
         eventBus.register(accountManager);
         overlayManager.add(chanceManOverlay);
         overlayManager.add(dropsTooltipOverlay);
@@ -155,6 +223,7 @@ public class ChanceManPlugin extends Plugin
             };
             obtainedItemsManager.setOnChange(refreshPanel);
             rolledItemsManager.setOnChange(refreshPanel);
+            rolledItemsManager.setOnRolled(tradeableUniverse::onRolled);
 
             obtainedItemsManager.loadObtainedItems();
             rolledItemsManager.loadRolledItems();
@@ -163,14 +232,18 @@ public class ChanceManPlugin extends Plugin
         itemDimmerController.setEnabled(config.dimLockedItemsEnabled());
         itemDimmerController.setDimOpacity(config.dimLockedItemsOpacity());
         eventBus.register(itemDimmerController);
+        rollSoundPool.startUp();
+        rollHistoryStore.startUp();
         rollAnimationManager.startUp();
         dropsTabUI.startUp();
+        itemRulesStore.setOnChange(this::reconfigureTradeableItems);
+        itemRulesStore.startUp();
 
         chanceManPanel = new ChanceManPanel(
                 obtainedItemsManager,
                 rolledItemsManager,
                 itemManager,
-                allTradeableItems,
+                tradeableUniverse.getItems(),
                 clientThread,
                 rollAnimationManager
         );
@@ -197,14 +270,18 @@ public class ChanceManPlugin extends Plugin
 
         eventBus.register(musicWidgetController);
         eventBus.register(musicSearchButton);
+        partySetSync.startUp();
+        eventBus.register(partySetSync);
         musicSearchButton.onStart();
         tradeableItemsInitialized = false;
+        tradeableRefreshPending = false;
         rollAnimationManager.setAllTradeableItems(Collections.<Integer>emptySet());
     }
 
     private void disableFeatures()
     {
         if (!featuresActive) return;
+        flushPendingRolls();
         featuresActive = false;
 
         try
@@ -218,10 +295,15 @@ public class ChanceManPlugin extends Plugin
 
         clientThread.invokeLater(musicWidgetController::restore);
         musicSearchButton.onStop();
+        partySetSync.shutDown();
+        eventBus.unregister(partySetSync);
         eventBus.unregister(musicSearchButton);
         eventBus.unregister(musicWidgetController);
         dropsTabUI.shutDown();
         eventBus.unregister(itemDimmerController);
+        eventBus.unregister(dropPrefetcher);
+        dropPrefetcher.shutDown();
+        dropIngestPipeline.shutDown();
         eventBus.unregister(accountManager);
         getInjector().getInstance(ActionHandler.class).shutDown();
 
@@ -253,17 +335,32 @@ public class ChanceManPlugin extends Plugin
             {
                 rolledItemsManager.setExecutor(null);
                 rolledItemsManager.setOnChange(null);
+                rolledItemsManager.setOnRolled(null);
             }
         }
         dropFetcher.shutdown();
+        npcCatalog.shutDown();
+        npcSearchService.shutDown();
+        rollWeights.shutDown();
+        clientTaskScheduler.shutDown();
         dropCache.shutdown();
+        itemRulesStore.shutDown();
+        itemRulesStore.setOnChange(null);
+        rollSoundPool.shutDown();
+        rollHistoryStore.shutDown();
 
         // reset panel/tradeable state
+        if (chanceManPanel != null)
+        {
+            chanceManPanel.shutDown();
+        }
         chanceManPanel = null;
-        allTradeableItems.clear();
+        tradeableUniverse.clear();
+        tradeableNames = Collections.emptyMap();
         tradeableItemsInitialized = false;
         rollAnimationManager.setAllTradeableItems(Collections.emptySet());
         accountManager.reset();
+        receivedRolls.clear();
     }
 
     
@@ -275,23 +372,14 @@ public class ChanceManPlugin extends Plugin
         String eventId = msg.getEventId();
         if (eventId == null || eventId.isEmpty()) return;
 
-        synchronized (processedEventIds)
-        {
-            if (processedEventIds.contains(eventId))
-            {
-                return;
-            }
-            processedEventIds.add(eventId);
-            while (processedEventIds.size() > MAX_PROCESSED_EVENTS)
-            {
-                Iterator<String> it = processedEventIds.iterator();
-                if (it.hasNext()) { it.next(); it.remove(); }
-                else break;
-            }
-        }
-
         final int obtainedId = msg.getObtainedItemId();
         final int rolledId = msg.getRolledItemId();
+        // v1 ids carry no sequence; the history's id set doubles as their dedupe.
+        if (!rollHistoryStore.record(eventId, msg.getCreatedAt(), partyMemberName(msg.getMemberId()),
+                obtainedId, rolledId, msg.isManual()))
+        {
+            return;
+        }
 
         if (obtainedId > 0)
         {
@@ -305,6 +393,106 @@ public class ChanceManPlugin extends Plugin
         rollAnimationManager.enqueueSyncedRoll(obtainedId, rolledId, msg.isManual());
     }
 
+    /** v2: a member's rolls from one tick, applied together with one save per set. */
+    @Subscribe
+    public void onGroupChanceManRollBatchMessage(GroupChanceManRollBatchMessage msg)
+    {
+        if (!featuresActive) return;
+        if (msg == null) return;
+        final int size = msg.size();
+        if (size == 0 || isLocalMember(msg.getMemberId())) return;
+
+        int[] obtained = new int[size];
+        int[] rolled = new int[size];
+        boolean[] manual = new boolean[size];
+        int n = 0;
+        final String member = partyMemberName(msg.getMemberId());
+        for (int i = 0; i < size; i++)
+        {
+            if (!receivedRolls.accept(msg.getMemberId(), msg.getEventId(i), this::requestResend))
+            {
+                continue; // already applied
+            }
+            obtained[n] = msg.getObtainedItemId(i);
+            rolled[n] = msg.getRolledItemId(i);
+            manual[n] = msg.isManual(i);
+            rollHistoryStore.record(historyEvent(msg.getEventId(i), msg.getCreatedAt(), member,
+                    obtained[n], rolled[n], manual[n]));
+            n++;
+        }
+        if (n == 0) return;
+        if (n < size)
+        {
+            obtained = Arrays.copyOf(obtained, n);
+            rolled = Arrays.copyOf(rolled, n);
+            manual = Arrays.copyOf(manual, n);
+        }
+
+        obtainedItemsManager.markObtainedAll(obtained);
+        rolledItemsManager.markRolledAll(rolled);
+        rollAnimationManager.enqueueSyncedRolls(obtained, rolled, manual);
+    }
+
+    /** A member asked for rolls it missed; send them again if they are still logged. */
+    @Subscribe
+    public void onGroupChanceManRollResendMessage(GroupChanceManRollResendMessage msg)
+    {
+        if (!featuresActive) return;
+        if (msg == null || !isLocalMember(msg.getTargetMemberId())) return;
+        GroupChanceManRollBatchMessage batch = sentRolls.slice(msg.getFirstEventId(), msg.getLastEventId(),
+                System.currentTimeMillis());
+        if (batch != null)
+        {
+            sendToParty(batch);
+        }
+    }
+
+    @Subscribe
+    public void onUserPart(UserPart event)
+    {
+        receivedRolls.forget(event.getMemberId());
+    }
+
+    private void requestResend(long memberId, long firstEventId, long lastEventId)
+    {
+        sendToParty(new GroupChanceManRollResendMessage(memberId, firstEventId, lastEventId));
+    }
+
+    private boolean isLocalMember(long memberId)
+    {
+        PartyMember local = partyService.getLocalMember();
+        return local != null && local.getMemberId() == memberId;
+    }
+
+    private void sendToParty(PartyMemberMessage msg)
+    {
+        try
+        {
+            partyService.send(msg);
+        }
+        catch (Exception ignored)
+        {
+            // Party is optional; Dropbox persistence still works.
+        }
+    }
+
+    /** Numeric event ids sit in the low word of the history's UUID ids. */
+    private static RollEvent historyEvent(long eventId, long timestamp, String member,
+                                          int obtainedItemId, int rolledItemId, boolean manual)
+    {
+        return new RollEvent(0L, eventId, timestamp, member, obtainedItemId, rolledItemId, manual);
+    }
+
+    /** Client thread: send this tick's rolls, if any, as one party message. */
+    private void flushPendingRolls()
+    {
+        if (pendingRolls.isEmpty())
+        {
+            return;
+        }
+        sendToParty(pendingRolls.build(System.currentTimeMillis()));
+    }
+
 @Subscribe
     public void onWorldChanged(WorldChanged event)
     {
@@ -312,44 +500,211 @@ public class ChanceManPlugin extends Plugin
         else disableFeatures();
     }
 
-    /** Refreshes the list of tradeable item IDs based on the current configuration. */
+    /**
+     * Refreshes the list of tradeable item IDs based on the current configuration.
+     * A scan saved for the same cache revision and item definition count is
+     * reused; otherwise every item composition is scanned on the client thread.
+     */
     public void refreshTradeableItems()
     {
+        tradeableItemsInitialized = false;
+        tradeableRefreshPending = true;
+        final int gen = ++tradeableRefreshGeneration;
         clientThread.invokeLater(() ->
         {
-            tradeableItemsInitialized = false;
-
-            allTradeableItems.clear();
-            for (int i = 0; i < 40000; i++)
+            if (gen != tradeableRefreshGeneration)
             {
-                ItemComposition comp = itemManager.getItemComposition(i);
-                if (comp != null && comp.isTradeable() && !isNotTracked(i)
-                        && !ItemsFilter.isBlocked(i, config))
+                return;
+            }
+            final int revision = client.getRevision();
+            final int[] itemDefs = client.getIndexConfig().getFileIds(ITEM_CONFIG_GROUP);
+            final int definitions = itemDefs != null ? itemDefs.length : 0;
+            ExecutorService io = fileExecutor;
+            if (io == null || io.isShutdown())
+            {
+                scanTradeableItems(gen, revision, definitions);
+                return;
+            }
+            io.execute(() ->
+            {
+                TradeableUniverseCache.Scan scan = tradeableUniverseCache.loadScan(revision, definitions);
+                Map<Integer, String> names = scan != null ? tradeableUniverseCache.loadNames(revision, definitions) : null;
+                clientThread.invokeLater(() ->
                 {
-                    if (config.freeToPlay() && comp.isMembers())
+                    if (gen != tradeableRefreshGeneration)
+                    {
+                        return;
+                    }
+                    if (scan != null && names != null)
                     {
-                        continue;
+                        installTradeableUniverse(scan, names);
                     }
-                    if (!ItemsFilter.isPoisonEligible(i, config.requireWeaponPoison(),
-                            rolledItemsManager.getRolledItems()))
+                    else
                     {
-                        continue;
+                        scanTradeableItems(gen, revision, definitions);
                     }
-                    allTradeableItems.add(i);
+                });
+            });
+        });
+    }
+
+    /**
+     * Full scan of item compositions, spread over client frames by the task
+     * scheduler. The result is saved for the next start.
+     */
+    private void scanTradeableItems(int gen, int revision, int definitions)
+    {
+        if (tradeableScan != null)
+        {
+            tradeableScan.cancel();
+        }
+
+        final BitSet tradeable = new BitSet(ITEM_ID_LIMIT);
+        final BitSet members = new BitSet(ITEM_ID_LIMIT);
+        final BitSet stackable = new BitSet(ITEM_ID_LIMIT);
+        final BitSet noted = new BitSet(ITEM_ID_LIMIT);
+        final BitSet equipable = new BitSet(ITEM_ID_LIMIT);
+        final Map<Integer, String> names = new HashMap<>();
+        final int[] next = {0};
+        tradeableScan = clientTaskScheduler.submit("Tradeable item scan", progress ->
+        {
+            if (gen != tradeableRefreshGeneration)
+            {
+                return true;
+            }
+            int end = Math.min(ITEM_ID_LIMIT, next[0] + SCAN_STEP);
+            for (int i = next[0]; i < end; i++)
+            {
+                ItemComposition comp = itemManager.getItemComposition(i);
+                if (comp == null || !comp.isTradeable())
+                {
+                    continue;
                 }
+                names.put(i, comp.getName());
+                tradeable.set(i);
+                members.set(i, comp.isMembers());
+                stackable.set(i, comp.isStackable());
+                noted.set(i, comp.getNote() != -1);
+                equipable.set(i, isEquipable(comp));
+            }
+            next[0] = end;
+            progress.update(end, ITEM_ID_LIMIT);
+            if (end < ITEM_ID_LIMIT)
+            {
+                return false;
             }
-            rollAnimationManager.setAllTradeableItems(allTradeableItems);
-
-            // Only now mark initialized (prevents early rolls on login/inventory scan).
-            tradeableItemsInitialized = true;
 
-            if (chanceManPanel != null)
+            Map<String, BitSet> categories = new HashMap<>();
+            categories.put(TradeableUniverseCache.Scan.MEMBERS, members);
+            categories.put(TradeableUniverseCache.Scan.STACKABLE, stackable);
+            categories.put(TradeableUniverseCache.Scan.NOTED, noted);
+            categories.put(TradeableUniverseCache.Scan.EQUIPABLE, equipable);
+            TradeableUniverseCache.Scan scan = new TradeableUniverseCache.Scan(tradeable, categories);
+            ExecutorService io = fileExecutor;
+            if (io != null && !io.isShutdown())
             {
-                SwingUtilities.invokeLater(chanceManPanel::updatePanel);
+                io.execute(() -> tradeableUniverseCache.save(revision, definitions, scan, names));
+            }
+            if (gen == tradeableRefreshGeneration)
+            {
+                installTradeableUniverse(scan, names);
+            }
+            return true;
+        });
+        tradeableScan.getCompletion().whenComplete((v, ex) ->
+        {
+            // A failed or cancelled scan lets the next tick try again
+            if (ex != null && gen == tradeableRefreshGeneration)
+            {
+                tradeableRefreshPending = false;
             }
         });
     }
 
+    private static boolean isEquipable(ItemComposition comp)
+    {
+        String[] actions = comp.getInventoryActions();
+        if (actions == null)
+        {
+            return false;
+        }
+        for (String action : actions)
+        {
+            if ("Wear".equals(action) || "Wield".equals(action) || "Equip".equals(action))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Client thread: filter a scanned or loaded scan into the universe and rebuild the locked pool. */
+    private void installTradeableUniverse(TradeableUniverseCache.Scan scan, Map<Integer, String> names)
+    {
+        tradeableNames = names;
+        tradeableUniverse.install(scan, compileFilter(scan, names), config.requireWeaponPoison());
+        rollAnimationManager.setAllTradeableItems(tradeableUniverse.getItems());
+        rollWeights.refresh();
+
+        // Only now mark initialized (prevents early rolls on login/inventory scan).
+        tradeableItemsInitialized = true;
+        tradeableRefreshPending = false;
+
+        if (chanceManPanel != null)
+        {
+            chanceManPanel.setItemNames(names);
+        }
+    }
+
+    /**
+     * A filter setting or rule file changed: patch the installed universe. Before
+     * the first install there is nothing to patch; the install reads the new
+     * settings itself.
+     */
+    private void reconfigureTradeableItems()
+    {
+        final TradeableUniverseCache.Scan scan = tradeableUniverse.getScan();
+        if (scan == null)
+        {
+            return;
+        }
+        Runnable apply = () ->
+        {
+            final CompiledItemFilter filter = compileFilter(scan, tradeableNames);
+            final boolean requirePoison = config.requireWeaponPoison();
+            clientThread.invokeLater(() -> tradeableUniverse.reconfigure(filter, requirePoison));
+        };
+        ExecutorService io = fileExecutor;
+        if (io != null && !io.isShutdown())
+        {
+            io.execute(apply); // name rules scan every item name; keep them off the client thread
+        }
+        else
+        {
+            apply.run();
+        }
+    }
+
+    /** Built-in filters for the current config plus the user rule files, resolved against a scan. */
+    private CompiledItemFilter compileFilter(TradeableUniverseCache.Scan scan, Map<Integer, String> names)
+    {
+        return CompiledItemFilter.compile(config, itemRulesStore.compile(scan, names));
+    }
+
+    @Subscribe
+    public void onTradeableUniverseChanged(TradeableUniverseChanged event)
+    {
+        if (!featuresActive || event.isFull()) return;
+        if (event.getAdded() > 0)
+        {
+            rollWeights.refresh();
+        }
+        if (chanceManPanel != null)
+        {
+            SwingUtilities.invokeLater(chanceManPanel::updatePanel);
+        }
+    }
+
     @Subscribe
     public void onConfigChanged(net.runelite.client.events.ConfigChanged event)
     {
@@ -362,11 +717,18 @@ public class ChanceManPlugin extends Plugin
             case "enableFlatpacks":
             case "enableItemSets":
             case "requireWeaponPoison":
-                refreshTradeableItems();
+                reconfigureTradeableItems();
+                break;
+            case "rollWeighting":
+                rollWeights.refresh();
+                break;
+            case "rollSoundVolume":
+                rollSoundPool.applyVolume();
                 break;
             case "showRareDropTable":
             case "showGemDropTable":
                 dropCache.clearAllCaches();
+                dropPrefetcher.reset();
                 refreshDropsViewerIfOpen();
                 break;
             case "sortDropsByRarity":
@@ -385,6 +747,7 @@ public class ChanceManPlugin extends Plugin
     {
         if (!featuresActive) return;
         dropCache.pruneOldCaches();
+        dropPrefetcher.reset();
 
         obtainedItemsManager.stopWatching();
         rolledItemsManager.stopWatching();
@@ -406,7 +769,9 @@ public class ChanceManPlugin extends Plugin
     public void onGameTick(GameTick event)
     {
         if (!featuresActive) return;
-        if (!tradeableItemsInitialized && client.getGameState() == GameState.LOGGED_IN)
+        flushPendingRolls();
+        // A cold scan spans many ticks; restarting it each tick would never let it finish
+        if (!tradeableItemsInitialized && !tradeableRefreshPending && client.getGameState() == GameState.LOGGED_IN)
         {
             refreshTradeableItems();
         }
@@ -417,6 +782,139 @@ public class ChanceManPlugin extends Plugin
         }
     }
 
+    /** Rolls advance every frame too, so phase changes land on the frame they are due. */
+    @Subscribe
+    public void onBeforeRender(BeforeRender event)
+    {
+        if (featuresActive && tradeableItemsInitialized)
+        {
+            rollAnimationManager.process();
+        }
+    }
+
+    /**
+     * {@code ::chanceman-ingest <directory or .jsonl export>} bulk-loads saved wiki
+     * pages into the drop cache offline; {@code ::chanceman-ingest cancel} stops it.
+     * {@code ::chanceman-roll pause|resume|skip} controls the roll on screen.
+     * {@code ::chanceman-history [member]} lists this session's rolls, or one member's.
+     */
+    @Subscribe
+    public void onCommandExecuted(CommandExecuted event)
+    {
+        if (!featuresActive) return;
+        if (ROLL_COMMAND.equalsIgnoreCase(event.getCommand()))
+        {
+            handleRollCommand(event.getArguments());
+            return;
+        }
+        if (HISTORY_COMMAND.equalsIgnoreCase(event.getCommand()))
+        {
+            handleHistoryCommand(String.join(" ", event.getArguments()).trim());
+            return;
+        }
+        if (!INGEST_COMMAND.equalsIgnoreCase(event.getCommand())) return;
+
+        String arg = String.join(" ", event.getArguments()).trim();
+        if (arg.isEmpty())
+        {
+            chatMessage("Usage: ::" + INGEST_COMMAND + " <folder of saved pages | export.jsonl> | cancel");
+            return;
+        }
+        if (arg.equalsIgnoreCase("cancel"))
+        {
+            dropIngestPipeline.cancel();
+            chatMessage("Stopping drop import after pages in flight.");
+            return;
+        }
+
+        Path source = Paths.get(arg);
+        chatMessage("Importing drop tables from " + source.getFileName() + "...");
+        dropIngestPipeline.start(source, s -> {
+            if (!s.isFinished()) chatMessage("Drop import: " + s.summary());
+        }).whenComplete((s, ex) -> {
+            if (ex != null)
+            {
+                chatMessage("Drop import failed: " + ex.getMessage());
+                return;
+            }
+            chatMessage((s.isCancelled() ? "Drop import stopped: " : "Drop import finished: ") + s.summary());
+            clientThread.invokeLater(this::refreshDropsViewerIfOpen);
+        });
+    }
+
+    private void handleRollCommand(String[] args)
+    {
+        String arg = args.length > 0 ? args[0] : "";
+        switch (arg.toLowerCase())
+        {
+            case "pause":
+                rollAnimationManager.pause();
+                break;
+            case "resume":
+                rollAnimationManager.resume();
+                break;
+            case "skip":
+                rollAnimationManager.skip();
+                break;
+            default:
+                chatMessage("Usage: ::" + ROLL_COMMAND + " pause | resume | skip");
+                break;
+        }
+    }
+
+    /** Summarise this session's rolls, or every roll by one member. */
+    private void handleHistoryCommand(String member)
+    {
+        final List<RollEvent> events = member.isEmpty()
+                ? rollHistoryStore.thisSession()
+                : rollHistoryStore.byMember(member, Long.MIN_VALUE, Long.MAX_VALUE);
+        final String scope = member.isEmpty() ? "this session" : "by " + member;
+        if (events.isEmpty())
+        {
+            chatMessage("No rolls " + scope + ".");
+            return;
+        }
+
+        clientThread.invokeLater(() ->
+        {
+            StringBuilder names = new StringBuilder();
+            int shown = Math.min(HISTORY_NAMES_SHOWN, events.size());
+            for (int i = events.size() - shown; i < events.size(); i++)
+            {
+                int rolledId = events.get(i).getRolledItemId();
+                if (rolledId <= 0)
+                {
+                    continue;
+                }
+                if (names.length() > 0)
+                {
+                    names.append(", ");
+                }
+                names.append(itemManager.getItemComposition(rolledId).getName());
+            }
+            String more = events.size() > shown ? " (latest " + shown + ")" : "";
+            client.addChatMessage(ChatMessageType.GAMEMESSAGE, "",
+                    events.size() + " rolls " + scope + more + ": " + names, null);
+        });
+    }
+
+    private String partyMemberName(long memberId)
+    {
+        PartyMember member = partyService.getMemberById(memberId);
+        if (member == null || member.getDisplayName() == null)
+        {
+            return "Unknown";
+        }
+        return member.getDisplayName();
+    }
+
+    /** Game-message line for command feedback; safe from any thread. */
+    private void chatMessage(String message)
+    {
+        clientThread.invokeLater(() ->
+                client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", message, null));
+    }
+
     @Subscribe
     public void onScriptPostFired(ScriptPostFired event)
     {
@@ -466,8 +964,8 @@ public class ChanceManPlugin extends Plugin
      * Trigger a group roll for the given obtained item.
      *
      * Selects a random currently-locked tradeable item, persists it as rolled so offline
-     * members can catch up via the shared folder, broadcasts the event to online party
-     * members, and enqueues a forced-final roll animation locally.
+     * members can catch up via the shared folder, queues the event for this tick's party
+     * batch, and enqueues a forced-final roll animation locally.
      */
     private void triggerGroupRoll(int obtainedItemId, boolean manual)
     {
@@ -477,53 +975,22 @@ public class ChanceManPlugin extends Plugin
         }
 
         // Pick a random locked item.
-        final java.util.List<Integer> locked = new java.util.ArrayList<>();
-        for (int id : allTradeableItems)
-        {
-            if (!rolledItemsManager.isRolled(id))
-            {
-                locked.add(id);
-            }
-        }
-
-        if (locked.isEmpty())
+        final int rolledItemId = lockedItemPool.pickWeighted(groupRandom);
+        if (rolledItemId < 0)
         {
             return;
         }
-
-        final int rolledItemId = locked.get(groupRandom.nextInt(locked.size()));
+        rollWeights.refreshDropRates();
 
         // Persist immediately so offline members can catch up.
         rolledItemsManager.markRolled(rolledItemId);
 
-        // Create event id and mark as processed in case PartyService echoes to self.
-        final String eventId = java.util.UUID.randomUUID().toString();
-        synchronized (processedEventIds)
-        {
-            processedEventIds.add(eventId);
-            while (processedEventIds.size() > MAX_PROCESSED_EVENTS)
-            {
-                java.util.Iterator<String> it = processedEventIds.iterator();
-                if (it.hasNext()) { it.next(); it.remove(); }
-                else break;
-            }
-        }
-
-        // Broadcast to party members (no-op if not currently in a party).
-        try
-        {
-            partyService.send(new com.chanceman.party.GroupChanceManRollMessage(
-                    eventId,
-                    System.currentTimeMillis(),
-                    obtainedItemId,
-                    rolledItemId,
-                    manual
-            ));
-        }
-        catch (Exception ignored)
-        {
-            // Party is optional; Dropbox persistence still works.
-        }
+        // Queue for this tick's party batch (sent on the next GameTick; no-op if not in a party).
+        final long eventId = eventIdPrefix | (nextEventSeq++ & 0xFFFFFFFFL);
+        pendingRolls.add(eventId, obtainedItemId, rolledItemId, manual);
+        sentRolls.add(eventId, obtainedItemId, rolledItemId, manual);
+        rollHistoryStore.record(historyEvent(eventId, System.currentTimeMillis(), accountManager.getPlayerName(),
+                obtainedItemId, rolledItemId, manual));
 
         // Animate locally with the forced final result.
         rollAnimationManager.enqueueSyncedRoll(obtainedItemId, rolledItemId, manual);
@@ -611,12 +1078,16 @@ public class ChanceManPlugin extends Plugin
 
     public boolean isNotTracked(int itemId)
     {
-        return itemId == 995 || itemId == 13191 || itemId == 13190 ||
-                itemId == 7587 || itemId == 7588 || itemId == 7589 || itemId == 7590 || itemId == 7591;
+        return ItemsFilter.isNotTracked(itemId);
+    }
+
+    public Set<Integer> getAllTradeableItems()
+    {
+        return tradeableUniverse.getItems();
     }
 
     public boolean isInPlay(int itemId)
     {
-        return allTradeableItems.contains(itemId);
+        return tradeableUniverse.contains(itemId);
     }
 }
@@ -0,0 +1,237 @@
+package com.chanceman.audio;
+
+import com.chanceman.ChanceManConfig;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.FloatControl;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plays the roll tick from a few preloaded clips.
+ *
+ * <p>The WAV is decoded once into memory and opened into {@link #POOL_SIZE}
+ * clips on a single audio thread, which also does every play. A play takes
+ * the next clip that is not sounding, so ticks can overlap; when all of them
+ * are busy the one that started first is restarted. Volume is read from the
+ * config on each play, and {@link #applyVolume()} re-levels clips that are
+ * already playing.</p>
+ */
+@Slf4j
+@Singleton
+public class RollSoundPool
+{
+    private static final String TICK_RESOURCE = "/com/chanceman/tick.wav";
+    private static final int POOL_SIZE = 4;
+    private static final float MUTE_DB = -80.0f;
+
+    private final ChanceManConfig config;
+
+    // Audio thread only
+    private Clip[] clips;
+    private long[] startedAt;
+    private boolean loadFailed;
+
+    private ExecutorService audioThread;
+
+    @Inject
+    public RollSoundPool(ChanceManConfig config)
+    {
+        this.config = config;
+    }
+
+    /** Start the audio thread and decode the clips in the background. */
+    public synchronized void startUp()
+    {
+        audioThread().execute(this::ensureLoaded);
+    }
+
+    /** Play one tick if roll sounds are enabled. Safe from any thread. */
+    public void play()
+    {
+        if (!config.enableRollSounds())
+        {
+            return;
+        }
+        audioThread().execute(this::playNext);
+    }
+
+    /** Apply the configured volume to every clip, including ones playing now. */
+    public void applyVolume()
+    {
+        audioThread().execute(() ->
+        {
+            if (clips == null)
+            {
+                return;
+            }
+            float db = toDb(config.rollSoundVolume());
+            for (Clip clip : clips)
+            {
+                setGain(clip, db);
+            }
+        });
+    }
+
+    public synchronized void shutDown()
+    {
+        if (audioThread == null)
+        {
+            return;
+        }
+        audioThread.execute(this::closeClips);
+        audioThread.shutdown();
+        audioThread = null;
+    }
+
+    private void playNext()
+    {
+        if (!ensureLoaded())
+        {
+            return;
+        }
+        int pick = 0;
+        for (int i = 0; i < clips.length; i++)
+        {
+            if (!clips[i].isRunning())
+            {
+                pick = i;
+                break;
+            }
+            if (startedAt[i] < startedAt[pick])
+            {
+                pick = i; // all busy so far: remember the oldest
+            }
+        }
+
+        Clip clip = clips[pick];
+        clip.stop();
+        setGain(clip, toDb(config.rollSoundVolume()));
+        clip.setFramePosition(0);
+        clip.start();
+        startedAt[pick] = System.nanoTime();
+    }
+
+    /** Decode the tick once and open the pool; false if audio is unavailable. */
+    private boolean ensureLoaded()
+    {
+        if (clips != null)
+        {
+            return true;
+        }
+        if (loadFailed)
+        {
+            return false;
+        }
+
+        Clip[] opened = new Clip[POOL_SIZE];
+        try
+        {
+            AudioFormat format;
+            byte[] pcm;
+            try (InputStream raw = RollSoundPool.class.getResourceAsStream(TICK_RESOURCE))
+            {
+                if (raw == null)
+                {
+                    throw new IOException("missing " + TICK_RESOURCE);
+                }
+                try (AudioInputStream in = AudioSystem.getAudioInputStream(new BufferedInputStream(raw)))
+                {
+                    format = in.getFormat();
+                    pcm = readAll(in);
+                }
+            }
+
+            for (int i = 0; i < POOL_SIZE; i++)
+            {
+                opened[i] = AudioSystem.getClip();
+                opened[i].open(format, pcm, 0, pcm.length);
+            }
+        }
+        catch (Exception e)
+        {
+            log.warn("ChanceMan: roll sounds unavailable", e);
+            for (Clip clip : opened)
+            {
+                if (clip != null)
+                {
+                    clip.close();
+                }
+            }
+            loadFailed = true;
+            return false;
+        }
+
+        clips = opened;
+        startedAt = new long[POOL_SIZE];
+        return true;
+    }
+
+    private void closeClips()
+    {
+        if (clips != null)
+        {
+            for (Clip clip : clips)
+            {
+                clip.close();
+            }
+        }
+        clips = null;
+        startedAt = null;
+        loadFailed = false;
+    }
+
+    private synchronized ExecutorService audioThread()
+    {
+        if (audioThread == null || audioThread.isShutdown())
+        {
+            audioThread = Executors.newSingleThreadExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("ChanceMan-Audio").setDaemon(true).build());
+        }
+        return audioThread;
+    }
+
+    private static byte[] readAll(AudioInputStream in) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0)
+        {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static void setGain(Clip clip, float db)
+    {
+        if (!clip.isControlSupported(FloatControl.Type.MASTER_GAIN))
+        {
+            return;
+        }
+        FloatControl gain = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
+        gain.setValue(Math.max(gain.getMinimum(), Math.min(gain.getMaximum(), db)));
+    }
+
+    private static float toDb(int percent)
+    {
+        int p = Math.max(0, Math.min(100, percent));
+        if (p == 0)
+        {
+            return MUTE_DB; // effectively mute
+        }
+        double lin = p / 100.0;
+        return (float) (20.0 * Math.log10(lin));
+    }
+}
@@ -0,0 +1,287 @@
+package com.chanceman.drops;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.util.*;
+
+/**
+ * Reference parser: builds the full Jsoup DOM and queries it with selectors.
+ * Kept so {@link StreamingDropPageParser} can be checked against it on
+ * recorded pages.
+ */
+@Slf4j
+public class DomDropPageParser implements DropPageParser
+{
+    @Override
+    public ParsedDropPage parse(String html)
+    {
+        Document doc = Jsoup.parse(html);
+
+        String title = null;
+        Element heading = doc.selectFirst("h1#firstHeading");
+        if (heading != null) {
+            title = heading.text();
+        }
+
+        return new ParsedDropPage(title, parseCombatLevel(doc), parseSections(doc));
+    }
+
+    /** Extract drop table sections (skips Nothing rows). */
+    private List<DropTableSection> parseSections(Document doc)
+    {
+        Elements tables = doc.select("table.item-drops");
+        List<DropTableSection> sections = new ArrayList<>();
+
+        for (Element table : tables)
+        {
+            Map<String, Integer> col = buildColumnIndexMap(table);
+
+            Integer itemCol = col.get("item");
+            Integer rarityCol = col.get("rarity");
+            if (itemCol == null || rarityCol == null)
+            {
+                continue; // table not understood
+            }
+
+            String header = findSectionHeader(table);
+
+            List<DropItem> items = new ArrayList<>();
+            Elements rows = table.select("tbody > tr");
+
+            for (Element row : rows)
+            {
+                // Skip header-like rows inside tbody
+                if (!row.select("th").isEmpty())
+                {
+                    continue;
+                }
+
+                Elements tds = row.select("td");
+                if (itemCol >= tds.size())
+                {
+                    continue;
+                }
+
+                Element itemTd = tds.get(itemCol);
+
+                String name = extractItemName(itemTd);
+                if (name.isEmpty() || name.equalsIgnoreCase("nothing"))
+                {
+                    continue;
+                }
+
+                String rarity = "";
+                if (rarityCol < tds.size())
+                {
+                    rarity = extractRarity(tds.get(rarityCol));
+                }
+                else
+                {
+                    // Fallback: locate a cell containing the new rarity spans
+                    Element rarityTd = row.selectFirst("td:has(span[data-drop-fraction]), td:has(span[data-drop-oneover])");
+                    if (rarityTd != null)
+                    {
+                        rarity = extractRarity(rarityTd);
+                    }
+                }
+
+                items.add(new DropItem(0, name, rarity));
+            }
+
+            if (!items.isEmpty())
+            {
+                sections.add(new DropTableSection(header, items));
+            }
+        }
+
+        return sections;
+    }
+
+    /** Find the nearest section header preceding the table (supports mw-heading wrappers). */
+    private String findSectionHeader(Element table)
+    {
+        Element prev = table.previousElementSibling();
+        while (prev != null)
+        {
+            if (prev.is("h2,h3,h4"))
+            {
+                String txt = prev.text().trim();
+                return txt.isEmpty() ? "Drops" : txt;
+            }
+
+            if (prev.hasClass("mw-heading"))
+            {
+                Element h = prev.selectFirst("h2,h3,h4");
+                if (h != null)
+                {
+                    String txt = h.text().trim();
+                    return txt.isEmpty() ? "Drops" : txt;
+                }
+            }
+
+            prev = prev.previousElementSibling();
+        }
+        return "Drops";
+    }
+
+    /** Build a normalized map of column name -> index from the table header row. */
+    private Map<String, Integer> buildColumnIndexMap(Element table)
+    {
+        Map<String, Integer> map = new HashMap<>();
+
+        Element headerRow = table.selectFirst("tr:has(th)");
+        if (headerRow == null)
+        {
+            return map;
+        }
+
+        Elements ths = headerRow.select("th");
+        for (int i = 0; i < ths.size(); i++)
+        {
+            Element th = ths.get(i);
+
+            // OSRS wiki uses class "item-col" on the Item column header
+            if (th.hasClass("item-col"))
+            {
+                map.put("item", i);
+            }
+
+            String key = normalizeHeader(th.text());
+            if (!key.isEmpty())
+            {
+                map.put(key, i);
+            }
+        }
+
+        return map;
+    }
+
+    static String normalizeHeader(String s)
+    {
+        if (s == null) return "";
+        String t = s.trim().toLowerCase(Locale.ROOT);
+        if (t.isEmpty()) return "";
+
+        if (t.contains("item")) return "item";
+        if (t.contains("rarity")) return "rarity";
+        return "";
+    }
+
+    /** Extract item name from the item cell. */
+    private String extractItemName(Element itemTd)
+    {
+        if (itemTd == null) return "";
+
+        Element a = itemTd.selectFirst("a.itemlink[title], a[title]");
+        if (a != null)
+        {
+            String title = a.attr("title");
+            if (title != null && !title.trim().isEmpty())
+            {
+                return title.trim();
+            }
+        }
+
+        return itemTd.text().replace("(m)", "").trim();
+    }
+
+    /** Extract rarity from data-drop-* spans. */
+    private String extractRarity(Element rarityTd)
+    {
+        if (rarityTd == null) return "";
+
+        Elements spans = rarityTd.select("span[data-drop-fraction], span[data-drop-oneover]");
+        if (!spans.isEmpty())
+        {
+            List<String> parts = new ArrayList<>();
+            for (Element sp : spans)
+            {
+                String v = sp.hasAttr("data-drop-fraction") ? sp.attr("data-drop-fraction") : "";
+                if (v == null || v.isEmpty())
+                {
+                    v = sp.hasAttr("data-drop-oneover") ? sp.attr("data-drop-oneover") : "";
+                }
+
+                String txt = (v != null && !v.isEmpty()) ? v : sp.text();
+                txt = txt.replace(",", "").trim();
+                if (!txt.isEmpty())
+                {
+                    parts.add(txt);
+                }
+            }
+
+            return joinRarityParts(parts);
+        }
+
+        // Fallback
+        String own = rarityTd.ownText();
+        if (own != null && !own.trim().isEmpty())
+        {
+            return own.trim();
+        }
+        return rarityTd.text().trim();
+    }
+
+    static String joinRarityParts(List<String> parts)
+    {
+        if (parts.isEmpty())
+        {
+            return "";
+        }
+        if (parts.size() == 1)
+        {
+            return parts.get(0);
+        }
+        if (parts.size() == 2)
+        {
+            return parts.get(0) + "–" + parts.get(1);
+        }
+        return String.join("; ", parts);
+    }
+
+    /** Attempt to parse the combat level from the NPC infobox. */
+    private int parseCombatLevel(Document doc)
+    {
+        Element infobox = doc.selectFirst("table.infobox");
+        if (infobox == null)
+        {
+            return 0;
+        }
+        Elements rows = infobox.select("tr");
+        for (Element row : rows)
+        {
+            Element th = row.selectFirst("th");
+            Element td = row.selectFirst("td");
+            if (th != null && td != null) {
+                String thText = th.text();
+                if (thText != null && thText.toLowerCase(Locale.ROOT).contains("combat level")) {
+                    int lvl = firstInteger(td.text());
+                    if (lvl >= 0) {
+                        return lvl;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    /** First parseable run of digits in {@code txt}, or -1 if there is none. */
+    static int firstInteger(String txt)
+    {
+        String[] parts = txt.split("[^0-9]+");
+        for (String part : parts) {
+            if (part != null && part.length() > 0) {
+                try {
+                    return Integer.parseInt(part);
+                } catch (NumberFormatException nfe) {
+                    log.warn("Failed to parse combat level: {}", txt);
+                }
+            }
+        }
+        return -1;
+    }
+}
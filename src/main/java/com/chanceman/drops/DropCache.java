@@ -19,6 +19,9 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -34,21 +37,25 @@ public class DropCache
     private final Gson gson;
     private final AccountManager accountManager;
     private final DropFetcher dropFetcher;
+    private final NpcCatalog npcCatalog;
     private static final Duration MAX_AGE = Duration.ofDays(7);
     private final Map<Path, Object> writeLocks = new ConcurrentHashMap<>();
     private final Map<Path, NpcDropData> cache = new ConcurrentHashMap<>();
     private final Map<String, Path> nameIndex = new ConcurrentHashMap<>();
     private volatile boolean indexLoaded = false;
+    /** Bumped whenever the set of cached entries changes. */
+    private final AtomicInteger version = new AtomicInteger();
 
     // Dedicated IO executor so we dont block the common ForkJoinPool with file ops
     private ExecutorService ioExecutor;
 
     @Inject
-    public DropCache(Gson gson, AccountManager accountManager, DropFetcher dropFetcher)
+    public DropCache(Gson gson, AccountManager accountManager, DropFetcher dropFetcher, NpcCatalog npcCatalog)
     {
         this.gson = gson;
         this.accountManager = accountManager;
         this.dropFetcher = dropFetcher;
+        this.npcCatalog = npcCatalog;
     }
 
     /** Preload on-disk index and prune stale cache entries. */
@@ -61,21 +68,88 @@ public class DropCache
         pruneOldCaches();
     }
 
+    /** {@link #get(int, String, int, FetchPriority)} on the interactive lane. */
+    public CompletableFuture<NpcDropData> get(int npcId, String name, int level)
+    {
+        return get(npcId, name, level, FetchPriority.INTERACTIVE);
+    }
+
     /**
      * Load from disk if possible; otherwise fetch from the wiki, write the
      * JSON, and return the data. Results without drop-table sections are
-     * discarded and never cached.
+     * discarded and never cached. Network fetches are queued on the given
+     * scheduler lane.
+     *
+     * <p>Ids are mapped to their {@link NpcCatalog} variant group so every
+     * variant of an NPC shares one cache entry; a blank name or level is
+     * filled in from the catalog.</p>
+     *
+     * <p>Cancelling the returned future also drops its queued wiki fetch.
+     * Failures are logged and yield null, the same as a page without drops.</p>
      */
-    public CompletableFuture<NpcDropData> get(int npcId, String name, int level)
+    public CompletableFuture<NpcDropData> get(int npcId, String name, int level, FetchPriority priority)
+    {
+        CompletableFuture<NpcDropData> loaded = lookup(npcId, name, level, priority);
+        CompletableFuture<NpcDropData> result = loaded.exceptionally(ex ->
+        {
+            if (ex instanceof CancellationException || ex.getCause() instanceof CancellationException)
+            {
+                log.debug("Superseded drop fetch for {} ({})", name, npcId);
+            }
+            else
+            {
+                log.error("Error fetching drop data for NPC {}", npcId, ex);
+            }
+            return null;
+        });
+        result.whenComplete((data, ex) ->
+        {
+            if (result.isCancelled())
+            {
+                loaded.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Like {@link #get(int, String, int, FetchPriority)}, but a failed fetch
+     * completes the future exceptionally, so callers can tell it from an NPC
+     * without drops (null).
+     */
+    CompletableFuture<NpcDropData> lookup(int npcId, String name, int level, FetchPriority priority)
+    {
+        NpcCatalog.Entry entry = npcCatalog.get(npcId);
+        if (entry != null)
+        {
+            return load(entry.getCanonicalId(),
+                    name == null || name.isEmpty() ? entry.getName() : name,
+                    level > 0 ? level : entry.getCombatLevel(),
+                    priority);
+        }
+        // Unknown or multi-NPC wrapper ids: key on the name instead
+        int byName = npcCatalog.findId(name, level);
+        return load(byName != 0 ? byName : npcId, name, level, priority);
+    }
+
+    private CompletableFuture<NpcDropData> load(int npcId, String name, int level, FetchPriority priority)
     {
         loadIndex();
         final String safeName = name.replaceAll("[^A-Za-z0-9]", "_");
         final Path file;
         try
         {
-            file = npcId == 0
-                    ? findExistingCacheFile(safeName, level)
-                    : getCacheFile(npcId, name, level);
+            if (npcId == 0)
+            {
+                file = findExistingCacheFile(safeName, level);
+            }
+            else
+            {
+                // Older entries were written under wiki page ids, so fall back to name + level
+                Path byId = getCacheFile(npcId, name, level);
+                Path byName = cache.containsKey(byId) ? null : findExistingCacheFile(safeName, level);
+                file = byName != null ? byName : byId;
+            }
         }
         catch (IOException ex)
         {
@@ -84,7 +158,10 @@ public class DropCache
         }
 
         ExecutorService executor = ensureExecutor();
-        return CompletableFuture.supplyAsync(() ->
+        // Set once the fetch is queued, so cancelling the result can reach it
+        final AtomicReference<CompletableFuture<NpcDropData>> inFlight = new AtomicReference<>();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        CompletableFuture<NpcDropData> result = CompletableFuture.supplyAsync(() ->
         {
             if (file != null)
             {
@@ -105,12 +182,18 @@ public class DropCache
             return null;
         }, executor).thenComposeAsync(cached ->
         {
-            if (cached != null)
+            if (cached != null || cancelled.get())
             {
                 return CompletableFuture.completedFuture(cached);
             }
 
-            return dropFetcher.fetch(npcId, name, level)
+            CompletableFuture<NpcDropData> fetch = dropFetcher.fetch(npcId, name, level, priority);
+            inFlight.set(fetch);
+            if (cancelled.get())
+            {
+                fetch.cancel(false);
+            }
+            return fetch
                     .thenApplyAsync(data ->
                     {
                         try
@@ -120,34 +203,7 @@ public class DropCache
                                 return null;
                             }
 
-                            Path out = getCacheFile(data.getNpcId(), data.getName(), data.getLevel());
-                            Files.createDirectories(out.getParent());
-                            String json = gson.toJson(data);
-
-                            Object lock = writeLocks.computeIfAbsent(out, p -> new Object());
-                            synchronized (lock)
-                            {
-                                Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
-                                try
-                                {
-                                    Files.writeString(
-                                            tmp,
-                                            json,
-                                            StandardCharsets.UTF_8,
-                                            StandardOpenOption.CREATE,
-                                            StandardOpenOption.TRUNCATE_EXISTING
-                                    );
-                                    Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-                                }
-                                finally
-                                {
-                                    writeLocks.remove(out);
-                                    try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
-                                }
-                            }
-
-                            cache.put(out, data);
-                            nameIndex.put(buildNameKey(data.getName(), data.getLevel()), out);
+                            Path out = store(data);
 
                             if (npcId == 0 && data.getNpcId() != 0)
                             {
@@ -165,13 +221,74 @@ public class DropCache
                             log.error("Failed to write cache file for {}", name, e);
                         }
                         return data;
-                    }, executor)
-                    .exceptionally(ex ->
-                    {
-                        log.error("Error fetching drop data for NPC {}", npcId, ex);
-                        return null;
-                    });
+                    }, executor);
         }, executor);
+
+        result.whenComplete((data, ex) ->
+        {
+            if (result.isCancelled())
+            {
+                cancelled.set(true);
+                CompletableFuture<NpcDropData> fetch = inFlight.get();
+                if (fetch != null)
+                {
+                    fetch.cancel(false);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Encode {@code data} and atomically write it to its cache file, then
+     * index it. Blocks on disk IO, so callers stay off the client thread.
+     */
+    Path store(NpcDropData data) throws IOException
+    {
+        loadIndex();
+        if (data.getNpcId() == 0)
+        {
+            data.setNpcId(npcCatalog.findId(data.getName(), data.getLevel()));
+        }
+        Path out = getCacheFile(data.getNpcId(), data.getName(), data.getLevel());
+        Files.createDirectories(out.getParent());
+        String json = gson.toJson(data);
+
+        Object lock = writeLocks.computeIfAbsent(out, p -> new Object());
+        synchronized (lock)
+        {
+            Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+            try
+            {
+                Files.writeString(
+                        tmp,
+                        json,
+                        StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING
+                );
+                Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            finally
+            {
+                writeLocks.remove(out);
+                try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+            }
+        }
+
+        cache.put(out, data);
+        nameIndex.put(buildNameKey(data.getName(), data.getLevel()), out);
+        version.incrementAndGet();
+        return out;
+    }
+
+    /**
+     * Non-blocking check against the in-memory index; returns false until the
+     * index has been loaded.
+     */
+    public boolean isCached(String name, int level)
+    {
+        return indexLoaded && name != null && nameIndex.containsKey(buildNameKey(name, level));
     }
 
     /**
@@ -184,36 +301,35 @@ public class DropCache
     }
 
     /**
-     * Return a list of NPC names containing the supplied query. Matches from
-     * the local cache are combined with wiki search results to ensure partial
-     * lookups surface all relevant NPCs.
+     * Wiki name search, for when the local name index comes up short. Failures
+     * yield an empty list.
      */
     public CompletableFuture<List<String>> searchNpcNames(String query)
     {
-        ExecutorService executor = ensureExecutor();
-        return CompletableFuture.supplyAsync(() ->
+        CompletableFuture<List<String>> search = dropFetcher.searchNpcNames(query);
+        CompletableFuture<List<String>> result = search.exceptionally(ex ->
         {
-            String lc = query.toLowerCase(Locale.ROOT).trim();
-            loadIndex();
-
-            // Preserve insertion order while de-duplicating names
-            Set<String> names = cache.values().stream()
-                    .map(NpcDropData::getName)
-                    .filter(Objects::nonNull)
-                    .filter(name -> name.toLowerCase(Locale.ROOT).contains(lc))
-                    .collect(Collectors.toCollection(LinkedHashSet::new));
-
-            try
-            {
-                names.addAll(dropFetcher.searchNpcNames(query));
-            }
-            catch (Exception ex)
+            log.debug("Wiki search failed for {}", query, ex);
+            return Collections.<String>emptyList();
+        });
+        // Cancelling the result also drops the queued request
+        result.whenComplete((names, ex) ->
+        {
+            if (result.isCancelled())
             {
-                log.debug("Wiki search failed for {}", query, ex);
+                search.cancel(false);
             }
+        });
+        return result;
+    }
 
-            return new ArrayList<>(names);
-        }, executor);
+    /**
+     * Counter that changes whenever entries are added, removed or reloaded, so
+     * derived indexes know when to rebuild.
+     */
+    public int getVersion()
+    {
+        return version.get();
     }
 
     private boolean isFresh(Path file)
@@ -248,7 +364,7 @@ public class DropCache
         return null;
     }
 
-    private Path getCacheDir() throws IOException
+    Path getCacheDir() throws IOException
     {
         String player = accountManager.getPlayerName();
         if (player == null)
@@ -360,6 +476,7 @@ public class DropCache
         cache.clear();
         nameIndex.clear();
         indexLoaded = true;
+        version.incrementAndGet();
     }
 
     /** Remove the given file from the in-memory indices. */
@@ -369,6 +486,7 @@ public class DropCache
         if (data != null)
         {
             nameIndex.remove(buildNameKey(data.getName(), data.getLevel()));
+            version.incrementAndGet();
         }
     }
 
@@ -427,6 +545,7 @@ public class DropCache
                 log.debug("Error loading cache index", e);
             }
             indexLoaded = true;
+            version.incrementAndGet();
         }
     }
 
@@ -442,6 +561,7 @@ public class DropCache
         cache.clear();
         nameIndex.clear();
         indexLoaded = false;
+        version.incrementAndGet();
     }
 
     private synchronized ExecutorService ensureExecutor() {
@@ -0,0 +1,668 @@
+package com.chanceman.drops;
+
+import com.chanceman.scheduling.ClientTaskScheduler;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bulk, offline drop-table import. Reads saved wiki pages from a directory
+ * ({@code *.html}/{@code *.htm}, recursively) or a MediaWiki {@code action=parse}
+ * export (one JSON response per line, {@code *.jsonl}) and warms the
+ * {@link DropCache} without touching the network. Game NPC ids come from the
+ * {@link NpcCatalog} when the page is written.
+ *
+ * <p>Stages: parse (worker pool) → item-id resolution (one resolver thread,
+ * batched onto the client thread with a memo) → encode + write (small IO pool).
+ * A semaphore bounds pages in flight so a large export never sits in memory at
+ * once. Finished entries are appended to a checkpoint file; a run that is
+ * cancelled or fails part-way resumes from it. The checkpoint is removed
+ * after a clean run.</p>
+ */
+@Slf4j
+@Singleton
+public class DropIngestPipeline
+{
+    private static final int PARSE_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int WRITE_THREADS = 2;
+    private static final int MAX_IN_FLIGHT = PARSE_THREADS * 8;
+    private static final int RESOLVE_BATCH = 64;
+    /** Names per client-thread job; the scheduler spreads each over frames. */
+    private static final int RESOLVE_CHUNK = 200;
+    private static final long RESOLVE_TIMEOUT_SECONDS = 30;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final DropCache dropCache;
+    private final DropFetcher dropFetcher;
+    private final ClientTaskScheduler taskScheduler;
+    private final DropPageParser pageParser = new StreamingDropPageParser();
+
+    private volatile Run current;
+
+    @Inject
+    public DropIngestPipeline(DropCache dropCache, DropFetcher dropFetcher, ClientTaskScheduler taskScheduler)
+    {
+        this.dropCache = dropCache;
+        this.dropFetcher = dropFetcher;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Start ingesting {@code source}. {@code progress} is called from pipeline
+     * threads every few seconds and once more at the end.
+     *
+     * @return completes with the final stats, or fails if a run is already active
+     */
+    public synchronized CompletableFuture<IngestStats> start(Path source, Consumer<IngestStats> progress)
+    {
+        if (current != null)
+        {
+            return CompletableFuture.failedFuture(new IllegalStateException("An ingest is already running"));
+        }
+        if (!Files.exists(source))
+        {
+            return CompletableFuture.failedFuture(new IOException("No such file or directory: " + source));
+        }
+
+        Run run = new Run(source, progress);
+        current = run;
+        run.result.whenComplete((s, ex) -> clearCurrent(run));
+        run.coordinator.execute(run::execute);
+        return run.result;
+    }
+
+    /** Stop feeding new pages; pages already in flight still finish and are checkpointed. */
+    public void cancel()
+    {
+        Run run = current;
+        if (run != null)
+        {
+            run.stats.markCancelled();
+        }
+    }
+
+    public boolean isRunning()
+    {
+        return current != null;
+    }
+
+    /** Cancel and tear down any active run. */
+    public void shutDown()
+    {
+        Run run = current;
+        if (run != null)
+        {
+            run.stats.markCancelled();
+            run.shutdownNow();
+        }
+    }
+
+    private synchronized void clearCurrent(Run run)
+    {
+        if (current == run)
+        {
+            current = null;
+        }
+    }
+
+    /** One source entry: a saved page file, or a line of an export. */
+    private static final class Entry
+    {
+        final String key;
+        final Path file;
+        final String exportLine;
+
+        Entry(String key, Path file, String exportLine)
+        {
+            this.key = key;
+            this.file = file;
+            this.exportLine = exportLine;
+        }
+    }
+
+    private static final class Pending
+    {
+        final String key;
+        final NpcDropData data;
+
+        Pending(String key, NpcDropData data)
+        {
+            this.key = key;
+            this.data = data;
+        }
+    }
+
+    private final class Run
+    {
+        final Path source;
+        final Consumer<IngestStats> progress;
+        final IngestStats stats = new IngestStats();
+        final CompletableFuture<IngestStats> result = new CompletableFuture<>();
+        final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        final BlockingQueue<Pending> resolveQueue = new LinkedBlockingQueue<>();
+        /** Item name → id, shared across batches; only touched by the resolver thread. */
+        final Map<String, Integer> itemIds = new HashMap<>();
+
+        final ExecutorService coordinator = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("dropingest").setDaemon(true).build());
+        final ExecutorService parsePool = Executors.newFixedThreadPool(PARSE_THREADS,
+                new ThreadFactoryBuilder().setNameFormat("dropingest-parse-%d").setDaemon(true).build());
+        final ExecutorService resolver = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("dropingest-resolve").setDaemon(true).build());
+        final ExecutorService writePool = Executors.newFixedThreadPool(WRITE_THREADS,
+                new ThreadFactoryBuilder().setNameFormat("dropingest-write-%d").setDaemon(true).build());
+
+        volatile boolean draining;
+        /** Set once the resolver thread has exited; later parses fail their pages themselves. */
+        volatile boolean resolverStopped;
+        /** Entries handed to the parse pool; coordinator thread only. */
+        int submitted;
+        volatile long lastReport = System.nanoTime();
+        private BufferedWriter checkpointOut;
+
+        Run(Path source, Consumer<IngestStats> progress)
+        {
+            this.source = source;
+            this.progress = progress;
+        }
+
+        void execute()
+        {
+            Path checkpoint = null;
+            try
+            {
+                checkpoint = checkpointFile();
+                Set<String> done = readCheckpoint(checkpoint);
+                Files.createDirectories(checkpoint.getParent());
+                checkpointOut = Files.newBufferedWriter(checkpoint, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                if (!done.isEmpty())
+                {
+                    log.info("Resuming drop ingest of {} ({} entries already done)", source, done.size());
+                }
+
+                resolver.execute(this::resolveLoop);
+                if (Files.isDirectory(source))
+                {
+                    feedDirectory(done);
+                }
+                else
+                {
+                    feedExport(done);
+                }
+
+                // Wait for every page in flight to be written or dropped
+                inFlight.acquire(MAX_IN_FLIGHT);
+                inFlight.release(MAX_IN_FLIGHT);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                stats.markCancelled();
+            }
+            catch (Exception e)
+            {
+                log.warn("Drop ingest of {} aborted", source, e);
+                finish(checkpoint, e);
+                return;
+            }
+            finish(checkpoint, null);
+        }
+
+        private void feedDirectory(Set<String> done) throws IOException, InterruptedException
+        {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(source))
+            {
+                files = walk.filter(Files::isRegularFile)
+                        .filter(p -> {
+                            String n = p.getFileName().toString().toLowerCase(Locale.ROOT);
+                            return n.endsWith(".html") || n.endsWith(".htm");
+                        })
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            stats.setTotal(files.size());
+
+            for (Path file : files)
+            {
+                String key = source.relativize(file).toString().replace('\\', '/');
+                if (!submit(new Entry(key, file, null), done))
+                {
+                    return;
+                }
+            }
+        }
+
+        private void feedExport(Set<String> done) throws IOException, InterruptedException
+        {
+            String base = source.getFileName().toString();
+            try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8))
+            {
+                String line;
+                int lineNo = 0;
+                while ((line = reader.readLine()) != null)
+                {
+                    lineNo++;
+                    if (line.trim().isEmpty())
+                    {
+                        continue;
+                    }
+                    if (!submit(new Entry(base + ":" + lineNo, null, line), done))
+                    {
+                        return;
+                    }
+                }
+            }
+            stats.setTotal(submitted + stats.getSkipped());
+        }
+
+        /** @return false once the run has been cancelled */
+        private boolean submit(Entry entry, Set<String> done) throws InterruptedException
+        {
+            if (stats.isCancelled())
+            {
+                return false;
+            }
+            if (done.contains(entry.key))
+            {
+                stats.skipped();
+                return true;
+            }
+            inFlight.acquire();
+            try
+            {
+                parsePool.execute(() -> parse(entry));
+                submitted++;
+            }
+            catch (RejectedExecutionException e)
+            {
+                inFlight.release();
+                return false;
+            }
+            return true;
+        }
+
+        private void parse(Entry entry)
+        {
+            long start = System.nanoTime();
+            NpcDropData data;
+            try
+            {
+                data = entry.file != null ? parseSavedPage(entry.file) : parseExportLine(entry.exportLine);
+            }
+            catch (Exception e)
+            {
+                log.debug("Could not parse ingest entry {}", entry.key, e);
+                stats.parseTime(System.nanoTime() - start);
+                stats.failed();
+                inFlight.release();
+                return;
+            }
+            stats.parseTime(System.nanoTime() - start);
+
+            if (data == null)
+            {
+                stats.empty();
+                complete(entry.key);
+                return;
+            }
+            resolveQueue.add(new Pending(entry.key, data));
+            if (resolverStopped)
+            {
+                failQueued();
+            }
+        }
+
+        /** Batch item-name lookups so the client thread sees a few short tasks rather than one per page. */
+        private void resolveLoop()
+        {
+            try
+            {
+                while (!draining || !resolveQueue.isEmpty())
+                {
+                    Pending first = resolveQueue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null)
+                    {
+                        continue;
+                    }
+                    List<Pending> batch = new ArrayList<>(RESOLVE_BATCH);
+                    batch.add(first);
+                    resolveQueue.drainTo(batch, RESOLVE_BATCH - 1);
+                    resolveBatch(batch);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            catch (RuntimeException e)
+            {
+                log.warn("Drop ingest resolver stopped", e);
+            }
+            finally
+            {
+                // Nobody is left to resolve these; free their permits so the coordinator can finish
+                resolverStopped = true;
+                failQueued();
+            }
+        }
+
+        private void failQueued()
+        {
+            Pending p;
+            while ((p = resolveQueue.poll()) != null)
+            {
+                stats.failed();
+                inFlight.release();
+            }
+        }
+
+        private void fail(List<Pending> batch)
+        {
+            for (Pending p : batch)
+            {
+                stats.failed();
+                inFlight.release();
+            }
+        }
+
+        private void resolveBatch(List<Pending> batch) throws InterruptedException
+        {
+            long start = System.nanoTime();
+            Set<String> unknown = new LinkedHashSet<>();
+            for (Pending p : batch)
+            {
+                for (DropTableSection sec : p.data.getDropTableSections())
+                {
+                    for (DropItem item : sec.getItems())
+                    {
+                        if (!itemIds.containsKey(item.getName()))
+                        {
+                            unknown.add(item.getName());
+                        }
+                    }
+                }
+            }
+
+            try
+            {
+                List<String> names = new ArrayList<>(unknown);
+                for (int from = 0; from < names.size(); from += RESOLVE_CHUNK)
+                {
+                    List<String> chunk = names.subList(from, Math.min(names.size(), from + RESOLVE_CHUNK));
+                    int[] ids = resolveOnClientThread(chunk);
+                    for (int i = 0; i < ids.length; i++)
+                    {
+                        itemIds.put(chunk.get(i), ids[i]);
+                    }
+                }
+            }
+            catch (ExecutionException | TimeoutException | RuntimeException e)
+            {
+                // RuntimeException covers CancellationException, e.g. the task scheduler shutting down
+                log.warn("Item id resolution failed for {} ingested pages", batch.size(), e);
+                fail(batch);
+                return;
+            }
+            catch (InterruptedException e)
+            {
+                fail(batch);
+                throw e;
+            }
+
+            for (Pending p : batch)
+            {
+                for (DropTableSection sec : p.data.getDropTableSections())
+                {
+                    for (DropItem item : sec.getItems())
+                    {
+                        item.setItemId(itemIds.getOrDefault(item.getName(), 0));
+                    }
+                }
+            }
+            stats.resolveTime(System.nanoTime() - start);
+
+            for (Pending p : batch)
+            {
+                try
+                {
+                    writePool.execute(() -> write(p));
+                }
+                catch (RejectedExecutionException e)
+                {
+                    inFlight.release();
+                }
+            }
+        }
+
+        private int[] resolveOnClientThread(List<String> names)
+                throws InterruptedException, ExecutionException, TimeoutException
+        {
+            final int[] out = new int[names.size()];
+            final int[] next = {0};
+            ClientTaskScheduler.Handle job = taskScheduler.submit("Ingest item resolution", progress ->
+            {
+                if (next[0] < out.length)
+                {
+                    out[next[0]] = dropFetcher.resolveItemId(names.get(next[0]));
+                    next[0]++;
+                }
+                progress.update(next[0], out.length);
+                return next[0] >= out.length;
+            });
+            try
+            {
+                job.getCompletion().get(RESOLVE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            catch (TimeoutException | InterruptedException e)
+            {
+                job.cancel();
+                throw e;
+            }
+            return out;
+        }
+
+        private void write(Pending p)
+        {
+            long start = System.nanoTime();
+            try
+            {
+                dropCache.store(p.data);
+                stats.writeTime(System.nanoTime() - start);
+                stats.written();
+                complete(p.key);
+            }
+            catch (Exception e)
+            {
+                log.debug("Could not write ingested drops for {}", p.data.getName(), e);
+                stats.failed();
+                inFlight.release();
+            }
+        }
+
+        /** Record a finished entry in the checkpoint and free its slot. */
+        private void complete(String key)
+        {
+            try
+            {
+                synchronized (this)
+                {
+                    checkpointOut.write(key);
+                    checkpointOut.newLine();
+                    checkpointOut.flush();
+                }
+            }
+            catch (IOException e)
+            {
+                log.debug("Could not update ingest checkpoint", e);
+            }
+            finally
+            {
+                inFlight.release();
+            }
+            maybeReport();
+        }
+
+        private void maybeReport()
+        {
+            long now = System.nanoTime();
+            long last = lastReport;
+            if (now - last < PROGRESS_INTERVAL_NANOS)
+            {
+                return;
+            }
+            synchronized (this)
+            {
+                if (lastReport != last)
+                {
+                    return;
+                }
+                lastReport = now;
+            }
+            report();
+        }
+
+        private void report()
+        {
+            log.info("Drop ingest: {}", stats.summary());
+            if (progress != null)
+            {
+                try
+                {
+                    progress.accept(stats);
+                }
+                catch (Exception e)
+                {
+                    log.debug("Ingest progress listener failed", e);
+                }
+            }
+        }
+
+        private void finish(Path checkpoint, Exception error)
+        {
+            draining = true;
+            stats.markFinished();
+            // Runs on the coordinator, so leave that one to exit rather than interrupting ourselves
+            parsePool.shutdownNow();
+            resolver.shutdownNow();
+            writePool.shutdownNow();
+            coordinator.shutdown();
+            synchronized (this)
+            {
+                if (checkpointOut != null)
+                {
+                    try { checkpointOut.close(); } catch (IOException ignored) {}
+                }
+            }
+
+            if (error == null && checkpoint != null && !stats.isCancelled() && stats.getFailed() == 0)
+            {
+                try
+                {
+                    Files.deleteIfExists(checkpoint);
+                }
+                catch (IOException e)
+                {
+                    log.debug("Could not remove ingest checkpoint {}", checkpoint, e);
+                }
+            }
+
+            report();
+            if (error != null)
+            {
+                result.completeExceptionally(error);
+            }
+            else
+            {
+                result.complete(stats);
+            }
+        }
+
+        void shutdownNow()
+        {
+            draining = true;
+            parsePool.shutdownNow();
+            resolver.shutdownNow();
+            writePool.shutdownNow();
+            coordinator.shutdownNow();
+        }
+
+        private Path checkpointFile() throws IOException
+        {
+            String id = Integer.toHexString(source.toAbsolutePath().normalize().toString().hashCode());
+            return dropCache.getCacheDir().resolveSibling("ingest").resolve(id + ".done");
+        }
+    }
+
+    private static Set<String> readCheckpoint(Path checkpoint) throws IOException
+    {
+        if (!Files.exists(checkpoint))
+        {
+            return Collections.emptySet();
+        }
+        try (Stream<String> lines = Files.lines(checkpoint, StandardCharsets.UTF_8))
+        {
+            return lines.filter(l -> !l.isEmpty()).collect(Collectors.toSet());
+        }
+    }
+
+    private NpcDropData parseSavedPage(Path file) throws IOException
+    {
+        String html = Files.readString(file, StandardCharsets.UTF_8);
+        ParsedDropPage page = pageParser.parse(html);
+        if (page.getSections().isEmpty())
+        {
+            return null;
+        }
+
+        String name = page.getTitle();
+        if (name == null || name.trim().isEmpty())
+        {
+            String fn = file.getFileName().toString();
+            name = fn.substring(0, fn.lastIndexOf('.')).replace('_', ' ');
+        }
+        return new NpcDropData(0, name.trim(), page.getCombatLevel(), page.getSections());
+    }
+
+    /**
+     * One {@code action=parse} response. Accepts both formatversion 1
+     * ({@code "text": {"*": html}}) and 2 ({@code "text": html}).
+     */
+    private NpcDropData parseExportLine(String line)
+    {
+        JsonObject parse = new JsonParser().parse(line).getAsJsonObject().getAsJsonObject("parse");
+        JsonElement text = parse.get("text");
+        String html = text.isJsonObject() ? text.getAsJsonObject().get("*").getAsString() : text.getAsString();
+
+        ParsedDropPage page = pageParser.parse(html);
+        if (page.getSections().isEmpty())
+        {
+            return null;
+        }
+
+        String name = parse.has("title") ? parse.get("title").getAsString() : page.getTitle();
+        if (name == null || name.trim().isEmpty())
+        {
+            return null;
+        }
+        return new NpcDropData(0, name.trim(), page.getCombatLevel(), page.getSections());
+    }
+}
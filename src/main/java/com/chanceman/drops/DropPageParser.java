@@ -0,0 +1,9 @@
+package com.chanceman.drops;
+
+/**
+ * Extracts drop tables and NPC metadata from a wiki page's HTML.
+ */
+public interface DropPageParser
+{
+    ParsedDropPage parse(String html);
+}
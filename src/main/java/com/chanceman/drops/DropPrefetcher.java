@@ -0,0 +1,225 @@
+package com.chanceman.drops;
+
+import com.chanceman.ChanceManConfig;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.NPC;
+import net.runelite.api.NPCComposition;
+import net.runelite.api.Player;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.client.eventbus.Subscribe;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opt-in background prefetcher for drop tables of attackable NPCs near the
+ * player. At most one fetch is started per game tick, on the low-priority
+ * scheduler lane, within the configured per-minute and in-flight budget.
+ * NPCs sharing a name and combat level share a drop table and are only
+ * fetched once.
+ */
+@Slf4j
+@Singleton
+public class DropPrefetcher
+{
+    private static final int PREFETCH_RADIUS = 15;
+    private static final long BUDGET_WINDOW_MS = 60_000L;
+
+    private final Client client;
+    private final ChanceManConfig config;
+    private final DropCache dropCache;
+
+    private final Set<NPC> candidates = new HashSet<>();
+    private final Set<String> attempted = ConcurrentHashMap.newKeySet();
+    private final Deque<Long> recentStarts = new ArrayDeque<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /** Spawn events only cover NPCs that appear later; the ones already around are picked up once. */
+    private boolean seeded;
+
+    @Inject
+    public DropPrefetcher(Client client, ChanceManConfig config, DropCache dropCache)
+    {
+        this.client = client;
+        this.config = config;
+        this.dropCache = dropCache;
+    }
+
+    /** Forget what has been prefetched, e.g. after the drop cache was cleared. */
+    public void reset()
+    {
+        attempted.clear();
+        recentStarts.clear();
+    }
+
+    public void shutDown()
+    {
+        candidates.clear();
+        seeded = false;
+        reset();
+    }
+
+    @Subscribe
+    public void onNpcSpawned(NpcSpawned event)
+    {
+        NPC npc = event.getNpc();
+        if (isAttackable(npc))
+        {
+            candidates.add(npc);
+        }
+    }
+
+    @Subscribe
+    public void onNpcDespawned(NpcDespawned event)
+    {
+        candidates.remove(event.getNpc());
+    }
+
+    @Subscribe
+    public void onGameTick(GameTick event)
+    {
+        if (!config.prefetchSceneDrops() || client.getGameState() != GameState.LOGGED_IN)
+        {
+            return;
+        }
+        if (!seeded)
+        {
+            seedFromScene();
+        }
+        if (candidates.isEmpty() || inFlight.get() >= config.prefetchConcurrency())
+        {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        while (!recentStarts.isEmpty() && now - recentStarts.peekFirst() >= BUDGET_WINDOW_MS)
+        {
+            recentStarts.pollFirst();
+        }
+        if (recentStarts.size() >= config.prefetchPerMinute())
+        {
+            return;
+        }
+
+        NPC target = pickNearestUncached();
+        if (target == null)
+        {
+            return;
+        }
+
+        final int id = target.getId();
+        final String name = target.getName();
+        final int level = target.getCombatLevel();
+        final String key = identity(name, level);
+
+        attempted.add(key);
+        recentStarts.addLast(now);
+        inFlight.incrementAndGet();
+        dropCache.lookup(id, name, level, FetchPriority.PREFETCH)
+                .whenComplete((data, ex) ->
+                {
+                    inFlight.decrementAndGet();
+                    if (ex != null && isTransient(ex))
+                    {
+                        // Network trouble, refused by the breaker or cancelled: let a later tick try again
+                        attempted.remove(key);
+                    }
+                    log.debug("Prefetched drops for {} (lvl {}): {}", name, level,
+                            ex != null ? ex.toString() : data != null ? "ok" : "none");
+                });
+    }
+
+    /** No drops and definite wiki answers such as a 404 stay attempted; anything else may succeed later. */
+    private static boolean isTransient(Throwable ex)
+    {
+        Throwable cause = FetchScheduler.unwrap(ex);
+        return cause instanceof CancellationException
+                || FetchScheduler.isInterrupt(cause)
+                || FetchScheduler.isRetryable(cause);
+    }
+
+    private void seedFromScene()
+    {
+        seeded = true;
+        for (NPC npc : client.getTopLevelWorldView().npcs())
+        {
+            if (isAttackable(npc))
+            {
+                candidates.add(npc);
+            }
+        }
+    }
+
+    private NPC pickNearestUncached()
+    {
+        Player local = client.getLocalPlayer();
+        if (local == null)
+        {
+            return null;
+        }
+        WorldPoint here = local.getWorldLocation();
+
+        NPC best = null;
+        int bestDist = Integer.MAX_VALUE;
+        for (NPC npc : candidates)
+        {
+            String name = npc.getName();
+            int level = npc.getCombatLevel();
+            if (name == null || attempted.contains(identity(name, level)) || dropCache.isCached(name, level))
+            {
+                continue;
+            }
+
+            WorldPoint loc = npc.getWorldLocation();
+            if (loc == null || loc.getPlane() != here.getPlane())
+            {
+                continue;
+            }
+            int dist = loc.distanceTo2D(here);
+            if (dist <= PREFETCH_RADIUS && dist < bestDist)
+            {
+                best = npc;
+                bestDist = dist;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isAttackable(NPC npc)
+    {
+        if (npc == null || npc.getCombatLevel() <= 0)
+        {
+            return false;
+        }
+        NPCComposition comp = npc.getTransformedComposition();
+        if (comp == null)
+        {
+            comp = npc.getComposition();
+        }
+        if (comp == null || comp.getActions() == null)
+        {
+            return false;
+        }
+        for (String action : comp.getActions())
+        {
+            if ("Attack".equals(action))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String identity(String name, int level)
+    {
+        return name.toLowerCase(Locale.ROOT) + "#" + level;
+    }
+}
@@ -0,0 +1,27 @@
+package com.chanceman.drops;
+
+/**
+ * Scheduling lanes for wiki fetches, highest priority first. Only the most
+ * recent request in a superseding lane is kept; older queued ones are cancelled.
+ */
+public enum FetchPriority
+{
+    /** User clicked "Show Drops"; only the latest click matters. */
+    INTERACTIVE(true),
+    /** Lookups issued by the drops search dialog. */
+    SEARCH(false),
+    /** Speculative prefetches and background refreshes. */
+    PREFETCH(false);
+
+    private final boolean superseding;
+
+    FetchPriority(boolean superseding)
+    {
+        this.superseding = superseding;
+    }
+
+    public boolean isSuperseding()
+    {
+        return superseding;
+    }
+}
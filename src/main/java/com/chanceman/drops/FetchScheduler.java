@@ -0,0 +1,460 @@
+package com.chanceman.drops;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs wiki fetches on a small worker pool in priority order
+ * (interactive &gt; search &gt; prefetch). Outgoing requests are throttled by a
+ * token bucket, transient HTTP failures are retried with exponential backoff,
+ * and repeated failures open a circuit breaker that fails requests fast until
+ * a cool-down has passed.
+ */
+@Slf4j
+@Singleton
+public class FetchScheduler
+{
+    private static final int WORKERS = 4;
+    private static final double PERMITS_PER_SECOND = 4.0;
+    private static final int BURST = 8;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BASE_BACKOFF_MS = 500L;
+    private static final long MAX_BACKOFF_MS = 30_000L;
+    private static final int BREAKER_THRESHOLD = 5;
+    private static final long BREAKER_COOLDOWN_MS = 60_000L;
+
+    private final PriorityBlockingQueue<Task<?>> queue = new PriorityBlockingQueue<>();
+    private final Map<FetchPriority, Task<?>> latestByLane = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final TokenBucket bucket = new TokenBucket(PERMITS_PER_SECOND, BURST);
+    private final CircuitBreaker breaker = new CircuitBreaker(BREAKER_THRESHOLD, BREAKER_COOLDOWN_MS, System::currentTimeMillis);
+    private final Map<FetchPriority, LaneStats> stats = new EnumMap<>(FetchPriority.class);
+
+    private volatile ExecutorService workers;
+    private volatile ScheduledExecutorService retryTimer;
+
+    public FetchScheduler()
+    {
+        for (FetchPriority p : FetchPriority.values())
+        {
+            stats.put(p, new LaneStats());
+        }
+    }
+
+    /** Start the worker pool if it is missing or has been shut down. */
+    public synchronized void startUp()
+    {
+        if (workers != null && !workers.isShutdown())
+        {
+            return;
+        }
+        workers = Executors.newFixedThreadPool(
+                WORKERS,
+                new ThreadFactoryBuilder().setNameFormat("dropfetch-%d").setDaemon(true).build()
+        );
+        retryTimer = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("dropfetch-retry").setDaemon(true).build()
+        );
+        for (int i = 0; i < WORKERS; i++)
+        {
+            workers.submit(this::workerLoop);
+        }
+    }
+
+    /** Stop workers and cancel everything still queued. */
+    public synchronized void shutdown()
+    {
+        if (workers != null)
+        {
+            workers.shutdownNow();
+            workers = null;
+        }
+        if (retryTimer != null)
+        {
+            retryTimer.shutdownNow();
+            retryTimer = null;
+        }
+        List<Task<?>> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        for (Task<?> t : pending)
+        {
+            t.future.cancel(false);
+        }
+        latestByLane.clear();
+    }
+
+    /**
+     * Queue work on the given lane. Cancelling the returned future removes the
+     * task from the queue; a task that is already running completes but its
+     * result is discarded.
+     */
+    public <T> CompletableFuture<T> submit(FetchPriority priority, Callable<T> work)
+    {
+        Task<T> task = new Task<>(priority, sequence.incrementAndGet(), work);
+        task.future.whenComplete((r, ex) ->
+        {
+            if (task.future.isCancelled())
+            {
+                queue.remove(task);
+            }
+            latestByLane.remove(priority, task);
+        });
+
+        if (priority.isSuperseding())
+        {
+            Task<?> previous = latestByLane.put(priority, task);
+            if (previous != null)
+            {
+                previous.future.cancel(false);
+            }
+        }
+
+        if (workers == null)
+        {
+            task.future.completeExceptionally(new IllegalStateException("Fetch scheduler is not running"));
+            return task.future;
+        }
+        queue.offer(task);
+        return task.future;
+    }
+
+    /**
+     * Block until the rate limiter grants a request to the wiki. Every
+     * outgoing HTTP call should take one permit.
+     */
+    public void acquirePermit() throws InterruptedException
+    {
+        bucket.acquire();
+    }
+
+    /** @return tasks currently waiting in the given lane */
+    public int getQueueDepth(FetchPriority priority)
+    {
+        int n = 0;
+        for (Task<?> t : queue)
+        {
+            if (t.priority == priority)
+            {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /** @return mean submit-to-completion latency for the lane, in ms */
+    public long getAverageLatencyMs(FetchPriority priority)
+    {
+        return stats.get(priority).averageMs();
+    }
+
+    /** @return worst observed submit-to-completion latency for the lane, in ms */
+    public long getMaxLatencyMs(FetchPriority priority)
+    {
+        return stats.get(priority).maxNanos.get() / 1_000_000L;
+    }
+
+    public boolean isCircuitOpen()
+    {
+        return breaker.isOpen();
+    }
+
+    private void workerLoop()
+    {
+        while (!Thread.currentThread().isInterrupted())
+        {
+            Task<?> task;
+            try
+            {
+                task = queue.take();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            run(task);
+        }
+    }
+
+    private <T> void run(Task<T> task)
+    {
+        if (task.future.isDone())
+        {
+            return;
+        }
+        if (!breaker.allowRequest())
+        {
+            finish(task, null, new IOException("Wiki requests paused after repeated failures"));
+            return;
+        }
+
+        task.attempts++;
+        try
+        {
+            T result = task.work.call();
+            breaker.recordSuccess();
+            finish(task, result, null);
+        }
+        catch (Throwable t)
+        {
+            Throwable cause = unwrap(t);
+            if (isInterrupt(cause))
+            {
+                if (cause instanceof InterruptedException)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                breaker.releaseProbe();
+                finish(task, null, cause);
+                return;
+            }
+            if (!isRetryable(cause))
+            {
+                if (cause instanceof WikiHttpException)
+                {
+                    breaker.recordSuccess(); // the wiki answered, just not with a page
+                }
+                else
+                {
+                    breaker.releaseProbe();
+                }
+                finish(task, null, cause);
+                return;
+            }
+
+            breaker.recordFailure();
+            ScheduledExecutorService timer = retryTimer;
+            if (task.attempts >= MAX_ATTEMPTS || timer == null || task.future.isDone())
+            {
+                finish(task, null, cause);
+                return;
+            }
+
+            long delay = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << (task.attempts - 1));
+            delay += ThreadLocalRandom.current().nextLong(delay / 4 + 1);
+            log.debug("Retrying {} fetch in {} ms after: {}", task.priority, delay, cause.toString());
+            try
+            {
+                timer.schedule(() ->
+                {
+                    if (!task.future.isDone())
+                    {
+                        queue.offer(task);
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+            catch (RejectedExecutionException ex)
+            {
+                finish(task, null, cause);
+            }
+        }
+    }
+
+    private <T> void finish(Task<T> task, T result, Throwable error)
+    {
+        stats.get(task.priority).record(System.nanoTime() - task.submittedNanos);
+        if (error == null)
+        {
+            task.future.complete(result);
+        }
+        else
+        {
+            task.future.completeExceptionally(error);
+        }
+    }
+
+    static Throwable unwrap(Throwable t)
+    {
+        Throwable cur = t;
+        while ((cur instanceof CompletionException || cur instanceof ExecutionException
+                || cur instanceof UncheckedIOException) && cur.getCause() != null)
+        {
+            cur = cur.getCause();
+        }
+        return cur;
+    }
+
+    /** The thread was interrupted, e.g. by shutdown; says nothing about the wiki. Socket timeouts do not count. */
+    static boolean isInterrupt(Throwable t)
+    {
+        return t instanceof InterruptedException
+                || (t instanceof InterruptedIOException && !(t instanceof SocketTimeoutException));
+    }
+
+    static boolean isRetryable(Throwable t)
+    {
+        if (isInterrupt(t))
+        {
+            return false;
+        }
+        if (t instanceof WikiHttpException)
+        {
+            return ((WikiHttpException) t).isRetryable();
+        }
+        return t instanceof IOException;
+    }
+
+    private static final class Task<T> implements Comparable<Task<?>>
+    {
+        final FetchPriority priority;
+        final long seq;
+        final Callable<T> work;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final long submittedNanos = System.nanoTime();
+        int attempts;
+
+        Task(FetchPriority priority, long seq, Callable<T> work)
+        {
+            this.priority = priority;
+            this.seq = seq;
+            this.work = work;
+        }
+
+        @Override
+        public int compareTo(Task<?> o)
+        {
+            int c = Integer.compare(priority.ordinal(), o.priority.ordinal());
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+
+    private static final class LaneStats
+    {
+        final LongAdder completed = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos)
+        {
+            completed.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        long averageMs()
+        {
+            long n = completed.sum();
+            return n == 0 ? 0L : totalNanos.sum() / n / 1_000_000L;
+        }
+    }
+
+    /** Classic token bucket; callers block until a permit is available. */
+    private static final class TokenBucket
+    {
+        private final double permitsPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        TokenBucket(double permitsPerSecond, int capacity)
+        {
+            this.permitsPerNano = permitsPerSecond / 1_000_000_000d;
+            this.capacity = capacity;
+            this.tokens = capacity;
+        }
+
+        void acquire() throws InterruptedException
+        {
+            while (true)
+            {
+                long waitNanos;
+                synchronized (this)
+                {
+                    long now = System.nanoTime();
+                    tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+                    lastRefill = now;
+                    if (tokens >= 1d)
+                    {
+                        tokens -= 1d;
+                        return;
+                    }
+                    waitNanos = (long) ((1d - tokens) / permitsPerNano);
+                }
+                TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1_000_000L));
+            }
+        }
+    }
+
+    /**
+     * Opens after {@code threshold} consecutive failures. Once the cool-down
+     * elapses a single probe request is let through; success closes the
+     * breaker, failure re-opens it, and a probe that ends without an answer
+     * either way lets the next request probe instead.
+     */
+    static final class CircuitBreaker
+    {
+        private final int threshold;
+        private final long cooldownMs;
+        private final LongSupplier clockMs;
+
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean probing;
+
+        CircuitBreaker(int threshold, long cooldownMs, LongSupplier clockMs)
+        {
+            this.threshold = threshold;
+            this.cooldownMs = cooldownMs;
+            this.clockMs = clockMs;
+        }
+
+        synchronized boolean allowRequest()
+        {
+            if (consecutiveFailures < threshold)
+            {
+                return true;
+            }
+            if (!probing && clockMs.getAsLong() - openedAt >= cooldownMs)
+            {
+                probing = true;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void recordSuccess()
+        {
+            consecutiveFailures = 0;
+            probing = false;
+        }
+
+        synchronized void recordFailure()
+        {
+            consecutiveFailures++;
+            if (consecutiveFailures >= threshold)
+            {
+                if (consecutiveFailures == threshold || probing)
+                {
+                    log.warn("Wiki fetches failing repeatedly; pausing for {} s", cooldownMs / 1000);
+                }
+                openedAt = clockMs.getAsLong();
+                probing = false;
+            }
+        }
+
+        /** The request ended without telling us anything about the wiki, e.g. it was interrupted. */
+        synchronized void releaseProbe()
+        {
+            probing = false;
+        }
+
+        synchronized boolean isOpen()
+        {
+            return consecutiveFailures >= threshold;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.chanceman.drops;
+
+import org.jsoup.Jsoup;
+import org.jsoup.parser.Parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Single forward pass over raw page HTML that cuts out only the regions the
+ * drop parser needs: {@code table.item-drops} tables (with the text of their
+ * nearest preceding sibling heading), the first infobox table and the page
+ * title. Nothing else is materialized.
+ *
+ * <p>Sibling relationships are recovered from a stack of open elements, which
+ * relies on the balanced markup MediaWiki emits. Script, style and comment
+ * bodies are skipped without inspection.</p>
+ */
+final class HtmlRegionScanner
+{
+    private static final Set<String> VOID_TAGS = Set.of(
+            "area", "base", "br", "col", "embed", "hr", "img", "input",
+            "link", "meta", "param", "source", "track", "wbr"
+    );
+    private static final Set<String> RAW_TEXT_TAGS = Set.of("script", "style", "textarea", "title");
+    private static final Pattern ATTR = Pattern.compile(
+            "([^\\s=/>]+)\\s*(?:=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s>]+)))?");
+
+    static final class TableRegion
+    {
+        /** Nearest preceding sibling heading text, or null if none. */
+        final String header;
+        final String html;
+
+        TableRegion(String header, String html)
+        {
+            this.header = header;
+            this.html = html;
+        }
+    }
+
+    static final class Result
+    {
+        String title;
+        String infoboxHtml;
+        final List<TableRegion> dropTables = new ArrayList<>();
+    }
+
+    private static final class Frame
+    {
+        final String tag;
+        final boolean mwHeading;
+        /** Text of the last heading-like child seen so far. */
+        String lastHeading;
+        /** For mw-heading wrappers: text of the first h2-h4 inside. */
+        String innerHeading;
+
+        Frame(String tag, boolean mwHeading)
+        {
+            this.tag = tag;
+            this.mwHeading = mwHeading;
+        }
+    }
+
+    private HtmlRegionScanner() {}
+
+    static Result scan(String html)
+    {
+        Result out = new Result();
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(new Frame("#root", false));
+
+        final int n = html.length();
+        int i = 0;
+        while (i < n)
+        {
+            int lt = html.indexOf('<', i);
+            if (lt < 0 || lt + 1 >= n)
+            {
+                break;
+            }
+            char c = html.charAt(lt + 1);
+
+            if (html.startsWith("<!--", lt))
+            {
+                int end = html.indexOf("-->", lt + 4);
+                i = end < 0 ? n : end + 3;
+                continue;
+            }
+            if (c == '!' || c == '?')
+            {
+                int end = html.indexOf('>', lt);
+                i = end < 0 ? n : end + 1;
+                continue;
+            }
+            if (c == '/')
+            {
+                int end = html.indexOf('>', lt);
+                if (end < 0)
+                {
+                    break;
+                }
+                close(stack, tagName(html, lt + 2, end));
+                i = end + 1;
+                continue;
+            }
+            if (!Character.isLetter(c))
+            {
+                i = lt + 1;
+                continue;
+            }
+
+            int end = findTagEnd(html, lt);
+            if (end < 0)
+            {
+                break;
+            }
+            String tag = tagName(html, lt + 1, end);
+            String attrs = html.substring(lt + 1 + tag.length(), end);
+            boolean selfClosing = html.charAt(end - 1) == '/';
+            i = end + 1;
+
+            if (RAW_TEXT_TAGS.contains(tag))
+            {
+                i = skipPast(html, closingTagEnd(html, tag, i));
+                continue;
+            }
+
+            switch (tag)
+            {
+                case "h1":
+                {
+                    int closeEnd = skipPast(html, closingTagEnd(html, tag, i));
+                    if (out.title == null && "firstHeading".equals(attr(attrs, "id")))
+                    {
+                        out.title = textOf(html.substring(lt, closeEnd));
+                    }
+                    i = closeEnd;
+                    continue;
+                }
+                case "h2":
+                case "h3":
+                case "h4":
+                {
+                    int closeEnd = skipPast(html, closingTagEnd(html, tag, i));
+                    String text = textOf(html.substring(lt, closeEnd));
+                    stack.peek().lastHeading = text;
+                    for (Frame f : stack)
+                    {
+                        if (f.mwHeading && f.innerHeading == null)
+                        {
+                            f.innerHeading = text;
+                        }
+                    }
+                    i = closeEnd;
+                    continue;
+                }
+                case "table":
+                {
+                    String cls = attrs.contains("item-drops") || attrs.contains("infobox") ? attr(attrs, "class") : null;
+                    boolean drops = hasClass(cls, "item-drops");
+                    boolean infobox = out.infoboxHtml == null && hasClass(cls, "infobox");
+                    if (drops || infobox)
+                    {
+                        int closeEnd = matchingTableEnd(html, i);
+                        String region = html.substring(lt, closeEnd);
+                        if (drops)
+                        {
+                            out.dropTables.add(new TableRegion(stack.peek().lastHeading, region));
+                        }
+                        else
+                        {
+                            out.infoboxHtml = region;
+                        }
+                        i = closeEnd;
+                        continue;
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+
+            if (!selfClosing && !VOID_TAGS.contains(tag))
+            {
+                boolean mwHeading = attrs.contains("mw-heading") && hasClass(attr(attrs, "class"), "mw-heading");
+                stack.push(new Frame(tag, mwHeading));
+            }
+        }
+        return out;
+    }
+
+    /** Pop up to and including the nearest open {@code tag}; stray close tags are ignored. */
+    private static void close(Deque<Frame> stack, String tag)
+    {
+        boolean open = false;
+        for (Frame f : stack)
+        {
+            if (f.tag.equals(tag))
+            {
+                open = true;
+                break;
+            }
+        }
+        if (!open)
+        {
+            return;
+        }
+        while (stack.size() > 1)
+        {
+            Frame f = stack.pop();
+            if (f.mwHeading && f.innerHeading != null)
+            {
+                stack.peek().lastHeading = f.innerHeading;
+            }
+            if (f.tag.equals(tag))
+            {
+                return;
+            }
+        }
+    }
+
+    private static String tagName(String html, int from, int limit)
+    {
+        int j = from;
+        while (j < limit)
+        {
+            char ch = html.charAt(j);
+            if (Character.isWhitespace(ch) || ch == '/' || ch == '>')
+            {
+                break;
+            }
+            j++;
+        }
+        return html.substring(from, j).toLowerCase(Locale.ROOT);
+    }
+
+    /** Index of the {@code >} closing the tag opened at {@code lt}, honouring quoted attributes. */
+    private static int findTagEnd(String html, int lt)
+    {
+        char quote = 0;
+        for (int j = lt + 1; j < html.length(); j++)
+        {
+            char ch = html.charAt(j);
+            if (quote != 0)
+            {
+                if (ch == quote) quote = 0;
+            }
+            else if (ch == '"' || ch == '\'')
+            {
+                quote = ch;
+            }
+            else if (ch == '>')
+            {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    /** Index of the {@code >} of the next {@code </tag>} at or after {@code from}, or -1. */
+    private static int closingTagEnd(String html, String tag, int from)
+    {
+        int j = from;
+        while (true)
+        {
+            int lt = html.indexOf("</", j);
+            if (lt < 0)
+            {
+                return -1;
+            }
+            if (html.regionMatches(true, lt + 2, tag, 0, tag.length()))
+            {
+                return html.indexOf('>', lt);
+            }
+            j = lt + 2;
+        }
+    }
+
+    private static int skipPast(String html, int gt)
+    {
+        return gt < 0 ? html.length() : gt + 1;
+    }
+
+    /** End (exclusive) of the table whose start tag ended just before {@code from}. */
+    private static int matchingTableEnd(String html, int from)
+    {
+        int depth = 1;
+        int j = from;
+        while (depth > 0)
+        {
+            int lt = html.indexOf('<', j);
+            if (lt < 0)
+            {
+                return html.length();
+            }
+            if (html.regionMatches(true, lt + 1, "table", 0, 5))
+            {
+                depth++;
+            }
+            else if (html.regionMatches(true, lt + 1, "/table", 0, 6))
+            {
+                depth--;
+            }
+            j = lt + 1;
+            if (depth == 0)
+            {
+                return skipPast(html, html.indexOf('>', lt));
+            }
+        }
+        return j;
+    }
+
+    /** Decoded value of the named attribute, or null. */
+    static String attr(String attrs, String name)
+    {
+        Matcher m = ATTR.matcher(attrs);
+        while (m.find())
+        {
+            if (!m.group(1).equalsIgnoreCase(name))
+            {
+                continue;
+            }
+            String v = m.group(2) != null ? m.group(2) : m.group(3) != null ? m.group(3) : m.group(4);
+            return v == null ? "" : Parser.unescapeEntities(v, true);
+        }
+        return null;
+    }
+
+    static boolean hasClass(String classAttr, String cls)
+    {
+        if (classAttr == null)
+        {
+            return false;
+        }
+        for (String token : classAttr.trim().split("\\s+"))
+        {
+            if (token.equalsIgnoreCase(cls))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Normalized text of a small element fragment, as {@code Element.text()} would return it. */
+    private static String textOf(String fragment)
+    {
+        return Jsoup.parseBodyFragment(fragment).body().text();
+    }
+}
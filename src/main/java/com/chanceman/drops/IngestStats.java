@@ -0,0 +1,91 @@
+package com.chanceman.drops;
+
+import lombok.Getter;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters for a {@link DropIngestPipeline} run. Stage timings are summed
+ * across worker threads, so per-page figures are CPU time rather than wall time.
+ */
+public class IngestStats
+{
+    /** Entries found in the source, or -1 while still streaming an export. */
+    @Getter
+    private volatile int total = -1;
+    @Getter
+    private volatile boolean cancelled;
+
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger empty = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder resolveNanos = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+
+    void setTotal(int total) { this.total = total; }
+    void markCancelled() { cancelled = true; }
+    void markFinished() { endNanos = System.nanoTime(); }
+
+    void skipped() { skipped.incrementAndGet(); }
+    void written() { written.incrementAndGet(); }
+    void empty() { empty.incrementAndGet(); }
+    void failed() { failed.incrementAndGet(); }
+    void parseTime(long nanos) { parseNanos.add(nanos); }
+    void resolveTime(long nanos) { resolveNanos.add(nanos); }
+    void writeTime(long nanos) { writeNanos.add(nanos); }
+
+    /** Already ingested by an earlier, interrupted run. */
+    public int getSkipped() { return skipped.get(); }
+    public int getWritten() { return written.get(); }
+    /** Pages that parsed but had no drop tables. */
+    public int getEmpty() { return empty.get(); }
+    public int getFailed() { return failed.get(); }
+
+    /** Pages processed this run, whatever the outcome. */
+    public int getProcessed()
+    {
+        return written.get() + empty.get() + failed.get();
+    }
+
+    public boolean isFinished()
+    {
+        return endNanos != 0;
+    }
+
+    public double getElapsedSeconds()
+    {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1e9;
+    }
+
+    public double getPagesPerSecond()
+    {
+        double secs = getElapsedSeconds();
+        return secs > 0 ? getProcessed() / secs : 0;
+    }
+
+    /** One-line summary suitable for chat or the log. */
+    public String summary()
+    {
+        int processed = getProcessed();
+        String of = total >= 0 ? "/" + (total - skipped.get()) : "";
+        return String.format(Locale.ROOT,
+                "%d%s pages (%d cached, %d without drops, %d failed, %d resumed) in %.1fs, %.1f pages/s; "
+                        + "per page: parse %.2fms, resolve %.2fms, write %.2fms",
+                processed, of, written.get(), empty.get(), failed.get(), skipped.get(),
+                getElapsedSeconds(), getPagesPerSecond(),
+                perPage(parseNanos, processed), perPage(resolveNanos, written.get()),
+                perPage(writeNanos, written.get()));
+    }
+
+    private static double perPage(LongAdder nanos, int pages)
+    {
+        return pages > 0 ? nanos.sum() / 1e6 / pages : 0;
+    }
+}
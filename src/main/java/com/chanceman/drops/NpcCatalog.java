@@ -0,0 +1,326 @@
+package com.chanceman.drops;
+
+import static net.runelite.client.RuneLite.RUNELITE_DIR;
+
+import com.chanceman.scheduling.ClientTaskScheduler;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.NPCComposition;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.util.Text;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local catalog of NPC definitions (game id → name, combat level, variant
+ * group) read from the client cache, so drop lookups can key on stable game
+ * ids instead of asking the wiki for page ids.
+ *
+ * <p>Definitions are read on the client thread as a {@link ClientTaskScheduler}
+ * job, within its per-frame budget, then saved next to the other plugin data. The saved copy is reused
+ * until the client revision or the number of NPC definitions changes.</p>
+ */
+@Slf4j
+@Singleton
+public class NpcCatalog
+{
+    /** Cache config group holding NPC definitions. */
+    private static final int NPC_CONFIG_GROUP = 9;
+    /** Definitions read per scheduler step. */
+    private static final int SCAN_STEP = 64;
+    private static final String FILE_NAME = "npc-catalog.json";
+
+    private final Client client;
+    private final ClientThread clientThread;
+    private final ClientTaskScheduler taskScheduler;
+    private final Gson gson;
+
+    private volatile Snapshot snapshot;
+    /** Bumped on start/stop so a scan from an earlier session stops itself. */
+    private volatile int generation;
+    private ExecutorService ioExecutor;
+
+    @Inject
+    public NpcCatalog(Client client, ClientThread clientThread, ClientTaskScheduler taskScheduler, Gson gson)
+    {
+        this.client = client;
+        this.clientThread = clientThread;
+        this.taskScheduler = taskScheduler;
+        this.gson = gson;
+    }
+
+    @Getter
+    public static class Entry
+    {
+        private final int id;
+        private final String name;
+        private final int combatLevel;
+        /** Lowest id sharing this entry's name and level; used as the cache key. */
+        private transient int canonicalId;
+
+        Entry(int id, String name, int combatLevel)
+        {
+            this.id = id;
+            this.name = name;
+            this.combatLevel = combatLevel;
+        }
+    }
+
+    /** What gets written to disk. */
+    private static final class Stored
+    {
+        int revision;
+        int definitions;
+        List<Entry> entries;
+    }
+
+    private static final class Snapshot
+    {
+        final List<Entry> entries;
+        /** Dense game id → entry. */
+        final Entry[] byId;
+        /** Lower-cased name → entries, ascending id. */
+        final Map<String, List<Entry>> byName = new HashMap<>();
+
+        Snapshot(List<Entry> entries)
+        {
+            this.entries = Collections.unmodifiableList(entries);
+            int max = 0;
+            for (Entry e : entries)
+            {
+                max = Math.max(max, e.id);
+            }
+            byId = new Entry[max + 1];
+
+            Map<String, Entry> firstOfGroup = new HashMap<>();
+            for (Entry e : entries)
+            {
+                byId[e.id] = e;
+                String key = normalize(e.name);
+                byName.computeIfAbsent(key, k -> new ArrayList<>()).add(e);
+                Entry first = firstOfGroup.putIfAbsent(key + '#' + e.combatLevel, e);
+                e.canonicalId = first == null ? e.id : first.id;
+            }
+        }
+    }
+
+    /** Load the saved catalog for this revision, or rebuild it in the background. */
+    public void startUp()
+    {
+        final int gen = ++generation;
+        synchronized (this)
+        {
+            if (ioExecutor == null || ioExecutor.isShutdown())
+            {
+                ioExecutor = Executors.newSingleThreadExecutor(
+                        new ThreadFactoryBuilder().setNameFormat("npccatalog").setDaemon(true).build());
+            }
+        }
+
+        clientThread.invokeLater(() ->
+        {
+            if (gen != generation)
+            {
+                return true;
+            }
+            if (client.getGameState().getState() < GameState.LOGIN_SCREEN.getState())
+            {
+                return false; // cache not ready yet
+            }
+
+            final int revision = client.getRevision();
+            final int[] ids = client.getIndexConfig().getFileIds(NPC_CONFIG_GROUP);
+            if (ids == null || ids.length == 0)
+            {
+                return false;
+            }
+            ExecutorService io = ioExecutor;
+            if (io != null && !io.isShutdown())
+            {
+                io.execute(() -> loadOrScan(gen, revision, ids));
+            }
+            return true;
+        });
+    }
+
+    public void shutDown()
+    {
+        generation++;
+        synchronized (this)
+        {
+            if (ioExecutor != null)
+            {
+                ioExecutor.shutdownNow();
+                ioExecutor = null;
+            }
+        }
+    }
+
+    public boolean isReady()
+    {
+        return snapshot != null;
+    }
+
+    /** @return the entry for a game NPC id, or null if unknown or not loaded yet */
+    public Entry get(int npcId)
+    {
+        Snapshot s = snapshot;
+        if (s == null || npcId < 0 || npcId >= s.byId.length)
+        {
+            return null;
+        }
+        return s.byId[npcId];
+    }
+
+    /**
+     * Canonical game id for an NPC name, preferring an exact level match.
+     * A level of 0 or less matches the lowest-id variant. Returns 0 if the
+     * name is unknown or the catalog is not loaded.
+     */
+    public int findId(String name, int level)
+    {
+        Snapshot s = snapshot;
+        if (s == null || name == null)
+        {
+            return 0;
+        }
+        List<Entry> variants = s.byName.get(normalize(name));
+        if (variants == null)
+        {
+            return 0;
+        }
+        if (level <= 0)
+        {
+            return variants.get(0).canonicalId;
+        }
+        for (Entry e : variants)
+        {
+            if (e.combatLevel == level)
+            {
+                return e.canonicalId;
+            }
+        }
+        return 0;
+    }
+
+    /** All named NPC definitions in id order; empty until loaded. */
+    public List<Entry> getEntries()
+    {
+        Snapshot s = snapshot;
+        return s == null ? Collections.emptyList() : s.entries;
+    }
+
+    private void loadOrScan(int gen, int revision, int[] ids)
+    {
+        Path file = RUNELITE_DIR.toPath().resolve("chanceman").resolve(FILE_NAME);
+        try
+        {
+            if (Files.exists(file))
+            {
+                Stored stored = gson.fromJson(Files.readString(file, StandardCharsets.UTF_8), Stored.class);
+                if (stored != null && stored.entries != null
+                        && stored.revision == revision && stored.definitions == ids.length)
+                {
+                    if (gen == generation)
+                    {
+                        snapshot = new Snapshot(stored.entries);
+                        log.debug("Loaded NPC catalog ({} entries, revision {})", stored.entries.size(), revision);
+                    }
+                    return;
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            log.debug("Ignoring unreadable NPC catalog {}", file, e);
+        }
+
+        scan(gen, revision, ids, file);
+    }
+
+    /** Read definitions on the client thread, a few per scheduler step. */
+    private void scan(int gen, int revision, int[] ids, Path file)
+    {
+        final List<Entry> entries = new ArrayList<>();
+        final int[] next = {0};
+        final long started = System.nanoTime();
+
+        taskScheduler.submit("NPC catalog scan", progress ->
+        {
+            if (gen != generation)
+            {
+                return true;
+            }
+
+            int end = Math.min(ids.length, next[0] + SCAN_STEP);
+            while (next[0] < end)
+            {
+                int id = ids[next[0]++];
+                NPCComposition comp = client.getNpcDefinition(id);
+                if (comp == null)
+                {
+                    continue;
+                }
+                String name = comp.getName() == null ? "" : Text.removeTags(comp.getName()).trim();
+                if (name.isEmpty() || name.equalsIgnoreCase("null"))
+                {
+                    continue; // multi-NPC wrappers and unnamed helpers
+                }
+                entries.add(new Entry(id, name, comp.getCombatLevel()));
+            }
+            progress.update(next[0], ids.length);
+            if (next[0] < ids.length)
+            {
+                return false;
+            }
+
+            snapshot = new Snapshot(entries);
+            log.debug("Built NPC catalog: {} entries from {} definitions in {} ms",
+                    entries.size(), ids.length, (System.nanoTime() - started) / 1_000_000);
+
+            Stored stored = new Stored();
+            stored.revision = revision;
+            stored.definitions = ids.length;
+            stored.entries = entries;
+            ExecutorService io = ioExecutor;
+            if (io != null && !io.isShutdown())
+            {
+                io.execute(() -> save(file, stored));
+            }
+            return true;
+        });
+    }
+
+    private void save(Path file, Stored stored)
+    {
+        try
+        {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, gson.toJson(stored), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            log.warn("Could not save NPC catalog", e);
+        }
+    }
+
+    private static String normalize(String name)
+    {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
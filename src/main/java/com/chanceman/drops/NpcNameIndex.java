@@ -0,0 +1,315 @@
+package com.chanceman.drops;
+
+import com.chanceman.search.Trigrams;
+
+import java.util.*;
+
+/**
+ * Immutable, typo-tolerant index over NPC names.
+ *
+ * <p>Each name is split into trigrams with posting lists of name ids. A query
+ * counts shared trigrams per name and keeps only names that could still be
+ * within the error budget (q-gram lemma). Survivors are scored with Myers'
+ * bit-parallel edit distance, in its substring form, so "hill gi" matches
+ * "Hill Giant" at distance 0 and "hil giamt" at distance 2. Queries too short
+ * for the trigram filter fall back to a scan, pruned first by a per-name
+ * character mask: a match with k edits can lack at most k of the query's
+ * distinct characters.</p>
+ */
+public final class NpcNameIndex
+{
+    /** Longest query the single-word bit-parallel matcher handles; longer input is truncated. */
+    private static final int MAX_PATTERN = 64;
+
+    private final String[] names;
+    private final String[] lower;
+    private final int[] tiers;
+    private final long[] charMasks;
+    private final Map<Long, int[]> postings;
+
+    private NpcNameIndex(String[] names, String[] lower, int[] tiers, long[] charMasks, Map<Long, int[]> postings)
+    {
+        this.names = names;
+        this.lower = lower;
+        this.tiers = tiers;
+        this.charMasks = charMasks;
+        this.postings = postings;
+    }
+
+    /**
+     * @param tiers display name → tier; lower tiers rank first among equally
+     *              close matches. Names are de-duplicated case-insensitively,
+     *              keeping the lowest tier.
+     */
+    public static NpcNameIndex build(Map<String, Integer> tiers)
+    {
+        Map<String, Integer> byLower = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        List<Integer> nameTiers = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : tiers.entrySet())
+        {
+            String display = e.getKey() == null ? "" : e.getKey().trim();
+            if (display.isEmpty())
+            {
+                continue;
+            }
+            String key = display.toLowerCase(Locale.ROOT);
+            Integer at = byLower.get(key);
+            if (at == null)
+            {
+                byLower.put(key, names.size());
+                names.add(display);
+                nameTiers.add(e.getValue());
+            }
+            else if (e.getValue() < nameTiers.get(at))
+            {
+                names.set(at, display);
+                nameTiers.set(at, e.getValue());
+            }
+        }
+
+        int n = names.size();
+        String[] nameArr = names.toArray(new String[0]);
+        String[] lowerArr = new String[n];
+        int[] tierArr = new int[n];
+        long[] maskArr = new long[n];
+        Map<Long, List<Integer>> lists = new HashMap<>();
+        for (int i = 0; i < n; i++)
+        {
+            lowerArr[i] = nameArr[i].toLowerCase(Locale.ROOT);
+            tierArr[i] = nameTiers.get(i);
+            maskArr[i] = charMask(lowerArr[i]);
+            for (long gram : Trigrams.distinct(lowerArr[i]))
+            {
+                lists.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<Long, List<Integer>> e : lists.entrySet())
+        {
+            List<Integer> ids = e.getValue();
+            int[] arr = new int[ids.size()];
+            for (int i = 0; i < arr.length; i++)
+            {
+                arr[i] = ids.get(i);
+            }
+            postings.put(e.getKey(), arr);
+        }
+        return new NpcNameIndex(nameArr, lowerArr, tierArr, maskArr, postings);
+    }
+
+    public int size()
+    {
+        return names.length;
+    }
+
+    /**
+     * Up to {@code limit} names matching {@code query} as a substring with at
+     * most {@link #maxErrors(int)} edits, closest first.
+     */
+    public List<String> search(String query, int limit)
+    {
+        String q = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (q.isEmpty() || limit <= 0 || names.length == 0)
+        {
+            return Collections.emptyList();
+        }
+        if (q.length() > MAX_PATTERN)
+        {
+            q = q.substring(0, MAX_PATTERN);
+        }
+
+        final int k = maxErrors(q.length());
+        final Matcher matcher = new Matcher(q);
+        final long queryMask = charMask(q);
+        final String prefix = q;
+        final Comparator<int[]> order = (a, b) ->
+        {
+            if (a[1] != b[1]) return Integer.compare(a[1], b[1]);
+            if (tiers[a[0]] != tiers[b[0]]) return Integer.compare(tiers[a[0]], tiers[b[0]]);
+            boolean pa = lower[a[0]].startsWith(prefix);
+            boolean pb = lower[b[0]].startsWith(prefix);
+            if (pa != pb) return pa ? -1 : 1;
+            if (lower[a[0]].length() != lower[b[0]].length())
+            {
+                return Integer.compare(lower[a[0]].length(), lower[b[0]].length());
+            }
+            return lower[a[0]].compareTo(lower[b[0]]);
+        };
+        // Worst of the best `limit` hits on top
+        final PriorityQueue<int[]> top = new PriorityQueue<>(limit + 1, order.reversed());
+
+        Set<Long> grams = Trigrams.distinct(q);
+        // A substring match with k edits keeps at least |grams| - 3k of the query's trigrams
+        int minShared = grams.size() - 3 * k;
+        if (minShared > 0)
+        {
+            int[] shared = new int[names.length];
+            for (long gram : grams)
+            {
+                int[] ids = postings.get(gram);
+                if (ids == null)
+                {
+                    continue;
+                }
+                for (int id : ids)
+                {
+                    if (++shared[id] == minShared)
+                    {
+                        score(matcher, queryMask, id, k, top, limit);
+                    }
+                }
+            }
+        }
+        else
+        {
+            for (int id = 0; id < names.length; id++)
+            {
+                score(matcher, queryMask, id, k, top, limit);
+            }
+        }
+
+        int[][] best = top.toArray(new int[0][]);
+        Arrays.sort(best, order);
+        List<String> out = new ArrayList<>(best.length);
+        for (int[] hit : best)
+        {
+            out.add(names[hit[0]]);
+        }
+        return out;
+    }
+
+    /** Edit budget for a query of the given length: exact below 4 chars, then one per three, at most 3. */
+    static int maxErrors(int queryLength)
+    {
+        return queryLength < 4 ? 0 : Math.min(3, queryLength / 3);
+    }
+
+    private void score(Matcher matcher, long queryMask, int id, int k, PriorityQueue<int[]> top, int limit)
+    {
+        if (Long.bitCount(queryMask & ~charMasks[id]) > k)
+        {
+            return;
+        }
+        int d = matcher.distance(lower[id], k);
+        if (d <= k)
+        {
+            top.add(new int[]{id, d});
+            if (top.size() > limit)
+            {
+                top.poll();
+            }
+        }
+    }
+
+    /** One bit per letter or digit present; everything else shares bit 63. */
+    private static long charMask(String s)
+    {
+        long mask = 0;
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if (c >= 'a' && c <= 'z')
+            {
+                mask |= 1L << (c - 'a');
+            }
+            else if (c >= '0' && c <= '9')
+            {
+                mask |= 1L << (26 + c - '0');
+            }
+            else
+            {
+                mask |= 1L << 63;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Myers (1999) bit-vector approximate substring matcher for one pattern of
+     * up to 64 characters. {@link #distance} is the minimum edit distance between
+     * the pattern and any substring of the text.
+     */
+    static final class Matcher
+    {
+        private final int m;
+        private final long high;
+        private final long[] asciiPeq = new long[128];
+        private final Map<Character, Long> otherPeq = new HashMap<>();
+
+        Matcher(String pattern)
+        {
+            m = pattern.length();
+            high = 1L << (m - 1);
+            for (int i = 0; i < m; i++)
+            {
+                char c = pattern.charAt(i);
+                if (c < 128)
+                {
+                    asciiPeq[c] |= 1L << i;
+                }
+                else
+                {
+                    otherPeq.merge(c, 1L << i, (a, b) -> a | b);
+                }
+            }
+        }
+
+        private long peq(char c)
+        {
+            if (c < 128)
+            {
+                return asciiPeq[c];
+            }
+            Long v = otherPeq.get(c);
+            return v == null ? 0 : v;
+        }
+
+        /** Minimum distance over all substrings of {@code text}, or {@code k + 1} once it cannot reach {@code k}. */
+        int distance(String text, int k)
+        {
+            long pv = -1L;
+            long mv = 0;
+            int score = m;
+            int best = m;
+            int n = text.length();
+            for (int j = 0; j < n; j++)
+            {
+                long eq = peq(text.charAt(j));
+                long xv = eq | mv;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+                if ((ph & high) != 0)
+                {
+                    score++;
+                }
+                else if ((mh & high) != 0)
+                {
+                    score--;
+                }
+                if (score < best)
+                {
+                    best = score;
+                    if (best == 0)
+                    {
+                        return 0;
+                    }
+                }
+                // Text may start anywhere, so nothing carries in from row 0
+                ph <<= 1;
+                mh <<= 1;
+                pv = mh | ~(xv | ph);
+                mv = ph & xv;
+
+                // Score falls by at most one per remaining character
+                if (score - (n - 1 - j) > k && best > k)
+                {
+                    return k + 1;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.chanceman.drops;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Everything {@link DropFetcher} needs from a wiki NPC page.
+ */
+@Getter
+public class ParsedDropPage
+{
+    /** Text of {@code h1#firstHeading}, or null if the page has none. */
+    private final String title;
+    /** Combat level from the infobox, or 0 if unknown. */
+    private final int combatLevel;
+    private final List<DropTableSection> sections;
+
+    public ParsedDropPage(String title, int combatLevel, List<DropTableSection> sections)
+    {
+        this.title = title;
+        this.combatLevel = combatLevel;
+        this.sections = sections;
+    }
+}
@@ -0,0 +1,238 @@
+package com.chanceman.drops;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.util.*;
+
+/**
+ * Drop page parser that never builds a DOM for the whole page. A
+ * {@link HtmlRegionScanner} pass cuts out the drop tables, infobox and
+ * headings; only those fragments are handed to Jsoup, and rows are walked
+ * by tag rather than through the selector engine. Output matches
+ * {@link DomDropPageParser}.
+ */
+public class StreamingDropPageParser implements DropPageParser
+{
+    @Override
+    public ParsedDropPage parse(String html)
+    {
+        HtmlRegionScanner.Result regions = HtmlRegionScanner.scan(html);
+
+        List<DropTableSection> sections = new ArrayList<>();
+        for (HtmlRegionScanner.TableRegion region : regions.dropTables)
+        {
+            DropTableSection section = parseTable(region);
+            if (section != null)
+            {
+                sections.add(section);
+            }
+        }
+
+        int level = 0;
+        if (regions.infoboxHtml != null)
+        {
+            Element infobox = firstTable(regions.infoboxHtml);
+            if (infobox != null)
+            {
+                level = parseCombatLevel(infobox);
+            }
+        }
+
+        return new ParsedDropPage(regions.title, level, sections);
+    }
+
+    private DropTableSection parseTable(HtmlRegionScanner.TableRegion region)
+    {
+        Element table = firstTable(region.html);
+        if (table == null)
+        {
+            return null;
+        }
+
+        Elements allRows = table.getElementsByTag("tr");
+        Map<String, Integer> col = buildColumnIndexMap(allRows);
+        Integer itemCol = col.get("item");
+        Integer rarityCol = col.get("rarity");
+        if (itemCol == null || rarityCol == null)
+        {
+            return null;
+        }
+
+        List<DropItem> items = new ArrayList<>();
+        for (Element row : allRows)
+        {
+            Element parent = row.parent();
+            if (parent == null || !"tbody".equals(parent.normalName()))
+            {
+                continue;
+            }
+            if (!row.getElementsByTag("th").isEmpty())
+            {
+                continue;
+            }
+
+            Elements tds = row.getElementsByTag("td");
+            if (itemCol >= tds.size())
+            {
+                continue;
+            }
+
+            String name = extractItemName(tds.get(itemCol));
+            if (name.isEmpty() || name.equalsIgnoreCase("nothing"))
+            {
+                continue;
+            }
+
+            String rarity = "";
+            if (rarityCol < tds.size())
+            {
+                rarity = extractRarity(tds.get(rarityCol));
+            }
+            else
+            {
+                Element rarityTd = findRarityCell(tds);
+                if (rarityTd != null)
+                {
+                    rarity = extractRarity(rarityTd);
+                }
+            }
+
+            items.add(new DropItem(0, name, rarity));
+        }
+
+        if (items.isEmpty())
+        {
+            return null;
+        }
+        String header = region.header == null ? "" : region.header.trim();
+        return new DropTableSection(header.isEmpty() ? "Drops" : header, items);
+    }
+
+    private static Element firstTable(String fragment)
+    {
+        return Jsoup.parseBodyFragment(fragment).body().getElementsByTag("table").first();
+    }
+
+    private static Map<String, Integer> buildColumnIndexMap(Elements rows)
+    {
+        Map<String, Integer> map = new HashMap<>();
+        for (Element row : rows)
+        {
+            Elements ths = row.getElementsByTag("th");
+            if (ths.isEmpty())
+            {
+                continue;
+            }
+            for (int i = 0; i < ths.size(); i++)
+            {
+                Element th = ths.get(i);
+                if (th.hasClass("item-col"))
+                {
+                    map.put("item", i);
+                }
+                String key = DomDropPageParser.normalizeHeader(th.text());
+                if (!key.isEmpty())
+                {
+                    map.put(key, i);
+                }
+            }
+            break;
+        }
+        return map;
+    }
+
+    private static boolean isRaritySpan(Element el)
+    {
+        return el.hasAttr("data-drop-fraction") || el.hasAttr("data-drop-oneover");
+    }
+
+    private static Element findRarityCell(Elements tds)
+    {
+        for (Element td : tds)
+        {
+            for (Element span : td.getElementsByTag("span"))
+            {
+                if (isRaritySpan(span))
+                {
+                    return td;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String extractItemName(Element itemTd)
+    {
+        for (Element a : itemTd.getElementsByTag("a"))
+        {
+            if (!a.hasAttr("title"))
+            {
+                continue;
+            }
+            String title = a.attr("title");
+            if (!title.trim().isEmpty())
+            {
+                return title.trim();
+            }
+            break;
+        }
+        return itemTd.text().replace("(m)", "").trim();
+    }
+
+    private static String extractRarity(Element rarityTd)
+    {
+        List<String> parts = new ArrayList<>();
+        boolean sawSpan = false;
+        for (Element sp : rarityTd.getElementsByTag("span"))
+        {
+            if (!isRaritySpan(sp))
+            {
+                continue;
+            }
+            sawSpan = true;
+            String v = sp.attr("data-drop-fraction");
+            if (v.isEmpty())
+            {
+                v = sp.attr("data-drop-oneover");
+            }
+            String txt = !v.isEmpty() ? v : sp.text();
+            txt = txt.replace(",", "").trim();
+            if (!txt.isEmpty())
+            {
+                parts.add(txt);
+            }
+        }
+        if (sawSpan)
+        {
+            return DomDropPageParser.joinRarityParts(parts);
+        }
+
+        String own = rarityTd.ownText();
+        if (!own.trim().isEmpty())
+        {
+            return own.trim();
+        }
+        return rarityTd.text().trim();
+    }
+
+    private static int parseCombatLevel(Element infobox)
+    {
+        for (Element row : infobox.getElementsByTag("tr"))
+        {
+            Element th = row.getElementsByTag("th").first();
+            Element td = row.getElementsByTag("td").first();
+            if (th != null && td != null
+                    && th.text().toLowerCase(Locale.ROOT).contains("combat level"))
+            {
+                int lvl = DomDropPageParser.firstInteger(td.text());
+                if (lvl >= 0)
+                {
+                    return lvl;
+                }
+            }
+        }
+        return 0;
+    }
+}
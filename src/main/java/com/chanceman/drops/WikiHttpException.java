@@ -0,0 +1,28 @@
+package com.chanceman.drops;
+
+import java.io.IOException;
+
+/**
+ * Non-2xx response from the wiki. Rate limiting and server errors are
+ * retryable; anything else (e.g. a missing page) is not.
+ */
+public class WikiHttpException extends IOException
+{
+    private final int code;
+
+    public WikiHttpException(int code)
+    {
+        super("HTTP " + code);
+        this.code = code;
+    }
+
+    public int getCode()
+    {
+        return code;
+    }
+
+    public boolean isRetryable()
+    {
+        return code == 429 || code >= 500;
+    }
+}
@@ -0,0 +1,114 @@
+package com.chanceman.filters;
+
+import com.chanceman.ChanceManConfig;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.function.IntPredicate;
+
+/**
+ * The item filters for one set of config values, folded into a single
+ * bitset of blocked ids.
+ *
+ * <p>Compile once per config change; checks are then one bit test instead
+ * of a walk through the config getters and static tables. Poison variant
+ * checks go through the id lookup arrays in {@link PoisonWeapons}.</p>
+ */
+public final class CompiledItemFilter {
+
+    private final BitSet blocked;
+    private final boolean freeToPlay;
+
+    private CompiledItemFilter(BitSet blocked, boolean freeToPlay) {
+        this.blocked = blocked;
+        this.freeToPlay = freeToPlay;
+    }
+
+    /**
+     * Fold the current config and every static filter table into one filter.
+     * Blocks the same ids as {@link ItemsFilter#isBlocked} plus the untracked
+     * currency ids.
+     *
+     * @param config the filter toggles to compile in
+     * @return an immutable filter
+     */
+    public static CompiledItemFilter compile(ChanceManConfig config) {
+        return compile(config, ItemRules.Compiled.NONE);
+    }
+
+    /**
+     * As {@link #compile(ChanceManConfig)}, with user rules layered on top:
+     * their blocks are added, then their allows are taken back out.
+     *
+     * @param config the filter toggles to compile in
+     * @param rules compiled user rules
+     * @return an immutable filter
+     */
+    public static CompiledItemFilter compile(ChanceManConfig config, ItemRules.Compiled rules) {
+        BitSet blocked = new BitSet();
+        if (!config.enableFlatpacks()) {
+            setAll(blocked, Flatpacks.getAllFlatpackIds());
+        }
+        if (!config.enableItemSets()) {
+            setAll(blocked, ItemSets.getAllItemSetIds());
+        }
+        setAll(blocked, BlockedItems.getBLOCKED_ITEMS());
+        if (config.freeToPlay() && !config.includeF2PTradeOnlyItems()) {
+            setAll(blocked, FreeToPlayBlockedItems.getFreeToPlayTradeOnlyItemIds());
+        }
+        blocked.or(rules.getBlock());
+        blocked.andNot(rules.getAllow());
+        for (int id : ItemsFilter.getNotTrackedIds()) {
+            blocked.set(id);
+        }
+        return new CompiledItemFilter(blocked, config.freeToPlay());
+    }
+
+    /**
+     * @param itemId the item id
+     * @return true if the item may be rolled under this filter's config
+     */
+    public boolean isAllowed(int itemId) {
+        return itemId >= 0 && !blocked.get(itemId);
+    }
+
+    /**
+     * @return true if members items are left out
+     */
+    public boolean isFreeToPlay() {
+        return freeToPlay;
+    }
+
+    /**
+     * Ids whose {@link #isAllowed} answer differs between the two filters.
+     * Members items are not included; check {@link #isFreeToPlay} for those.
+     *
+     * @param other the filter to compare against
+     * @return a new bitset of changed ids
+     */
+    public BitSet changedFrom(CompiledItemFilter other) {
+        BitSet changed = (BitSet) blocked.clone();
+        changed.xor(other.blocked);
+        return changed;
+    }
+
+    /**
+     * Weapon poison rule: a poisoned variant needs its base weapon and the
+     * matching weapon poison unlocked. Anything else passes.
+     *
+     * @param itemId the item id to check
+     * @param isUnlocked whether an item id has been rolled
+     * @return true if eligible; false otherwise
+     */
+    public boolean isPoisonEligible(int itemId, IntPredicate isUnlocked) {
+        return PoisonWeapons.isPoisonVariantEligible(itemId, isUnlocked);
+    }
+
+    private static void setAll(BitSet bits, Collection<Integer> ids) {
+        for (Integer id : ids) {
+            if (id != null && id >= 0) {
+                bits.set(id);
+            }
+        }
+    }
+}
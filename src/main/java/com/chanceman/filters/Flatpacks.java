@@ -126,6 +126,14 @@ public enum Flatpacks {
 
     @Getter
     private final int id;
+    private static final Set<Integer> ALL_IDS;
+    static {
+        Set<Integer> idsBuilder = new HashSet<>();
+        for (Flatpacks fp : Flatpacks.values()) {
+            idsBuilder.add(fp.getId());
+        }
+        ALL_IDS = Collections.unmodifiableSet(idsBuilder);
+    }
 
     Flatpacks(int id) {
         this.id = id;
@@ -135,11 +143,7 @@ public enum Flatpacks {
      * Returns an unmodifiable set of all flatpack item IDs.
      */
     public static Set<Integer> getAllFlatpackIds() {
-        Set<Integer> ids = new HashSet<>();
-        for (Flatpacks fp : Flatpacks.values()) {
-            ids.add(fp.getId());
-        }
-        return Collections.unmodifiableSet(ids);
+        return ALL_IDS;
     }
 
     /**
@@ -0,0 +1,194 @@
+package com.chanceman.filters;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * User rule files: extra items to block, or to let back in, on top of the
+ * built-in filter tables.
+ *
+ * <p>A file is JSON with optional {@code block} and {@code allow} sections,
+ * each holding any of:</p>
+ * <ul>
+ *   <li>{@code ids}: item ids, e.g. {@code [11802, 11804]}</li>
+ *   <li>{@code ranges}: inclusive id ranges, e.g. {@code ["27000-27100"]}</li>
+ *   <li>{@code names}: case-insensitive globs such as {@code "* (deadman)"},
+ *       or {@code "/regex/"}</li>
+ *   <li>{@code categories}: scan categories (members, stackable, noted,
+ *       equipable), with a leading {@code !} for items outside one</li>
+ * </ul>
+ *
+ * <p>Rules are resolved against the scanned item names and categories when
+ * compiled, so the result is two bitsets and checks stay one bit test no
+ * matter how many rules there are. Allow wins over every block except the
+ * untracked currency items.</p>
+ */
+public final class ItemRules {
+
+    /** Ids above this are rejected so a typo cannot allocate a huge bitset. */
+    private static final int MAX_ID = 1_000_000;
+
+    private ItemRules() {
+    }
+
+    /** One rule file as read from disk. */
+    public static final class RuleFile {
+        Section block;
+        Section allow;
+    }
+
+    /** Matchers of one kind of rule; any of them may be missing. */
+    public static final class Section {
+        List<Integer> ids;
+        List<String> ranges;
+        List<String> names;
+        List<String> categories;
+    }
+
+    /** Rules resolved to ids. */
+    @Getter
+    public static final class Compiled {
+        public static final Compiled NONE = new Compiled(new BitSet(), new BitSet(), Collections.emptyList());
+
+        private final BitSet block;
+        private final BitSet allow;
+        /** Rules that could not be understood and were skipped. */
+        private final List<String> problems;
+
+        private Compiled(BitSet block, BitSet allow, List<String> problems) {
+            this.block = block;
+            this.allow = allow;
+            this.problems = problems;
+        }
+    }
+
+    /**
+     * Resolve rule files to ids.
+     *
+     * @param files parsed rule files
+     * @param names item id → name for name patterns
+     * @param categories category → ids for category rules
+     * @param domain ids a negated category is taken from
+     * @return block and allow bitsets
+     */
+    public static Compiled compile(List<RuleFile> files, Map<Integer, String> names,
+                                   Map<String, BitSet> categories, BitSet domain) {
+        if (files.isEmpty()) {
+            return Compiled.NONE;
+        }
+        List<String> problems = new ArrayList<>();
+        BitSet block = new BitSet();
+        BitSet allow = new BitSet();
+        for (RuleFile file : files) {
+            if (file == null) continue;
+            resolve(file.block, names, categories, domain, block, problems);
+            resolve(file.allow, names, categories, domain, allow, problems);
+        }
+        return new Compiled(block, allow, problems);
+    }
+
+    private static void resolve(Section section, Map<Integer, String> names, Map<String, BitSet> categories,
+                                BitSet domain, BitSet out, List<String> problems) {
+        if (section == null) return;
+
+        if (section.ids != null) {
+            for (Integer id : section.ids) {
+                if (id != null && id >= 0 && id <= MAX_ID) out.set(id);
+            }
+        }
+
+        if (section.ranges != null) {
+            for (String range : section.ranges) {
+                int[] bounds = parseRange(range);
+                if (bounds == null) {
+                    problems.add("range \"" + range + "\"");
+                    continue;
+                }
+                out.set(bounds[0], bounds[1] + 1);
+            }
+        }
+
+        if (section.names != null && !section.names.isEmpty()) {
+            List<Pattern> patterns = new ArrayList<>();
+            for (String name : section.names) {
+                Pattern p = toPattern(name);
+                if (p == null) {
+                    problems.add("name \"" + name + "\"");
+                } else {
+                    patterns.add(p);
+                }
+            }
+            for (Map.Entry<Integer, String> e : names.entrySet()) {
+                String name = e.getValue();
+                if (name == null) continue;
+                for (Pattern p : patterns) {
+                    if (p.matcher(name).matches()) {
+                        out.set(e.getKey());
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (section.categories != null) {
+            for (String category : section.categories) {
+                String key = category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+                boolean negate = key.startsWith("!");
+                BitSet ids = categories.get(negate ? key.substring(1).trim() : key);
+                if (ids == null) {
+                    problems.add("category \"" + category + "\"");
+                    continue;
+                }
+                if (negate) {
+                    BitSet outside = (BitSet) domain.clone();
+                    outside.andNot(ids);
+                    out.or(outside);
+                } else {
+                    out.or(ids);
+                }
+            }
+        }
+    }
+
+    /** "a-b" inclusive, or a single id; null if malformed. */
+    private static int[] parseRange(String range) {
+        if (range == null) return null;
+        String[] parts = range.trim().split("\\s*-\\s*");
+        try {
+            int from = Integer.parseInt(parts[0]);
+            int to = parts.length == 2 ? Integer.parseInt(parts[1]) : from;
+            if (parts.length > 2 || from < 0 || to < from || to > MAX_ID) return null;
+            return new int[]{from, to};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** "/regex/" as is, anything else as a whole-name glob with *; null if invalid. */
+    private static Pattern toPattern(String rule) {
+        if (rule == null || rule.trim().isEmpty()) return null;
+        String r = rule.trim();
+        try {
+            if (r.length() > 2 && r.startsWith("/") && r.endsWith("/")) {
+                return Pattern.compile(r.substring(1, r.length() - 1), Pattern.CASE_INSENSITIVE);
+            }
+            String[] parts = r.split("\\*", -1);
+            StringBuilder regex = new StringBuilder();
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) regex.append(".*");
+                if (!parts[i].isEmpty()) regex.append(Pattern.quote(parts[i]));
+            }
+            return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+}
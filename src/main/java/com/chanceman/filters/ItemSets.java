@@ -164,6 +164,14 @@ public enum ItemSets {
 
     @Getter
     private final int id;
+    private static final Set<Integer> ALL_IDS;
+    static {
+        Set<Integer> idsBuilder = new HashSet<>();
+        for (ItemSets as : ItemSets.values()) {
+            idsBuilder.add(as.getId());
+        }
+        ALL_IDS = Collections.unmodifiableSet(idsBuilder);
+    }
 
     ItemSets(int id) {
         this.id = id;
@@ -173,11 +181,7 @@ public enum ItemSets {
      * Returns an unmodifiable set of all item set item IDs.
      */
     public static Set<Integer> getAllItemSetIds() {
-        Set<Integer> ids = new HashSet<>();
-        for (ItemSets as : ItemSets.values()) {
-            ids.add(as.getId());
-        }
-        return Collections.unmodifiableSet(ids);
+        return ALL_IDS;
     }
 
     /**
@@ -9,6 +9,26 @@ import java.util.Set;
  */
 public class ItemsFilter {
 
+    /** Coins, platinum tokens, bonds and the like, which never roll or unlock. */
+    private static final int[] NOT_TRACKED = {995, 13190, 13191, 7587, 7588, 7589, 7590, 7591};
+
+    /**
+     * Checks if an item is left out of tracking altogether: currency and bonds.
+     *
+     * @param itemId the item id
+     * @return true if the item is never rolled or unlocked
+     */
+    public static boolean isNotTracked(int itemId) {
+        for (int id : NOT_TRACKED) {
+            if (id == itemId) return true;
+        }
+        return false;
+    }
+
+    static int[] getNotTrackedIds() {
+        return NOT_TRACKED.clone();
+    }
+
     /**
      * Checks if an item is blocked.
      * An item is blocked if it is in the blocked set,
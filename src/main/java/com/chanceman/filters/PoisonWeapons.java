@@ -2,9 +2,11 @@ package com.chanceman.filters;
 
 import lombok.Getter;
 import net.runelite.api.gameval.ItemID;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.IntPredicate;
 
 /**
  * Enum representing every poisonable weapon and its four variants:
@@ -151,17 +153,98 @@ public enum PoisonWeapons {
         return id == baseId || id == poisonId || id == poisonPlusId || id == poisonPlusPlusId;
     }
 
+    /** Variant tier by item id: 0 base, 1 (p), 2 (p+), 3 (p++). */
+    private static final byte[] TIER_BY_ID;
+    /** Weapon by variant item id, null for anything else. Excludes the global poisons. */
+    private static final PoisonWeapons[] WEAPON_BY_ID;
+    private static final Set<Integer> BASE_WEAPON_IDS;
+    /** Poisoned variant ids per tier; index 0 unused. */
+    private static final int[][] VARIANTS_BY_TIER = new int[4][];
+
+    static {
+        int max = 0;
+        for (PoisonWeapons weapon : values()) {
+            max = Math.max(max, Math.max(Math.max(weapon.baseId, weapon.poisonId),
+                    Math.max(weapon.poisonPlusId, weapon.poisonPlusPlusId)));
+        }
+        TIER_BY_ID = new byte[max + 1];
+        WEAPON_BY_ID = new PoisonWeapons[max + 1];
+        Set<Integer> bases = new HashSet<>();
+        for (PoisonWeapons weapon : values()) {
+            if (weapon.isGlobalPoison()) continue;
+            // Tiers written from highest down so a shared id keeps the lowest tier
+            index(weapon, weapon.poisonPlusPlusId, 3);
+            index(weapon, weapon.poisonPlusId, 2);
+            index(weapon, weapon.poisonId, 1);
+            index(weapon, weapon.baseId, 0);
+            bases.add(weapon.baseId);
+        }
+        BASE_WEAPON_IDS = Collections.unmodifiableSet(bases);
+        for (int tier = 1; tier <= 3; tier++) {
+            int n = 0;
+            int[] ids = new int[WEAPON_BY_ID.length];
+            for (int id = 0; id < WEAPON_BY_ID.length; id++) {
+                if (WEAPON_BY_ID[id] != null && TIER_BY_ID[id] == tier) ids[n++] = id;
+            }
+            VARIANTS_BY_TIER[tier] = Arrays.copyOf(ids, n);
+        }
+    }
+
+    private static void index(PoisonWeapons weapon, int id, int tier) {
+        if (WEAPON_BY_ID[id] == null || WEAPON_BY_ID[id] == weapon) {
+            WEAPON_BY_ID[id] = weapon;
+            TIER_BY_ID[id] = (byte) tier;
+        }
+    }
+
+    private boolean isGlobalPoison() {
+        return this == WEAPON_POISON || this == WEAPON_POISON_ || this == WEAPON_POISON__;
+    }
+
+    /**
+     * The poisonable weapon an item id is a variant of, or null.
+     */
+    public static PoisonWeapons forVariant(int itemId) {
+        return itemId >= 0 && itemId < WEAPON_BY_ID.length ? WEAPON_BY_ID[itemId] : null;
+    }
+
+    /**
+     * Poisoned variant ids whose eligibility depends on the given item being
+     * unlocked: every variant of its tier for a weapon poison, the weapon's own
+     * variants for a base weapon, nothing otherwise.
+     *
+     * @param itemId the item id that was unlocked
+     * @return variant ids to re-check; do not modify
+     */
+    public static int[] variantsDependingOn(int itemId) {
+        if (itemId == WEAPON_POISON.getBaseId()) return VARIANTS_BY_TIER[1];
+        if (itemId == WEAPON_POISON_.getBaseId()) return VARIANTS_BY_TIER[2];
+        if (itemId == WEAPON_POISON__.getBaseId()) return VARIANTS_BY_TIER[3];
+        PoisonWeapons weapon = forVariant(itemId);
+        if (weapon == null || TIER_BY_ID[itemId] != 0) {
+            return new int[0];
+        }
+        return new int[]{weapon.poisonId, weapon.poisonPlusId, weapon.poisonPlusPlusId};
+    }
+
+    /**
+     * Every poisoned variant id, the items the weapon poison rule can block.
+     */
+    public static int[] getAllPoisonedVariantIds() {
+        int[] all = new int[VARIANTS_BY_TIER[1].length + VARIANTS_BY_TIER[2].length + VARIANTS_BY_TIER[3].length];
+        int n = 0;
+        for (int tier = 1; tier <= 3; tier++) {
+            System.arraycopy(VARIANTS_BY_TIER[tier], 0, all, n, VARIANTS_BY_TIER[tier].length);
+            n += VARIANTS_BY_TIER[tier].length;
+        }
+        return all;
+    }
+
     /**
      * Returns an unmodifiable set of all base weapon ids from poisonable weapons, excluding poison constants.
      */
     public static Set<Integer> getAllBaseWeaponIds() {
-        Set<Integer> ids = new HashSet<>();
-        for (PoisonWeapons weapon : values()) {
-            if (!weapon.name().startsWith("WEAPON_POISON")) {
-                ids.add(weapon.getBaseId());
-            }
-        }
-        return Collections.unmodifiableSet(ids);
+        return BASE_WEAPON_IDS;
     }
 
     /**
@@ -171,13 +254,7 @@ public enum PoisonWeapons {
      * @return true if it matches any poisonable weapon variant.
      */
     public static boolean isPoisonableWeapon(int itemId) {
-        for (PoisonWeapons weapon : values()) {
-            if (weapon.name().startsWith("WEAPON_POISON")) continue;
-            if (weapon.matches(itemId)) {
-                return true;
-            }
-        }
-        return false;
+        return forVariant(itemId) != null;
     }
 
     /**
@@ -194,36 +271,33 @@ public enum PoisonWeapons {
      * @return true if eligible; false otherwise
      */
     public static boolean isPoisonVariantEligible(int itemId, boolean requireWeaponPoison, Set<Integer> unlockedItems) {
-        PoisonWeapons matchingWeapon = null;
-        for (PoisonWeapons weapon : values()) {
-            if (weapon.name().startsWith("WEAPON_POISON")) continue;
-            if (weapon.matches(itemId)) {
-                matchingWeapon = weapon;
-                break;
-            }
-        }
-        if (matchingWeapon == null) {
-            return true;
-        }
-        // Base weapon is always eligible.
-        if (itemId == matchingWeapon.getBaseId()) {
-            return true;
-        }
-        if (!requireWeaponPoison) {
+        return !requireWeaponPoison || isPoisonVariantEligible(itemId, unlockedItems::contains);
+    }
+
+    /**
+     * Same as {@link #isPoisonVariantEligible(int, boolean, Set)} with the poison
+     * requirement on, reading unlocks through {@code isUnlocked}.
+     */
+    public static boolean isPoisonVariantEligible(int itemId, IntPredicate isUnlocked) {
+        PoisonWeapons weapon = forVariant(itemId);
+        if (weapon == null) {
             return true;
         }
         int requiredGlobalId;
-        if (itemId == matchingWeapon.getPoisonId()) {
-            requiredGlobalId = PoisonWeapons.WEAPON_POISON.getBaseId();
-        } else if (itemId == matchingWeapon.getPoisonPlusId()) {
-            requiredGlobalId = PoisonWeapons.WEAPON_POISON_.getBaseId();
-        } else if (itemId == matchingWeapon.getPoisonPlusPlusId()) {
-            requiredGlobalId = PoisonWeapons.WEAPON_POISON__.getBaseId();
-        } else {
-            return true;
+        switch (TIER_BY_ID[itemId]) {
+            case 1:
+                requiredGlobalId = WEAPON_POISON.getBaseId();
+                break;
+            case 2:
+                requiredGlobalId = WEAPON_POISON_.getBaseId();
+                break;
+            case 3:
+                requiredGlobalId = WEAPON_POISON__.getBaseId();
+                break;
+            default:
+                return true; // base weapon is always eligible
         }
-        boolean eligible = unlockedItems.contains(matchingWeapon.getBaseId()) && unlockedItems.contains(requiredGlobalId);
-        return eligible;
+        return isUnlocked.test(weapon.getBaseId()) && isUnlocked.test(requiredGlobalId);
     }
 
 }
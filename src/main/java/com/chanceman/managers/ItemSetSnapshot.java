@@ -0,0 +1,26 @@
+package com.chanceman.managers;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Immutable copy of a manager's item set, oldest first, tagged with the
+ * change counter it was taken at. Counters are bumped after a change lands,
+ * so the items are never older than the version says; a newer version means
+ * the copy may be stale.
+ */
+@Getter
+public final class ItemSetSnapshot
+{
+    private final long version;
+    private final Set<Integer> items;
+
+    ItemSetSnapshot(long version, Set<Integer> items)
+    {
+        this.version = version;
+        this.items = Collections.unmodifiableSet(new LinkedHashSet<>(items));
+    }
+}
@@ -0,0 +1,323 @@
+package com.chanceman.managers;
+
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The tradeable items that have not been rolled yet, kept ready for random
+ * picks.
+ *
+ * <p>Items live in a dense array with an id → slot table beside it, so a pick
+ * is one random index and rolling an item is a swap with the last slot. The
+ * pool is rebuilt when the tradeable universe or the whole rolled set is
+ * replaced, shrinks one item at a time as items are rolled, and takes
+ * single-item universe patches the same way.</p>
+ *
+ * <p>With a weigher set, slot weights also sit in a Fenwick tree, so weighted
+ * draws, single weight changes and removals are all O(log n).</p>
+ */
+@Singleton
+public class LockedItemPool
+{
+    private static final int[] EMPTY = new int[0];
+
+    // Guarded by this
+    /** Tradeable ids the pool is drawn from, rolled or not; first {@link #universeSize} live. */
+    private int[] universe = EMPTY;
+    private int universeSize;
+    /** Item id → index in {@link #universe}, or -1. Same length as {@link #slotOf}. */
+    private int[] universeSlotOf = EMPTY;
+    /** Locked ids; only the first {@link #size} slots are live. */
+    private int[] items = EMPTY;
+    /** Item id → slot in {@link #items}, or -1. Indexed directly by id. */
+    private int[] slotOf = EMPTY;
+    private int size;
+
+    /** Weight per item id, or null for uniform picks. */
+    private IntUnaryOperator weigher;
+    /** Weight of each slot, parallel to {@link #items}. */
+    private int[] slotWeight = EMPTY;
+    /** 1-based Fenwick tree over {@link #slotWeight}; null when uniform. */
+    private long[] tree;
+    private long totalWeight;
+
+    /**
+     * Replace the universe and refill the pool with every item in it that
+     * {@code isRolled} rejects.
+     */
+    public synchronized void reset(Collection<Integer> tradeables, IntPredicate isRolled)
+    {
+        int maxId = -1;
+        for (Integer id : tradeables)
+        {
+            if (id != null)
+            {
+                maxId = Math.max(maxId, id);
+            }
+        }
+        universe = new int[tradeables.size()];
+        universeSize = 0;
+        items = new int[tradeables.size()];
+        slotOf = new int[maxId + 1];
+        universeSlotOf = new int[maxId + 1];
+        Arrays.fill(universeSlotOf, -1);
+        for (Integer id : tradeables)
+        {
+            if (id != null && id >= 0 && universeSlotOf[id] < 0)
+            {
+                universeSlotOf[id] = universeSize;
+                universe[universeSize++] = id;
+            }
+        }
+        refill(isRolled);
+    }
+
+    /** Add one id to the universe, and to the pool unless it is already rolled. */
+    public synchronized void addToUniverse(int itemId, boolean rolled)
+    {
+        if (itemId < 0 || (itemId < universeSlotOf.length && universeSlotOf[itemId] >= 0))
+        {
+            return;
+        }
+        ensureIdCapacity(itemId);
+        if (universeSize == universe.length)
+        {
+            universe = Arrays.copyOf(universe, Math.max(16, universeSize * 2));
+        }
+        universeSlotOf[itemId] = universeSize;
+        universe[universeSize++] = itemId;
+        if (rolled)
+        {
+            return;
+        }
+
+        if (size == items.length)
+        {
+            items = Arrays.copyOf(items, Math.max(16, size * 2));
+            slotOf[itemId] = size;
+            items[size++] = itemId;
+            rebuildTree(); // tree capacity follows items
+            return;
+        }
+        int slot = size++;
+        slotOf[itemId] = slot;
+        items[slot] = itemId;
+        if (tree != null)
+        {
+            int w = Math.max(1, weigher.applyAsInt(itemId));
+            slotWeight[slot] = w;
+            add(slot, w);
+        }
+    }
+
+    /** Drop one id from the universe and the pool. */
+    public synchronized void removeFromUniverse(int itemId)
+    {
+        if (itemId < 0 || itemId >= universeSlotOf.length || universeSlotOf[itemId] < 0)
+        {
+            return;
+        }
+        remove(itemId);
+        int at = universeSlotOf[itemId];
+        int last = universe[--universeSize];
+        universe[at] = last;
+        universeSlotOf[last] = at;
+        universeSlotOf[itemId] = -1;
+    }
+
+    /** Refill from the current universe after the rolled set was replaced wholesale. */
+    public synchronized void resync(IntPredicate isRolled)
+    {
+        refill(isRolled);
+    }
+
+    /** Drop everything, e.g. while the tradeables are being rebuilt. */
+    public synchronized void clear()
+    {
+        universe = EMPTY;
+        universeSize = 0;
+        universeSlotOf = EMPTY;
+        items = EMPTY;
+        slotOf = EMPTY;
+        size = 0;
+        rebuildTree();
+    }
+
+    /**
+     * Weigh items with {@code weigher} from now on, or pick uniformly when it
+     * is null. Weights below 1 count as 1 so every locked item stays possible.
+     */
+    public synchronized void setWeigher(IntUnaryOperator weigher)
+    {
+        this.weigher = weigher;
+        rebuildTree();
+    }
+
+    /** Change one item's weight in place; ignored while picking uniformly. */
+    public synchronized void setWeight(int itemId, int weight)
+    {
+        if (tree == null || itemId < 0 || itemId >= slotOf.length || slotOf[itemId] < 0)
+        {
+            return;
+        }
+        int slot = slotOf[itemId];
+        int w = Math.max(1, weight);
+        add(slot, w - slotWeight[slot]);
+        slotWeight[slot] = w;
+    }
+
+    /** Copy of the ids the pool is drawn from. */
+    public synchronized int[] getUniverse()
+    {
+        return Arrays.copyOf(universe, universeSize);
+    }
+
+    /** Take an item out of the pool once it has been rolled. */
+    public synchronized void remove(int itemId)
+    {
+        if (itemId < 0 || itemId >= slotOf.length)
+        {
+            return;
+        }
+        int slot = slotOf[itemId];
+        if (slot < 0)
+        {
+            return;
+        }
+        int lastSlot = --size;
+        int last = items[lastSlot];
+        items[slot] = last;
+        slotOf[last] = slot;
+        slotOf[itemId] = -1;
+        if (tree != null)
+        {
+            int moved = slotWeight[lastSlot];
+            add(slot, moved - slotWeight[slot]);
+            add(lastSlot, -moved);
+            slotWeight[slot] = moved;
+            slotWeight[lastSlot] = 0;
+        }
+    }
+
+    public synchronized boolean contains(int itemId)
+    {
+        return itemId >= 0 && itemId < slotOf.length && slotOf[itemId] >= 0;
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    public synchronized boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /** A uniformly random locked item, or -1 if none are left. */
+    public synchronized int pick(Random random)
+    {
+        return size == 0 ? -1 : items[random.nextInt(size)];
+    }
+
+    /** A locked item drawn by weight, or -1 if none are left. Uniform without a weigher. */
+    public synchronized int pickWeighted(Random random)
+    {
+        if (tree == null || totalWeight <= 0)
+        {
+            return pick(random);
+        }
+        long target = Math.min(totalWeight - 1, (long) (random.nextDouble() * totalWeight));
+
+        // Descend to the slot whose prefix-sum range holds target
+        int pos = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1)
+        {
+            int next = pos + step;
+            if (next < tree.length && tree[next] <= target)
+            {
+                pos = next;
+                target -= tree[next];
+            }
+        }
+        return items[Math.min(pos, size - 1)];
+    }
+
+    private void refill(IntPredicate isRolled)
+    {
+        if (items.length < universeSize)
+        {
+            items = new int[universe.length];
+        }
+        Arrays.fill(slotOf, -1);
+        size = 0;
+        for (int i = 0; i < universeSize; i++)
+        {
+            int id = universe[i];
+            if (!isRolled.test(id))
+            {
+                slotOf[id] = size;
+                items[size++] = id;
+            }
+        }
+        rebuildTree();
+    }
+
+    private void ensureIdCapacity(int itemId)
+    {
+        if (itemId < slotOf.length)
+        {
+            return;
+        }
+        int old = slotOf.length;
+        int length = Math.max(itemId + 1, old + (old >> 1));
+        slotOf = Arrays.copyOf(slotOf, length);
+        universeSlotOf = Arrays.copyOf(universeSlotOf, length);
+        Arrays.fill(slotOf, old, length, -1);
+        Arrays.fill(universeSlotOf, old, length, -1);
+    }
+
+    private void rebuildTree()
+    {
+        if (weigher == null)
+        {
+            tree = null;
+            slotWeight = EMPTY;
+            totalWeight = 0;
+            return;
+        }
+        int n = items.length;
+        slotWeight = new int[n];
+        tree = new long[n + 1];
+        totalWeight = 0;
+        for (int i = 0; i < size; i++)
+        {
+            int w = Math.max(1, weigher.applyAsInt(items[i]));
+            slotWeight[i] = w;
+            tree[i + 1] = w;
+            totalWeight += w;
+        }
+        // Linear-time build: push each node into its parent
+        for (int i = 1; i <= n; i++)
+        {
+            int parent = i + (i & -i);
+            if (parent <= n)
+            {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private void add(int slot, long delta)
+    {
+        totalWeight += delta;
+        for (int i = slot + 1; i < tree.length; i += i & -i)
+        {
+            tree[i] += delta;
+        }
+    }
+}
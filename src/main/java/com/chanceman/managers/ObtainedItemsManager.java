@@ -18,6 +18,7 @@ import java.nio.file.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static net.runelite.client.RuneLite.RUNELITE_DIR;
 
@@ -37,6 +38,8 @@ public class ObtainedItemsManager
     private static final long FS_DEBOUNCE_MS = 200L;
     private static final Type SET_TYPE = new TypeToken<Set<Integer>>(){}.getType();
     private final Set<Integer> obtainedItems = Collections.synchronizedSet(new LinkedHashSet<>());
+    /** Bumped after every change, before listeners are told. */
+    private final AtomicLong version = new AtomicLong();
 
     @Inject private AccountManager accountManager;
     @Inject private ChanceManConfig config;
@@ -57,6 +60,21 @@ public class ObtainedItemsManager
 
     public boolean isObtained(int itemId) { return obtainedItems.contains(itemId); }
 
+    /** Change counter; cheaper than a snapshot for checking whether anything moved. */
+    public long getVersion()
+    {
+        return version.get();
+    }
+
+    /** Items in insertion order together with the version they belong to. */
+    public ItemSetSnapshot getObtainedSnapshot()
+    {
+        synchronized (obtainedItems)
+        {
+            return new ItemSetSnapshot(version.get(), obtainedItems);
+        }
+    }
+
     /** Return an immutable snapshot to avoid leaking the synchronizedSet. */
     public Set<Integer> getObtainedItems()
     {
@@ -76,6 +94,28 @@ public class ObtainedItemsManager
         }
     }
 
+    /** Mark several items with one save and one change notification. */
+    public void markObtainedAll(int[] itemIds)
+    {
+        boolean changed = false;
+        synchronized (obtainedItems)
+        {
+            for (int itemId : itemIds)
+            {
+                if (itemId > 0 && obtainedItems.add(itemId))
+                {
+                    changed = true;
+                }
+            }
+        }
+        if (changed)
+        {
+            dirty = true;
+            saveObtainedItems();
+            safeNotifyChange();
+        }
+    }
+
     public void loadObtainedItems()
     {
         reconcileWithCloud(false);
@@ -382,6 +422,7 @@ public class ObtainedItemsManager
 
     private void safeNotifyChange()
     {
+        version.incrementAndGet();
         Runnable cb = onChange;
         if (cb != null)
         {
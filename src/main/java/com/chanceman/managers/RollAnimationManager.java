@@ -3,8 +3,10 @@ package com.chanceman.managers;
 import com.chanceman.ChanceManOverlay;
 import com.chanceman.ChanceManPanel;
 import com.chanceman.ChanceManConfig;
-import lombok.Getter;
+import com.chanceman.account.AccountManager;
+import com.chanceman.persist.RollHistoryStore;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
 import net.runelite.api.ItemComposition;
@@ -17,8 +19,7 @@ import javax.inject.Singleton;
 import javax.swing.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
 
 /**
  * Manages roll animations and result announcements.
@@ -26,7 +27,17 @@ import java.util.concurrent.Executors;
  * New domain meanings:
  *  - ObtainedItemsManager = items you have obtained (legacy: Rolled)
  *  - RolledItemsManager   = items that have been rolled/unlocked (legacy: Unlocked)
+ *
+ * Once {@link ChanceManConfig#burstThreshold()} rolls are waiting, the queue is
+ * drained into a single burst: results are picked up front, shown together as
+ * a multi-lane overlay animation and announced in one grouped chat summary.
+ *
+ * A roll's lifecycle is a {@link RollStateMachine} advanced by {@link #process()}
+ * on the client thread each game tick and frame; the overlay reads the same
+ * timeline, so no thread waits out the animation. Rolls can be paused, resumed
+ * and skipped.
  */
+@Slf4j
 @Singleton
 public class RollAnimationManager
 {
@@ -36,9 +47,12 @@ public class RollAnimationManager
 
     @Inject private ObtainedItemsManager obtainedManager;
     @Inject private RolledItemsManager rolledManager;
+    @Inject private LockedItemPool lockedPool;
 
     @Inject private ChanceManOverlay overlay;
     @Inject private ChanceManConfig config;
+    @Inject private RollHistoryStore history;
+    @Inject private AccountManager accountManager;
 
     @Setter private ChanceManPanel chanceManPanel;
 
@@ -58,25 +72,60 @@ public class RollAnimationManager
         }
     }
 
+    /** The roll on screen: one request, or a burst whose results are already picked. */
+    private static final class ActiveRoll
+    {
+        final RollRequest single;
+        /** Burst only: source item (or -1 for a button press) -> rolled items, in roll order. */
+        final Map<Integer, List<Integer>> bySource;
+        final int count;
+        final long startedMs;
+
+        ActiveRoll(RollRequest single, Map<Integer, List<Integer>> bySource, int count, long startedMs)
+        {
+            this.single = single;
+            this.bySource = bySource;
+            this.count = count;
+            this.startedMs = startedMs;
+        }
+    }
+
     private final Queue<RollRequest> rollQueue = new ConcurrentLinkedQueue<>();
-    private ExecutorService executor = Executors.newSingleThreadExecutor();
 
-    private volatile boolean isRolling = false;
+    // Client thread only
+    private RollStateMachine timeline;
+    private ActiveRoll active;
+    private final LongSupplier clockMs = () -> System.nanoTime() / 1_000_000L;
+
+    /** Whether a roll is on screen, for other threads; written on the client thread only. */
+    private volatile boolean rolling = false;
 
     // tradeables gating
     private volatile boolean tradeablesReady = false;
 
     private static final int SNAP_WINDOW_MS = 350;
+    private static final int ROLL_DURATION_MS = 3000;
+    /** Rolls taken into one burst at most; anything beyond waits for the next. */
+    private static final int MAX_BURST = 64;
+    /** Rolled item names per chat line in a burst summary. */
+    private static final int SUMMARY_NAMES_PER_LINE = 8;
     private final Random random = new Random();
 
-    @Getter
-    @Setter
-    private volatile boolean manualRoll = false;
-
-    /** Called by plugin after building tradeables. */
+    /** Called by plugin after building tradeables; also rebuilds the locked pool. */
     public void setAllTradeableItems(Set<Integer> allTradeableItems)
     {
         this.allTradeableItems = (allTradeableItems != null) ? allTradeableItems : Collections.emptySet();
+        if (this.allTradeableItems.isEmpty())
+        {
+            lockedPool.clear();
+        }
+        else
+        {
+            synchronized (this.allTradeableItems)
+            {
+                lockedPool.reset(this.allTradeableItems, rolledManager::isRolled);
+            }
+        }
         this.tradeablesReady = !this.allTradeableItems.isEmpty();
     }
 
@@ -92,7 +141,13 @@ public class RollAnimationManager
      */
     public void enqueueRoll(int obtainedItemId)
     {
-        rollQueue.offer(new RollRequest(obtainedItemId, null, manualRoll));
+        rollQueue.offer(new RollRequest(obtainedItemId, null, false));
+    }
+
+    /** Enqueue a roll started from the panel button. */
+    public void enqueueManualRoll(int obtainedItemId)
+    {
+        rollQueue.offer(new RollRequest(obtainedItemId, null, true));
     }
 
     /** Enqueue a group-synchronised roll with a forced final rolled item id. */
@@ -102,131 +157,267 @@ public class RollAnimationManager
     }
 
     /**
-     * Process pending rolls if idle.
+     * Enqueue a received batch of synchronised rolls. They land in the queue on
+     * the client thread between two {@link #process()} calls, so a batch is
+     * never split across a single roll and a burst by accident.
+     */
+    public void enqueueSyncedRolls(int[] obtainedItemIds, int[] rolledItemIds, boolean[] manual)
+    {
+        clientThread.invoke(() ->
+        {
+            for (int i = 0; i < rolledItemIds.length; i++)
+            {
+                rollQueue.offer(new RollRequest(obtainedItemIds[i], rolledItemIds[i], manual[i]));
+            }
+        });
+    }
+
+    /**
+     * Client thread, every game tick and frame: move the running roll along its
+     * timeline and start the next pending roll once idle.
      */
     public void process()
     {
+        if (timeline == null)
+        {
+            return;
+        }
+        long now = clockMs.getAsLong();
+        timeline.advance(now);
+        if (!timeline.isIdle() || rollQueue.isEmpty())
+        {
+            return;
+        }
         if (!hasTradeablesReady())
         {
             return; // queue stays intact until tradeables are built
         }
 
-        if (!isRolling && !rollQueue.isEmpty())
+        int threshold = config.burstThreshold();
+        if (threshold > 1 && rollQueue.size() >= threshold)
         {
-            RollRequest req = rollQueue.poll();
-            if (req == null) return;
-            isRolling = true;
-            executor.submit(() -> performRoll(req));
-}
+            List<RollRequest> burst = new ArrayList<>();
+            RollRequest next;
+            while (burst.size() < MAX_BURST && (next = rollQueue.poll()) != null)
+            {
+                burst.add(next);
+            }
+            startBurst(burst, now);
+            return;
+        }
+
+        RollRequest req = rollQueue.poll();
+        if (req != null)
+        {
+            startRoll(req, now);
+        }
     }
 
-    /**
-     * Perform the roll animation and announce the result.
-     * The rolled item is selected during the snap window and immediately
-     * marked as ROLLED (legacy: unlocked), while the animation finishes visually.
-     */
-    private void performRoll(RollRequest req)
+    /** Client thread: freeze the running roll. */
+    public void pause()
     {
-        try
+        if (timeline != null)
         {
-            // If tradeables became invalid mid-roll, bail safely.
-            if (!hasTradeablesReady())
-            {
-                return;
-            }
+            timeline.pause(clockMs.getAsLong());
+        }
+    }
 
-            final int obtainedItemId = req.obtainedItemId;
-            final Integer forcedRolled = req.forcedRolledItemId;
+    /** Client thread: continue a paused roll. */
+    public void resume()
+    {
+        if (timeline != null)
+        {
+            timeline.resume(clockMs.getAsLong());
+        }
+    }
 
-            int rollDuration = 3000;
-            if (forcedRolled != null)
-            {
-                overlay.setForcedFinalItem(forcedRolled);
-            }
-            else
-            {
-                overlay.setForcedFinalItem(0);
-            }
-            overlay.startRollAnimation(0, rollDuration, this::getRandomLockedItem);
+    /** Client thread: jump to the end of the running roll's current phase. */
+    public void skip()
+    {
+        if (timeline != null)
+        {
+            timeline.skip(clockMs.getAsLong());
+        }
+    }
 
-            try
-            {
-                Thread.sleep(rollDuration + SNAP_WINDOW_MS);
-            }
-            catch (InterruptedException e)
+    private void startRoll(RollRequest req, long now)
+    {
+        overlay.setForcedFinalItem(req.forcedRolledItemId != null ? req.forcedRolledItemId : 0);
+        overlay.startRollAnimation(0, ROLL_DURATION_MS, this::getRandomLockedItem);
+        begin(new ActiveRoll(req, null, 1, now), now);
+    }
+
+    /** Resolve and persist every roll of a burst up front, then play them as one multi-lane animation. */
+    private void startBurst(List<RollRequest> burst, long now)
+    {
+        final Map<Integer, List<Integer>> bySource = new LinkedHashMap<>();
+        final int[] results = new int[burst.size()];
+        int count = 0;
+        for (RollRequest req : burst)
+        {
+            int rolledItemId = req.forcedRolledItemId != null
+                    ? req.forcedRolledItemId
+                    : lockedPool.pickWeighted(random);
+            if (rolledItemId <= 0)
             {
-                Thread.currentThread().interrupt();
+                continue; // nothing left to roll locally
             }
-
-            int rolledItemId = (forcedRolled != null) ? forcedRolled : overlay.getFinalItem();
-
             rolledManager.markRolled(rolledItemId);
+            recordLocal(req, rolledItemId);
+            results[count++] = rolledItemId;
+            bySource.computeIfAbsent(req.manual ? -1 : req.obtainedItemId, k -> new ArrayList<>())
+                    .add(rolledItemId);
+        }
+        if (count == 0)
+        {
+            return;
+        }
 
-            final boolean wasManual = req.manual;
+        overlay.setForcedFinalItem(0);
+        overlay.startBurstAnimation(Arrays.copyOf(results, count), ROLL_DURATION_MS, this::getRandomLockedItem);
+        begin(new ActiveRoll(null, bySource, count, now), now);
+    }
 
-            clientThread.invoke(() ->
-            {
-                String rolledTag = ColorUtil.wrapWithColorTag(
-                        getItemName(rolledItemId),
-                        config.unlockedItemColor()
-                );
+    private void begin(ActiveRoll roll, long now)
+    {
+        active = roll;
+        rolling = true;
+        timeline.start(now);
+    }
 
-                String message;
-                if (wasManual)
+    private void onPhaseChanged(RollStateMachine.Phase from, RollStateMachine.Phase to)
+    {
+        ActiveRoll roll = active;
+        if (roll == null)
+        {
+            return;
+        }
+        switch (to)
+        {
+            case HIGHLIGHT:
+                // The strip has settled on its winner
+                if (roll.single != null)
                 {
-                    String pressTag = ColorUtil.wrapWithColorTag(
-                            "pressing a button",
-                            config.rolledItemColor()
-                    );
-                    message = "Rolled " + rolledTag + " by " + pressTag;
+                    announceRoll(roll.single);
                 }
                 else
                 {
-                    String obtainedTag = ColorUtil.wrapWithColorTag(
-                            getItemName(obtainedItemId),
-                            config.rolledItemColor()
-                    );
-                    message = "Rolled " + rolledTag + " by obtaining " + obtainedTag;
+                    announceBurst(roll);
                 }
-
-                client.addChatMessage(
-                        ChatMessageType.GAMEMESSAGE,
-                        "",
-                        message,
-                        null
-                );
-
-                if (chanceManPanel != null)
+                break;
+            case IDLE:
+                if (roll.single == null)
                 {
-                    SwingUtilities.invokeLater(chanceManPanel::updatePanel);
+                    double seconds = Math.max(1, clockMs.getAsLong() - roll.startedMs) / 1000.0;
+                    log.debug("Burst of {} rolls in {} s ({} rolls/s)", roll.count,
+                            String.format("%.2f", seconds), String.format("%.1f", roll.count / seconds));
                 }
-            });
+                active = null;
+                rolling = false;
+                break;
+            default:
+                break;
+        }
+    }
 
-            int remainingHighlight =
-                    Math.max(0, overlay.getHighlightDurationMs() - SNAP_WINDOW_MS);
+    /** Rolls picked here go into the history; forced ones were recorded where they were picked. */
+    private void recordLocal(RollRequest req, int rolledItemId)
+    {
+        if (req.forcedRolledItemId == null)
+        {
+            history.record(UUID.randomUUID().toString(), System.currentTimeMillis(), accountManager.getPlayerName(),
+                    req.obtainedItemId, rolledItemId, req.manual);
+        }
+    }
+
+    /**
+     * Mark the settled item as ROLLED (legacy: unlocked) and announce it; the
+     * highlight keeps running while the message goes out.
+     */
+    private void announceRoll(RollRequest req)
+    {
+        final int rolledItemId = (req.forcedRolledItemId != null) ? req.forcedRolledItemId : overlay.getFinalItem();
+        if (rolledItemId <= 0)
+        {
+            return;
+        }
 
-            if (remainingHighlight > 0)
+        rolledManager.markRolled(rolledItemId);
+        recordLocal(req, rolledItemId);
+
+        String rolledTag = ColorUtil.wrapWithColorTag(
+                getItemName(rolledItemId),
+                config.unlockedItemColor()
+        );
+
+        String message;
+        if (req.manual)
+        {
+            String pressTag = ColorUtil.wrapWithColorTag(
+                    "pressing a button",
+                    config.rolledItemColor()
+            );
+            message = "Rolled " + rolledTag + " by " + pressTag;
+        }
+        else
+        {
+            String obtainedTag = ColorUtil.wrapWithColorTag(
+                    getItemName(req.obtainedItemId),
+                    config.rolledItemColor()
+            );
+            message = "Rolled " + rolledTag + " by obtaining " + obtainedTag;
+        }
+
+        client.addChatMessage(
+                ChatMessageType.GAMEMESSAGE,
+                "",
+                message,
+                null
+        );
+
+        if (chanceManPanel != null)
+        {
+            SwingUtilities.invokeLater(chanceManPanel::updatePanel);
+        }
+    }
+
+    /** One header line, then the rolled items grouped by what caused them. */
+    private void announceBurst(ActiveRoll roll)
+    {
+        client.addChatMessage(ChatMessageType.GAMEMESSAGE, "",
+                "Burst of " + roll.count + " rolls:", null);
+        for (Map.Entry<Integer, List<Integer>> e : roll.bySource.entrySet())
+        {
+            String cause = e.getKey() < 0
+                    ? ColorUtil.wrapWithColorTag("pressing a button", config.rolledItemColor())
+                    : ColorUtil.wrapWithColorTag(getItemName(e.getKey()), config.rolledItemColor());
+            String verb = e.getKey() < 0 ? " by " : " by obtaining ";
+            List<Integer> rolled = e.getValue();
+            for (int from = 0; from < rolled.size(); from += SUMMARY_NAMES_PER_LINE)
             {
-                try
+                StringBuilder names = new StringBuilder();
+                for (int i = from; i < Math.min(rolled.size(), from + SUMMARY_NAMES_PER_LINE); i++)
                 {
-                    Thread.sleep(remainingHighlight);
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
+                    if (names.length() > 0)
+                    {
+                        names.append(", ");
+                    }
+                    names.append(ColorUtil.wrapWithColorTag(getItemName(rolled.get(i)), config.unlockedItemColor()));
                 }
+                client.addChatMessage(ChatMessageType.GAMEMESSAGE, "",
+                        "Rolled " + names + verb + cause, null);
             }
         }
-        finally
+
+        if (chanceManPanel != null)
         {
-            manualRoll = false;
-            isRolling = false;
+            SwingUtilities.invokeLater(chanceManPanel::updatePanel);
         }
     }
 
     public boolean isRolling()
     {
-        return isRolling;
+        return rolling;
     }
 
     /**
@@ -239,21 +430,14 @@ public class RollAnimationManager
             return overlay.getFinalItem();
         }
 
-        List<Integer> locked = new ArrayList<>();
-        for (int id : allTradeableItems)
-        {
-            if (!rolledManager.isRolled(id))
-            {
-                locked.add(id);
-            }
-        }
-
-        if (locked.isEmpty())
-        {
-            return overlay.getFinalItem();
-        }
+        int id = lockedPool.pickWeighted(random);
+        return id >= 0 ? id : overlay.getFinalItem();
+    }
 
-        return locked.get(random.nextInt(locked.size()));
+    /** A random locked item for a manual roll, or -1 if everything is rolled. */
+    public int pickLockedItem()
+    {
+        return hasTradeablesReady() ? lockedPool.pick(random) : -1;
     }
 
     private String getItemName(int itemId)
@@ -264,14 +448,23 @@ public class RollAnimationManager
 
     public void startUp()
     {
-        if (executor == null || executor.isShutdown() || executor.isTerminated())
+        if (timeline == null)
         {
-            executor = Executors.newSingleThreadExecutor();
+            timeline = new RollStateMachine(ROLL_DURATION_MS, SNAP_WINDOW_MS,
+                    overlay.getHighlightDurationMs(), this::onPhaseChanged);
         }
+        overlay.setTimeline(timeline);
     }
 
+    /** Drop the running roll; pending requests stay queued. */
     public void shutdown()
     {
-        executor.shutdownNow();
+        if (timeline != null)
+        {
+            timeline.reset();
+        }
+        active = null;
+        rolling = false;
+        overlay.setTimeline(null);
     }
 }
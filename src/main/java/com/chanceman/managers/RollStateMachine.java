@@ -0,0 +1,212 @@
+package com.chanceman.managers;
+
+/**
+ * Timeline of one roll: spin, settle, highlight, then idle again.
+ *
+ * <p>The machine owns no clock and no thread. Callers pass a millisecond
+ * timestamp to every method, and phase changes happen only inside
+ * {@link #advance(long)}, in order, even when one call crosses several
+ * boundaries. The same timestamps therefore always produce the same
+ * transitions, which keeps the machine testable with a fake clock.</p>
+ *
+ * <p>Pausing stops the timeline until it is resumed; skipping jumps to the
+ * end of the current phase.</p>
+ */
+public final class RollStateMachine
+{
+    public enum Phase
+    {
+        /** No roll running. */
+        IDLE,
+        /** Strip scrolling and slowing down. */
+        SPINNING,
+        /** Strip snapping onto the winning slot; the result is read when this ends. */
+        SETTLING,
+        /** Winner shown and announced. */
+        HIGHLIGHT
+    }
+
+    /** Told about every phase change, on the thread that called into the machine. */
+    public interface Listener
+    {
+        void onPhaseChanged(Phase from, Phase to);
+    }
+
+    private final long spinMs;
+    private final long settleMs;
+    private final long highlightMs;
+    private final Listener listener;
+
+    private Phase phase = Phase.IDLE;
+    private long startMs;
+    /** Timeline position at the last {@link #advance(long)}, pauses excluded. */
+    private long elapsedMs;
+    private long pausedAtMs = -1;
+
+    /**
+     * @param spinMs time from start until the strip begins to settle
+     * @param settleMs snap time after the spin
+     * @param highlightMs time from the end of the spin until the roll is over;
+     *                    includes the settle time
+     */
+    public RollStateMachine(long spinMs, long settleMs, long highlightMs, Listener listener)
+    {
+        if (spinMs < 0 || settleMs < 0 || highlightMs < settleMs)
+        {
+            throw new IllegalArgumentException("invalid roll durations");
+        }
+        this.spinMs = spinMs;
+        this.settleMs = settleMs;
+        this.highlightMs = highlightMs;
+        this.listener = listener;
+    }
+
+    /** Start a roll at {@code nowMs}. Ignored unless idle. */
+    public void start(long nowMs)
+    {
+        if (phase != Phase.IDLE)
+        {
+            return;
+        }
+        startMs = nowMs;
+        elapsedMs = 0;
+        pausedAtMs = -1;
+        transition(Phase.SPINNING);
+        advance(nowMs);
+    }
+
+    /** Move the timeline to {@code nowMs}, firing every phase change on the way. */
+    public void advance(long nowMs)
+    {
+        if (phase == Phase.IDLE || pausedAtMs >= 0)
+        {
+            return;
+        }
+        elapsedMs = Math.max(elapsedMs, nowMs - startMs);
+        fireDue();
+    }
+
+    /** Freeze the timeline until {@link #resume(long)}. */
+    public void pause(long nowMs)
+    {
+        if (phase == Phase.IDLE || pausedAtMs >= 0)
+        {
+            return;
+        }
+        advance(nowMs);
+        pausedAtMs = nowMs;
+    }
+
+    public void resume(long nowMs)
+    {
+        if (pausedAtMs < 0)
+        {
+            return;
+        }
+        startMs += nowMs - pausedAtMs;
+        pausedAtMs = -1;
+        advance(nowMs);
+    }
+
+    /** Jump to the end of the current phase. A paused roll stays paused. */
+    public void skip(long nowMs)
+    {
+        if (phase == Phase.IDLE)
+        {
+            return;
+        }
+        long jump = phaseEnd(phase) - elapsedMs;
+        startMs -= jump;
+        if (pausedAtMs < 0)
+        {
+            advance(nowMs);
+            return;
+        }
+        elapsedMs += jump;
+        fireDue();
+        if (phase == Phase.IDLE)
+        {
+            pausedAtMs = -1;
+        }
+    }
+
+    /** Drop the roll without firing further transitions. */
+    public void reset()
+    {
+        phase = Phase.IDLE;
+        elapsedMs = 0;
+        pausedAtMs = -1;
+    }
+
+    public Phase getPhase()
+    {
+        return phase;
+    }
+
+    public boolean isIdle()
+    {
+        return phase == Phase.IDLE;
+    }
+
+    public boolean isPaused()
+    {
+        return pausedAtMs >= 0;
+    }
+
+    /** Time into the roll as of the last advance, pauses excluded. */
+    public long getElapsedMs()
+    {
+        return elapsedMs;
+    }
+
+    public long getSpinMs()
+    {
+        return spinMs;
+    }
+
+    private void fireDue()
+    {
+        while (phase != Phase.IDLE && elapsedMs >= phaseEnd(phase))
+        {
+            transition(next(phase));
+        }
+    }
+
+    private long phaseEnd(Phase p)
+    {
+        switch (p)
+        {
+            case SPINNING:
+                return spinMs;
+            case SETTLING:
+                return spinMs + settleMs;
+            case HIGHLIGHT:
+                return spinMs + highlightMs;
+            default:
+                return Long.MAX_VALUE;
+        }
+    }
+
+    private static Phase next(Phase p)
+    {
+        switch (p)
+        {
+            case SPINNING:
+                return Phase.SETTLING;
+            case SETTLING:
+                return Phase.HIGHLIGHT;
+            default:
+                return Phase.IDLE;
+        }
+    }
+
+    private void transition(Phase to)
+    {
+        Phase from = phase;
+        phase = to;
+        if (listener != null)
+        {
+            listener.onPhaseChanged(from, to);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.chanceman.managers;
+
+import com.chanceman.ChanceManConfig;
+import com.chanceman.ChanceManConfig.RollWeighting;
+import com.chanceman.drops.DropCache;
+import com.chanceman.drops.DropItem;
+import com.chanceman.drops.DropTableSection;
+import com.chanceman.drops.NpcDropData;
+import com.chanceman.scheduling.ClientTaskScheduler;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.game.ItemManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Feeds the locked pool its weights for the configured roll weighting.
+ *
+ * <p>Weights are read from two local tables: Grand Exchange prices for the
+ * tradeable universe, looked up once as a client-thread job, and the most
+ * common rate each item drops at across the cached drop tables. Switching
+ * mode swaps the pool's weigher in one pass; new prices or drop tables only
+ * touch the weights of the items they changed.</p>
+ */
+@Slf4j
+@Singleton
+public class RollWeights
+{
+    private static final int SCALE = 1_000_000;
+    /** Items without a cached drop source, relative to a guaranteed drop at {@link #SCALE}. */
+    private static final int NO_DROP_WEIGHT = SCALE / 20;
+    /** Price assumed for items the price table has not reached yet. */
+    private static final int UNKNOWN_PRICE = 10_000;
+    /** Price lookups per scheduler step. */
+    private static final int PRICE_STEP = 128;
+    private static final int[] NO_PRICES = new int[0];
+
+    private final ChanceManConfig config;
+    private final ItemManager itemManager;
+    private final DropCache dropCache;
+    private final LockedItemPool pool;
+    private final ClientTaskScheduler taskScheduler;
+
+    /** Price by item id, -1 where unknown. Replaced, never mutated, once published. */
+    private volatile int[] prices = NO_PRICES;
+    /** Best (lowest) drop rate denominator per item across cached tables. */
+    private volatile Map<Integer, Double> dropRates = Collections.emptyMap();
+
+    // Guarded by this
+    private RollWeighting mode;
+    private int dropVersion = -1;
+    private boolean dropsLoading;
+    private ClientTaskScheduler.Handle priceJob;
+    private ExecutorService worker;
+
+    @Inject
+    public RollWeights(ChanceManConfig config, ItemManager itemManager, DropCache dropCache,
+                       LockedItemPool pool, ClientTaskScheduler taskScheduler)
+    {
+        this.config = config;
+        this.itemManager = itemManager;
+        this.dropCache = dropCache;
+        this.pool = pool;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Apply the configured weighting to the pool. Call after the tradeable
+     * universe is installed and when the weighting setting changes.
+     */
+    public synchronized void refresh()
+    {
+        RollWeighting next = config.rollWeighting();
+        if (next != mode)
+        {
+            mode = next;
+            switch (next)
+            {
+                case CHEAP_ITEMS:
+                    pool.setWeigher(this::cheapWeight);
+                    break;
+                case KNOWN_DROPS:
+                    pool.setWeigher(this::dropWeight);
+                    break;
+                default:
+                    pool.setWeigher(null);
+                    break;
+            }
+        }
+
+        if (mode == RollWeighting.CHEAP_ITEMS)
+        {
+            priceMissing();
+        }
+        else if (mode == RollWeighting.KNOWN_DROPS)
+        {
+            refreshDropRates();
+        }
+    }
+
+    /** Pick up drop tables cached since the last look; cheap when nothing changed. */
+    public synchronized void refreshDropRates()
+    {
+        if (mode != RollWeighting.KNOWN_DROPS || dropsLoading || dropCache.getVersion() == dropVersion)
+        {
+            return;
+        }
+        dropsLoading = true;
+        worker().execute(this::loadDropRates);
+    }
+
+    public synchronized void shutDown()
+    {
+        if (priceJob != null)
+        {
+            priceJob.cancel();
+            priceJob = null;
+        }
+        if (worker != null)
+        {
+            worker.shutdownNow();
+            worker = null;
+        }
+        mode = null;
+        dropVersion = -1;
+        dropsLoading = false;
+        pool.setWeigher(null);
+    }
+
+    private int cheapWeight(int itemId)
+    {
+        int[] p = prices;
+        int price = itemId < p.length && p[itemId] >= 0 ? p[itemId] : UNKNOWN_PRICE;
+        double scale = 1 + Math.log10(1 + price);
+        return (int) Math.max(1, SCALE / (scale * scale));
+    }
+
+    private int dropWeight(int itemId)
+    {
+        Double rate = dropRates.get(itemId);
+        if (rate == null)
+        {
+            return NO_DROP_WEIGHT;
+        }
+        if (rate.isInfinite())
+        {
+            return SCALE / 10; // dropped somewhere, at an unparsed rate
+        }
+        return (int) (SCALE / (1 + Math.log10(Math.max(1, rate))));
+    }
+
+    /** Queue a client-thread job that prices every universe id not priced yet. */
+    private void priceMissing()
+    {
+        if (priceJob != null && !priceJob.isDone())
+        {
+            return;
+        }
+        final int[] known = prices;
+        final int[] ids = Arrays.stream(pool.getUniverse())
+                .filter(id -> id >= known.length || known[id] < 0)
+                .toArray();
+        if (ids.length == 0)
+        {
+            return;
+        }
+
+        final int maxId = Math.max(known.length - 1, Arrays.stream(ids).max().orElse(0));
+        final int[] next = Arrays.copyOf(known, maxId + 1);
+        Arrays.fill(next, known.length, next.length, -1);
+        final int[] cursor = {0};
+        priceJob = taskScheduler.submit("Roll weight prices", progress ->
+        {
+            int end = Math.min(ids.length, cursor[0] + PRICE_STEP);
+            for (int i = cursor[0]; i < end; i++)
+            {
+                next[ids[i]] = Math.max(0, itemManager.getItemPrice(ids[i]));
+            }
+            cursor[0] = end;
+            progress.update(end, ids.length);
+            return end == ids.length;
+        });
+        priceJob.getCompletion().thenRun(() ->
+        {
+            prices = next;
+            synchronized (this)
+            {
+                if (mode != RollWeighting.CHEAP_ITEMS)
+                {
+                    return;
+                }
+            }
+            for (int id : ids)
+            {
+                pool.setWeight(id, cheapWeight(id));
+            }
+        });
+    }
+
+    /** Worker: rebuild the drop rate table and re-weigh only the items it changed. */
+    private void loadDropRates()
+    {
+        try
+        {
+            int version = dropCache.getVersion();
+            Map<Integer, Double> next = new HashMap<>();
+            for (NpcDropData npc : dropCache.getAllNpcData())
+            {
+                if (npc.getDropTableSections() == null)
+                {
+                    continue;
+                }
+                for (DropTableSection section : npc.getDropTableSections())
+                {
+                    if (section.getItems() == null)
+                    {
+                        continue;
+                    }
+                    for (DropItem item : section.getItems())
+                    {
+                        if (item.getItemId() > 0)
+                        {
+                            next.merge(item.getItemId(), item.getRarityValue(), Math::min);
+                        }
+                    }
+                }
+            }
+
+            Map<Integer, Double> previous = dropRates;
+            dropRates = next;
+            Set<Integer> changed = new HashSet<>(next.keySet());
+            changed.addAll(previous.keySet());
+            changed.removeIf(id -> Objects.equals(previous.get(id), next.get(id)));
+
+            synchronized (this)
+            {
+                dropVersion = version;
+                if (mode != RollWeighting.KNOWN_DROPS)
+                {
+                    return;
+                }
+            }
+            for (int id : changed)
+            {
+                pool.setWeight(id, dropWeight(id));
+            }
+            log.debug("Roll weights: {} items with drop sources, {} re-weighed", next.size(), changed.size());
+        }
+        catch (Exception e)
+        {
+            log.warn("Could not build drop rate weights", e);
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                dropsLoading = false;
+            }
+        }
+    }
+
+    private ExecutorService worker()
+    {
+        if (worker == null || worker.isShutdown())
+        {
+            worker = Executors.newSingleThreadExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("chanceman-weights").setDaemon(true).build());
+        }
+        return worker;
+    }
+}
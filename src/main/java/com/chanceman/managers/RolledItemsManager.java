@@ -18,6 +18,8 @@ import java.nio.file.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
 
 import static net.runelite.client.RuneLite.RUNELITE_DIR;
 
@@ -37,14 +39,22 @@ public class RolledItemsManager
 
     private static final Type SET_TYPE = new TypeToken<Set<Integer>>(){}.getType();
     private final Set<Integer> rolledItems = Collections.synchronizedSet(new LinkedHashSet<>());
+    /** Bumped after every change, before listeners are told. */
+    private final AtomicLong version = new AtomicLong();
 
     @Inject private AccountManager accountManager;
     @Inject private ChanceManConfig config;
     @Inject private Gson gson;
     @Inject private ConfigPersistence configPersistence;
+    @Inject private LockedItemPool lockedPool;
 
     @Setter private ExecutorService executor; // file writes & cloud mirror
     @Setter private Runnable onChange; // optional UI refresh
+    /** Told each newly rolled id, or {@link #RELOADED} after the set is replaced. */
+    @Setter private IntConsumer onRolled;
+
+    /** {@link #onRolled} argument for a wholesale reload. */
+    public static final int RELOADED = -1;
 
     private volatile long lastConfigWriteMs = 0L;
     private volatile boolean configWriteWarned = false;
@@ -58,6 +68,21 @@ public class RolledItemsManager
 
     public boolean isRolled(int itemId) { return rolledItems.contains(itemId); }
 
+    /** Change counter; cheaper than a snapshot for checking whether anything moved. */
+    public long getVersion()
+    {
+        return version.get();
+    }
+
+    /** Items in insertion order together with the version they belong to. */
+    public ItemSetSnapshot getRolledSnapshot()
+    {
+        synchronized (rolledItems)
+        {
+            return new ItemSetSnapshot(version.get(), rolledItems);
+        }
+    }
+
     /** Return an immutable snapshot to avoid leaking the synchronizedSet. */
     public Set<Integer> getRolledItems()
     {
@@ -71,12 +96,43 @@ public class RolledItemsManager
     {
         if (rolledItems.add(itemId))
         {
+            lockedPool.remove(itemId);
+            notifyRolled(itemId);
             dirty = true;
             safeNotifyChange();
             saveRolledItems();
         }
     }
 
+    /** Mark several items with one save and one change notification. */
+    public void markRolledAll(int[] itemIds)
+    {
+        int[] added = new int[itemIds.length];
+        int n = 0;
+        synchronized (rolledItems)
+        {
+            for (int itemId : itemIds)
+            {
+                if (itemId > 0 && rolledItems.add(itemId))
+                {
+                    added[n++] = itemId;
+                }
+            }
+        }
+        if (n == 0)
+        {
+            return;
+        }
+        for (int i = 0; i < n; i++)
+        {
+            lockedPool.remove(added[i]);
+            notifyRolled(added[i]);
+        }
+        dirty = true;
+        safeNotifyChange();
+        saveRolledItems();
+    }
+
     /** Initial load + LWW reconciliation. */
     public void loadRolledItems()
     {
@@ -165,11 +221,7 @@ public class RolledItemsManager
             Path file = safeGetFilePathOrNull(FILE_NAME);
             if (file == null) return;
             Set<Integer> local = readLocalJson(file);
-            synchronized (rolledItems)
-            {
-                rolledItems.clear();
-                rolledItems.addAll(local);
-            }
+            replaceRolled(local);
             return;
         }
 
@@ -211,11 +263,7 @@ public class RolledItemsManager
         else if (cloudTs > localMtime) { winner = cloud; winnerStamp = cloudTs; needPersist = true; }
         else { winner = local; needPersist = !newFileExisted; }
 
-        synchronized (rolledItems)
-        {
-            rolledItems.clear();
-            rolledItems.addAll(winner);
-        }
+        replaceRolled(winner);
 
         if (needPersist)
         {
@@ -231,6 +279,28 @@ public class RolledItemsManager
         dirty = false;
     }
 
+    /** Swap in a reloaded set and rebuild the locked pool to match. */
+    private void replaceRolled(Set<Integer> items)
+    {
+        synchronized (rolledItems)
+        {
+            rolledItems.clear();
+            rolledItems.addAll(items);
+        }
+        lockedPool.resync(this::isRolled);
+        notifyRolled(RELOADED);
+    }
+
+    private void notifyRolled(int itemId)
+    {
+        IntConsumer cb = onRolled;
+        if (cb != null)
+        {
+            try { cb.accept(itemId); }
+            catch (Throwable t) { log.error("onRolled threw", t); }
+        }
+    }
+
     private void migrateLegacyLocalRolledIfNeeded()
     {
         Path rolledFile = safeGetFilePathOrNull(FILE_NAME); // chanceman_rolled.json (new rolled)
@@ -337,6 +407,7 @@ public class RolledItemsManager
 
     private void safeNotifyChange()
     {
+        version.incrementAndGet();
         Runnable cb = onChange;
         if (cb != null)
         {
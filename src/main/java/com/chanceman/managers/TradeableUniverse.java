@@ -0,0 +1,231 @@
+package com.chanceman.managers;
+
+import com.chanceman.filters.CompiledItemFilter;
+import com.chanceman.filters.PoisonWeapons;
+import com.chanceman.persist.TradeableUniverseCache;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.eventbus.EventBus;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The rollable item universe: scanned tradeables minus whatever the filters
+ * and the weapon poison rule leave out.
+ *
+ * <p>The scan is kept alongside the result, so a settings change or an
+ * unlock re-checks only the ids it can affect: the ids a filter toggle
+ * flips, the members items for free-to-play mode, or the poisoned variants
+ * that hang off a weapon or weapon poison. Changes are patched into the item
+ * set and the locked pool in place, and a {@link TradeableUniverseChanged}
+ * is posted.</p>
+ */
+@Slf4j
+@Singleton
+public class TradeableUniverse
+{
+    private final LockedItemPool lockedPool;
+    private final RolledItemsManager rolledManager;
+    private final EventBus eventBus;
+
+    /** Universe in insertion order; lock on it when reading from other threads. */
+    @Getter
+    private final Set<Integer> items = new LinkedHashSet<>();
+
+    // Guarded by this
+    private TradeableUniverseCache.Scan scan;
+    private CompiledItemFilter filter;
+    private boolean requirePoison;
+    private final BitSet universe = new BitSet();
+
+    /** Copy of {@link #universe} for lock-free membership checks. */
+    private volatile BitSet published = new BitSet();
+
+    @Inject
+    public TradeableUniverse(LockedItemPool lockedPool, RolledItemsManager rolledManager, EventBus eventBus)
+    {
+        this.lockedPool = lockedPool;
+        this.rolledManager = rolledManager;
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Build the universe from a scan. The caller hands {@link #getItems()} to
+     * whoever rebuilds the locked pool.
+     */
+    public void install(TradeableUniverseCache.Scan scan, CompiledItemFilter filter, boolean requirePoison)
+    {
+        TradeableUniverseChanged event;
+        synchronized (this)
+        {
+            this.scan = scan;
+            this.filter = filter;
+            this.requirePoison = requirePoison;
+            universe.clear();
+            BitSet tradeable = scan.getTradeable();
+            for (int id = tradeable.nextSetBit(0); id >= 0; id = tradeable.nextSetBit(id + 1))
+            {
+                if (isEligible(id))
+                {
+                    universe.set(id);
+                }
+            }
+            synchronized (items)
+            {
+                items.clear();
+                for (int id = universe.nextSetBit(0); id >= 0; id = universe.nextSetBit(id + 1))
+                {
+                    items.add(id);
+                }
+            }
+            published = (BitSet) universe.clone();
+            event = new TradeableUniverseChanged(true, universe.cardinality(), 0, universe.cardinality());
+        }
+        eventBus.post(event);
+    }
+
+    /**
+     * Apply new filter settings, re-checking only the ids they can change.
+     * Does nothing until a universe is installed.
+     */
+    public void reconfigure(CompiledItemFilter next, boolean nextRequirePoison)
+    {
+        BitSet affected;
+        synchronized (this)
+        {
+            if (scan == null)
+            {
+                return;
+            }
+            affected = next.changedFrom(filter);
+            if (next.isFreeToPlay() != filter.isFreeToPlay())
+            {
+                affected.or(scan.getMembers());
+            }
+            if (nextRequirePoison != requirePoison)
+            {
+                for (int id : PoisonWeapons.getAllPoisonedVariantIds())
+                {
+                    affected.set(id);
+                }
+            }
+            filter = next;
+            requirePoison = nextRequirePoison;
+        }
+        patch(affected);
+    }
+
+    /**
+     * Rolled-item hook: a weapon or weapon poison unlock can make poisoned
+     * variants eligible. {@link RolledItemsManager#RELOADED} re-checks them all.
+     */
+    public void onRolled(int itemId)
+    {
+        synchronized (this)
+        {
+            if (scan == null || !requirePoison)
+            {
+                return;
+            }
+        }
+        int[] ids = itemId == RolledItemsManager.RELOADED
+                ? PoisonWeapons.getAllPoisonedVariantIds()
+                : PoisonWeapons.variantsDependingOn(itemId);
+        if (ids.length == 0)
+        {
+            return;
+        }
+        BitSet affected = new BitSet();
+        for (int id : ids)
+        {
+            affected.set(id);
+        }
+        patch(affected);
+    }
+
+    public synchronized void clear()
+    {
+        scan = null;
+        filter = null;
+        universe.clear();
+        synchronized (items)
+        {
+            items.clear();
+        }
+        published = new BitSet();
+    }
+
+    /** The scan the universe was built from, or null before the first install. */
+    public synchronized TradeableUniverseCache.Scan getScan()
+    {
+        return scan;
+    }
+
+    /** Whether the item is in the universe. Safe from any thread. */
+    public boolean contains(int itemId)
+    {
+        return itemId >= 0 && published.get(itemId);
+    }
+
+    private void patch(BitSet affected)
+    {
+        TradeableUniverseChanged event;
+        synchronized (this)
+        {
+            if (scan == null)
+            {
+                return;
+            }
+            int added = 0;
+            int removed = 0;
+            for (int id = affected.nextSetBit(0); id >= 0; id = affected.nextSetBit(id + 1))
+            {
+                boolean want = isEligible(id);
+                if (want == universe.get(id))
+                {
+                    continue;
+                }
+                if (want)
+                {
+                    universe.set(id);
+                    synchronized (items)
+                    {
+                        items.add(id);
+                    }
+                    lockedPool.addToUniverse(id, rolledManager.isRolled(id));
+                    added++;
+                }
+                else
+                {
+                    universe.clear(id);
+                    synchronized (items)
+                    {
+                        items.remove(id);
+                    }
+                    lockedPool.removeFromUniverse(id);
+                    removed++;
+                }
+            }
+            if (added == 0 && removed == 0)
+            {
+                return;
+            }
+            published = (BitSet) universe.clone();
+            event = new TradeableUniverseChanged(false, added, removed, universe.cardinality());
+            log.debug("Patched tradeable universe: {} of {} checked ids changed", added + removed, affected.cardinality());
+        }
+        eventBus.post(event);
+    }
+
+    private boolean isEligible(int id)
+    {
+        return scan.getTradeable().get(id)
+                && filter.isAllowed(id)
+                && !(filter.isFreeToPlay() && scan.getMembers().get(id))
+                && (!requirePoison || filter.isPoisonEligible(id, rolledManager::isRolled));
+    }
+}
@@ -0,0 +1,36 @@
+package com.chanceman.managers;
+
+import lombok.Getter;
+
+/**
+ * Posted after the rollable item universe changes, either installed whole
+ * or patched for a settings change or a weapon poison unlock.
+ */
+@Getter
+public class TradeableUniverseChanged
+{
+    /** True when the universe was replaced rather than patched. */
+    private final boolean full;
+    private final int added;
+    private final int removed;
+    private final int size;
+
+    public TradeableUniverseChanged(boolean full, int added, int removed, int size)
+    {
+        this.full = full;
+        this.added = added;
+        this.removed = removed;
+        this.size = size;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TradeableUniverseChanged{" +
+                "full=" + full +
+                ", added=" + added +
+                ", removed=" + removed +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,134 @@
+package com.chanceman.party;
+
+import com.google.gson.annotations.SerializedName;
+import net.runelite.client.party.messages.PartyMemberMessage;
+
+import java.util.Arrays;
+
+/**
+ * Version 2 of the roll broadcast: every roll a member made in one game tick,
+ * sent as a single party message.
+ *
+ * Event ids are numeric and consecutive within a batch, so only the first is
+ * sent; roll {@code i} has id {@code firstEventId + i}. Item ids travel as two
+ * parallel arrays and manual rolls as a list of indexes, which is omitted when
+ * empty. Receivers apply a batch as one unit. {@link GroupChanceManRollMessage}
+ * is still accepted from older clients.
+ */
+public class GroupChanceManRollBatchMessage extends PartyMemberMessage
+{
+    @SerializedName("i")
+    private long firstEventId;
+    @SerializedName("t")
+    private long createdAt;
+    @SerializedName("o")
+    private int[] obtainedItemIds;
+    @SerializedName("r")
+    private int[] rolledItemIds;
+    @SerializedName("m")
+    private int[] manualIndexes;
+
+    // Required public no-arg ctor for Gson
+    public GroupChanceManRollBatchMessage() {}
+
+    private GroupChanceManRollBatchMessage(long firstEventId, long createdAt, int[] obtainedItemIds,
+                                           int[] rolledItemIds, int[] manualIndexes)
+    {
+        this.firstEventId = firstEventId;
+        this.createdAt = createdAt;
+        this.obtainedItemIds = obtainedItemIds;
+        this.rolledItemIds = rolledItemIds;
+        this.manualIndexes = manualIndexes;
+    }
+
+    public long getFirstEventId() { return firstEventId; }
+    public long getCreatedAt() { return createdAt; }
+
+    /** Number of rolls; 0 for a malformed message. */
+    public int size()
+    {
+        if (obtainedItemIds == null || rolledItemIds == null || obtainedItemIds.length != rolledItemIds.length)
+        {
+            return 0;
+        }
+        return rolledItemIds.length;
+    }
+
+    public long getEventId(int i) { return firstEventId + i; }
+    public int getObtainedItemId(int i) { return obtainedItemIds[i]; }
+    public int getRolledItemId(int i) { return rolledItemIds[i]; }
+
+    public boolean isManual(int i)
+    {
+        if (manualIndexes != null)
+        {
+            for (int m : manualIndexes)
+            {
+                if (m == i)
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Collects one tick's rolls; event ids must be handed out consecutively. */
+    public static final class Builder
+    {
+        private long firstEventId;
+        private int[] obtained = new int[8];
+        private int[] rolled = new int[8];
+        private int[] manual = new int[0];
+        private int size;
+        private int manualCount;
+
+        public void add(long eventId, int obtainedItemId, int rolledItemId, boolean isManual)
+        {
+            if (size == 0)
+            {
+                firstEventId = eventId;
+            }
+            else if (eventId != firstEventId + size)
+            {
+                throw new IllegalArgumentException("event ids must be consecutive");
+            }
+            if (size == rolled.length)
+            {
+                obtained = Arrays.copyOf(obtained, size * 2);
+                rolled = Arrays.copyOf(rolled, size * 2);
+            }
+            if (isManual)
+            {
+                if (manualCount == manual.length)
+                {
+                    manual = Arrays.copyOf(manual, Math.max(4, manualCount * 2));
+                }
+                manual[manualCount++] = size;
+            }
+            obtained[size] = obtainedItemId;
+            rolled[size] = rolledItemId;
+            size++;
+        }
+
+        public boolean isEmpty()
+        {
+            return size == 0;
+        }
+
+        /** Build the message and start a new, empty batch. */
+        public GroupChanceManRollBatchMessage build(long createdAt)
+        {
+            GroupChanceManRollBatchMessage msg = new GroupChanceManRollBatchMessage(
+                    firstEventId,
+                    createdAt,
+                    Arrays.copyOf(obtained, size),
+                    Arrays.copyOf(rolled, size),
+                    manualCount > 0 ? Arrays.copyOf(manual, manualCount) : null
+            );
+            size = 0;
+            manualCount = 0;
+            return msg;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.chanceman.party;
+
+import com.google.gson.annotations.SerializedName;
+import net.runelite.client.party.messages.PartyMemberMessage;
+
+/**
+ * Asks one member to send a run of its roll events again after the receiver
+ * saw a gap in that member's sequence. The answer is an ordinary
+ * {@link GroupChanceManRollBatchMessage}.
+ */
+public class GroupChanceManRollResendMessage extends PartyMemberMessage
+{
+    @SerializedName("to")
+    private long targetMemberId;
+    @SerializedName("f")
+    private long firstEventId;
+    @SerializedName("l")
+    private long lastEventId;
+
+    // Required public no-arg ctor for Gson
+    public GroupChanceManRollResendMessage() {}
+
+    public GroupChanceManRollResendMessage(long targetMemberId, long firstEventId, long lastEventId)
+    {
+        this.targetMemberId = targetMemberId;
+        this.firstEventId = firstEventId;
+        this.lastEventId = lastEventId;
+    }
+
+    public long getTargetMemberId() { return targetMemberId; }
+    public long getFirstEventId() { return firstEventId; }
+    public long getLastEventId() { return lastEventId; }
+}
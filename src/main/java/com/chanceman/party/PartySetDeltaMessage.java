@@ -0,0 +1,42 @@
+package com.chanceman.party;
+
+import com.google.gson.annotations.SerializedName;
+import net.runelite.client.party.messages.PartyMemberMessage;
+
+/**
+ * Ids the sender holds in segments that differ from the target's, plus a
+ * bit mask per set of segments the target should send back. The answer to a
+ * request carries ids only, never another request.
+ */
+public class PartySetDeltaMessage extends PartyMemberMessage
+{
+    @SerializedName("to")
+    private long targetMemberId;
+    @SerializedName("r")
+    private int[] rolledItemIds;
+    @SerializedName("o")
+    private int[] obtainedItemIds;
+    @SerializedName("rq")
+    private long rolledRequest;
+    @SerializedName("oq")
+    private long obtainedRequest;
+
+    // Required public no-arg ctor for Gson
+    public PartySetDeltaMessage() {}
+
+    public PartySetDeltaMessage(long targetMemberId, int[] rolledItemIds, int[] obtainedItemIds,
+                                long rolledRequest, long obtainedRequest)
+    {
+        this.targetMemberId = targetMemberId;
+        this.rolledItemIds = rolledItemIds;
+        this.obtainedItemIds = obtainedItemIds;
+        this.rolledRequest = rolledRequest;
+        this.obtainedRequest = obtainedRequest;
+    }
+
+    public long getTargetMemberId() { return targetMemberId; }
+    public int[] getRolledItemIds() { return rolledItemIds != null ? rolledItemIds : new int[0]; }
+    public int[] getObtainedItemIds() { return obtainedItemIds != null ? obtainedItemIds : new int[0]; }
+    public long getRolledRequest() { return rolledRequest; }
+    public long getObtainedRequest() { return obtainedRequest; }
+}
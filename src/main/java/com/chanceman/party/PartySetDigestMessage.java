@@ -0,0 +1,35 @@
+package com.chanceman.party;
+
+import com.google.gson.annotations.SerializedName;
+import net.runelite.client.party.messages.PartyMemberMessage;
+
+/**
+ * Periodic anti-entropy advert: the root hash and size of the sender's rolled
+ * and obtained sets. A member whose roots differ answers with
+ * {@link PartySetSegmentsMessage}.
+ */
+public class PartySetDigestMessage extends PartyMemberMessage
+{
+    @SerializedName("r")
+    private long rolledRoot;
+    @SerializedName("rn")
+    private int rolledCount;
+    @SerializedName("o")
+    private long obtainedRoot;
+    @SerializedName("on")
+    private int obtainedCount;
+
+    // Required public no-arg ctor for Gson
+    public PartySetDigestMessage() {}
+
+    public PartySetDigestMessage(SetDigest rolled, SetDigest obtained)
+    {
+        this.rolledRoot = rolled.getRoot();
+        this.rolledCount = rolled.getCount();
+        this.obtainedRoot = obtained.getRoot();
+        this.obtainedCount = obtained.getCount();
+    }
+
+    public boolean rolledMatches(SetDigest d) { return d.getRoot() == rolledRoot && d.getCount() == rolledCount; }
+    public boolean obtainedMatches(SetDigest d) { return d.getRoot() == obtainedRoot && d.getCount() == obtainedCount; }
+}
@@ -0,0 +1,33 @@
+package com.chanceman.party;
+
+import com.google.gson.annotations.SerializedName;
+import net.runelite.client.party.messages.PartyMemberMessage;
+
+/**
+ * Reply to a mismatched {@link PartySetDigestMessage}: the segment hashes of
+ * each set whose root differed, addressed to the advertising member. A set
+ * that matched is left out.
+ */
+public class PartySetSegmentsMessage extends PartyMemberMessage
+{
+    @SerializedName("to")
+    private long targetMemberId;
+    @SerializedName("r")
+    private long[] rolledSegments;
+    @SerializedName("o")
+    private long[] obtainedSegments;
+
+    // Required public no-arg ctor for Gson
+    public PartySetSegmentsMessage() {}
+
+    public PartySetSegmentsMessage(long targetMemberId, long[] rolledSegments, long[] obtainedSegments)
+    {
+        this.targetMemberId = targetMemberId;
+        this.rolledSegments = rolledSegments;
+        this.obtainedSegments = obtainedSegments;
+    }
+
+    public long getTargetMemberId() { return targetMemberId; }
+    public long[] getRolledSegments() { return rolledSegments; }
+    public long[] getObtainedSegments() { return obtainedSegments; }
+}
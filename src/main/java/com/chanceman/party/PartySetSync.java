@@ -0,0 +1,257 @@
+package com.chanceman.party;
+
+import com.chanceman.managers.ObtainedItemsManager;
+import com.chanceman.managers.RolledItemsManager;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.events.GameTick;
+import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.PartyChanged;
+import net.runelite.client.party.PartyMember;
+import net.runelite.client.party.PartyService;
+import net.runelite.client.party.events.UserJoin;
+import net.runelite.client.party.messages.PartyMemberMessage;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Anti-entropy for the rolled and obtained sets over the party, for members
+ * who missed live roll messages and have no shared folder to catch up from.
+ *
+ * Every {@link #DIGEST_INTERVAL_TICKS} ticks, and shortly after someone
+ * joins, each member advertises the root hashes of its two sets
+ * ({@link PartySetDigestMessage}). A member whose roots differ answers with its
+ * segment hashes; the advertiser then sends its ids for the differing segments
+ * and asks for the other side's, which come back minus the ids just received.
+ * Sets only grow, so both sides merge by union and match after those three
+ * messages, however large the sets are. Handlers may run off the client
+ * thread; they only touch snapshots and the managers' thread-safe marks, and
+ * they ignore messages once {@link #shutDown()} has run, since a handler can
+ * still be called while the event bus is unregistering it.
+ */
+@Slf4j
+@Singleton
+public class PartySetSync
+{
+    /** About 30 seconds. */
+    private static final int DIGEST_INTERVAL_TICKS = 50;
+    /** Give a joining member a moment to load its sets before comparing. */
+    private static final int JOIN_DELAY_TICKS = 5;
+
+    private final PartyService partyService;
+    private final RolledItemsManager rolledManager;
+    private final ObtainedItemsManager obtainedManager;
+
+    private volatile boolean active;
+    private int ticksUntilDigest = JOIN_DELAY_TICKS;
+    private volatile SetDigest rolledDigest;
+    private volatile SetDigest obtainedDigest;
+
+    @Inject
+    public PartySetSync(PartyService partyService, RolledItemsManager rolledManager,
+                        ObtainedItemsManager obtainedManager)
+    {
+        this.partyService = partyService;
+        this.rolledManager = rolledManager;
+        this.obtainedManager = obtainedManager;
+    }
+
+    public synchronized void startUp()
+    {
+        active = true;
+    }
+
+    public synchronized void shutDown()
+    {
+        active = false;
+        ticksUntilDigest = JOIN_DELAY_TICKS;
+        rolledDigest = null;
+        obtainedDigest = null;
+    }
+
+    @Subscribe
+    public void onGameTick(GameTick event)
+    {
+        if (!ready() || !partyService.isInParty())
+        {
+            return;
+        }
+        if (!digestDue())
+        {
+            return;
+        }
+        send(new PartySetDigestMessage(rolled(), obtained()));
+    }
+
+    @Subscribe
+    public void onUserJoin(UserJoin event)
+    {
+        digestSoon();
+    }
+
+    @Subscribe
+    public void onPartyChanged(PartyChanged event)
+    {
+        digestSoon();
+    }
+
+    /** Step 1: compare roots; on a mismatch send our segment hashes back. */
+    @Subscribe
+    public void onPartySetDigestMessage(PartySetDigestMessage msg)
+    {
+        if (!ready() || isFromSelf(msg))
+        {
+            return;
+        }
+        SetDigest rolled = rolled();
+        SetDigest obtained = obtained();
+        boolean rolledDiffers = !msg.rolledMatches(rolled);
+        boolean obtainedDiffers = !msg.obtainedMatches(obtained);
+        if (!rolledDiffers && !obtainedDiffers)
+        {
+            return;
+        }
+        send(new PartySetSegmentsMessage(
+                msg.getMemberId(),
+                rolledDiffers ? rolled.getSegments() : null,
+                obtainedDiffers ? obtained.getSegments() : null
+        ));
+    }
+
+    /** Step 2: push our ids for differing segments and request theirs. */
+    @Subscribe
+    public void onPartySetSegmentsMessage(PartySetSegmentsMessage msg)
+    {
+        if (!ready() || !isForSelf(msg.getTargetMemberId()))
+        {
+            return;
+        }
+        SetDigest rolled = rolled();
+        SetDigest obtained = obtained();
+        long rolledMask = rolled.diffMask(msg.getRolledSegments());
+        long obtainedMask = obtained.diffMask(msg.getObtainedSegments());
+        if (rolledMask == 0L && obtainedMask == 0L)
+        {
+            return;
+        }
+        send(new PartySetDeltaMessage(
+                msg.getMemberId(),
+                SetDigest.idsIn(rolledManager.getRolledSnapshot().getItems(), rolledMask, null),
+                SetDigest.idsIn(obtainedManager.getObtainedSnapshot().getItems(), obtainedMask, null),
+                rolledMask,
+                obtainedMask
+        ));
+    }
+
+    /** Step 3: merge what arrived and, if asked, answer with what the sender lacks. */
+    @Subscribe
+    public void onPartySetDeltaMessage(PartySetDeltaMessage msg)
+    {
+        if (!ready() || !isForSelf(msg.getTargetMemberId()))
+        {
+            return;
+        }
+        int[] rolledIds = msg.getRolledItemIds();
+        int[] obtainedIds = msg.getObtainedItemIds();
+        rolledManager.markRolledAll(rolledIds);
+        obtainedManager.markObtainedAll(obtainedIds);
+        if (rolledIds.length + obtainedIds.length > 0)
+        {
+            log.debug("Party sync merged {} rolled and {} obtained ids", rolledIds.length, obtainedIds.length);
+        }
+
+        if (msg.getRolledRequest() == 0L && msg.getObtainedRequest() == 0L)
+        {
+            return;
+        }
+        int[] rolledReply = SetDigest.idsIn(rolledManager.getRolledSnapshot().getItems(),
+                msg.getRolledRequest(), toSet(rolledIds));
+        int[] obtainedReply = SetDigest.idsIn(obtainedManager.getObtainedSnapshot().getItems(),
+                msg.getObtainedRequest(), toSet(obtainedIds));
+        if (rolledReply.length + obtainedReply.length == 0)
+        {
+            return;
+        }
+        send(new PartySetDeltaMessage(msg.getMemberId(), rolledReply, obtainedReply, 0L, 0L));
+    }
+
+    /** Running, with the rolled set loaded so merges and replies see the real set. */
+    private boolean ready()
+    {
+        return active && rolledManager.ready();
+    }
+
+    private synchronized boolean digestDue()
+    {
+        if (--ticksUntilDigest > 0)
+        {
+            return false;
+        }
+        ticksUntilDigest = DIGEST_INTERVAL_TICKS;
+        return true;
+    }
+
+    private synchronized void digestSoon()
+    {
+        ticksUntilDigest = Math.min(ticksUntilDigest, JOIN_DELAY_TICKS);
+    }
+
+    /** Digest of the current rolled set, recomputed only after it changed. */
+    private SetDigest rolled()
+    {
+        SetDigest d = rolledDigest;
+        if (d == null || d.getVersion() != rolledManager.getVersion())
+        {
+            d = SetDigest.of(rolledManager.getRolledSnapshot());
+            rolledDigest = d;
+        }
+        return d;
+    }
+
+    private SetDigest obtained()
+    {
+        SetDigest d = obtainedDigest;
+        if (d == null || d.getVersion() != obtainedManager.getVersion())
+        {
+            d = SetDigest.of(obtainedManager.getObtainedSnapshot());
+            obtainedDigest = d;
+        }
+        return d;
+    }
+
+    private boolean isFromSelf(PartyMemberMessage msg)
+    {
+        PartyMember local = partyService.getLocalMember();
+        return local == null || local.getMemberId() == msg.getMemberId();
+    }
+
+    private boolean isForSelf(long targetMemberId)
+    {
+        PartyMember local = partyService.getLocalMember();
+        return local != null && local.getMemberId() == targetMemberId;
+    }
+
+    private void send(PartyMemberMessage msg)
+    {
+        try
+        {
+            partyService.send(msg);
+        }
+        catch (Exception e)
+        {
+            log.debug("Party sync send failed", e);
+        }
+    }
+
+    private static Set<Integer> toSet(int[] ids)
+    {
+        Set<Integer> set = new HashSet<>(ids.length * 2);
+        for (int id : ids)
+        {
+            set.add(id);
+        }
+        return set;
+    }
+}
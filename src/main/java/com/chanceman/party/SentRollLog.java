@@ -0,0 +1,61 @@
+package com.chanceman.party;
+
+/**
+ * The last {@link #CAPACITY} roll events this client sent, kept so that a
+ * member who reports a gap can be sent them again. Event ids are
+ * consecutive, so the log is a ring indexed by sequence number.
+ */
+public final class SentRollLog
+{
+    private static final int CAPACITY = 256;
+
+    private final long[] eventIds = new long[CAPACITY];
+    private final int[] obtained = new int[CAPACITY];
+    private final int[] rolled = new int[CAPACITY];
+    private final boolean[] manual = new boolean[CAPACITY];
+    private long newest = -1;
+    private int size;
+
+    public synchronized void add(long eventId, int obtainedItemId, int rolledItemId, boolean isManual)
+    {
+        int slot = (int) (eventId & (CAPACITY - 1));
+        eventIds[slot] = eventId;
+        obtained[slot] = obtainedItemId;
+        rolled[slot] = rolledItemId;
+        manual[slot] = isManual;
+        newest = eventId;
+        size = Math.min(CAPACITY, size + 1);
+    }
+
+    /**
+     * The logged events between the two ids, inclusive, as one batch; null if
+     * none of them are still logged.
+     */
+    public synchronized GroupChanceManRollBatchMessage slice(long firstEventId, long lastEventId, long createdAt)
+    {
+        if (size == 0 || (firstEventId >>> 32) != (newest >>> 32))
+        {
+            return null; // nothing sent yet, or asked about another session
+        }
+        long oldest = newest - size + 1;
+        long from = Math.max(firstEventId, oldest);
+        long to = Math.min(lastEventId, newest);
+        if (from > to)
+        {
+            return null;
+        }
+        GroupChanceManRollBatchMessage.Builder batch = new GroupChanceManRollBatchMessage.Builder();
+        for (long id = from; id <= to; id++)
+        {
+            int slot = (int) (id & (CAPACITY - 1));
+            batch.add(eventIds[slot], obtained[slot], rolled[slot], manual[slot]);
+        }
+        return batch.build(createdAt);
+    }
+
+    public synchronized void clear()
+    {
+        newest = -1;
+        size = 0;
+    }
+}
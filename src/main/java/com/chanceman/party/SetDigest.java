@@ -0,0 +1,107 @@
+package com.chanceman.party;
+
+import com.chanceman.managers.ItemSetSnapshot;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Order-independent summary of an item id set for anti-entropy sync.
+ *
+ * Ids are spread over {@link #SEGMENTS} segments by a mixed hash; a segment's
+ * hash is the sum of its ids' mixed values, so two members holding the same
+ * ids agree on every segment whatever order the ids arrived in. The root
+ * folds the segment hashes and is what members advertise; segments are only
+ * exchanged when roots differ, and ids only for segments that differ.
+ */
+@Getter
+public final class SetDigest
+{
+    /** One bit per segment fits a {@code long} mask. */
+    public static final int SEGMENTS = 64;
+
+    private final long version;
+    private final int count;
+    private final long root;
+    private final long[] segments;
+
+    private SetDigest(long version, int count, long[] segments)
+    {
+        this.version = version;
+        this.count = count;
+        this.segments = segments;
+        long h = count;
+        for (long s : segments)
+        {
+            h = mix(h * 31 + s);
+        }
+        this.root = h;
+    }
+
+    public static SetDigest of(ItemSetSnapshot snapshot)
+    {
+        return of(snapshot.getVersion(), snapshot.getItems());
+    }
+
+    static SetDigest of(long version, Set<Integer> items)
+    {
+        long[] segments = new long[SEGMENTS];
+        for (int id : items)
+        {
+            long m = mix(id);
+            segments[segmentOf(m)] += m;
+        }
+        return new SetDigest(version, items.size(), segments);
+    }
+
+    /** Bit {@code i} set where segment {@code i} differs from {@code other}'s. */
+    public long diffMask(long[] other)
+    {
+        if (other == null || other.length != SEGMENTS)
+        {
+            return 0L;
+        }
+        long mask = 0L;
+        for (int i = 0; i < SEGMENTS; i++)
+        {
+            if (segments[i] != other[i])
+            {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /** Ids of {@code items} in the masked segments, skipping any in {@code exclude}. */
+    public static int[] idsIn(Set<Integer> items, long mask, Set<Integer> exclude)
+    {
+        if (mask == 0L)
+        {
+            return new int[0];
+        }
+        int[] out = new int[items.size()];
+        int n = 0;
+        for (int id : items)
+        {
+            if ((mask & (1L << segmentOf(mix(id)))) != 0 && (exclude == null || !exclude.contains(id)))
+            {
+                out[n++] = id;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int segmentOf(long mixed)
+    {
+        return (int) (mixed >>> 58); // top 6 bits
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
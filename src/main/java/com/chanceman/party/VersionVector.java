@@ -0,0 +1,99 @@
+package com.chanceman.party;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Highest roll sequence seen from each party member, plus a 64-event window
+ * below it, for dedupe and gap detection.
+ *
+ * A v2 event id is a random per-session epoch in the high word and the
+ * sender's sequence number in the low word. Checking an event is an integer
+ * compare and a bit test: newer than the highest seen is new, older than the
+ * window is treated as already applied (anti-entropy covers anything truly
+ * lost that far back), and in between the window bit decides. Jumping ahead
+ * by more than one reports the skipped sequence numbers as a gap. A new epoch
+ * from a member means it restarted, and its entry starts over.
+ */
+public final class VersionVector
+{
+    private static final int WINDOW = 64;
+
+    /** Told about sequence numbers that were skipped. Ids are inclusive. */
+    public interface GapListener
+    {
+        void onGap(long memberId, long firstEventId, long lastEventId);
+    }
+
+    private static final class Clock
+    {
+        int epoch;
+        long highest;
+        /** Bit {@code k} set when {@code highest - k} has been seen. */
+        long window;
+    }
+
+    private final Map<Long, Clock> clocks = new ConcurrentHashMap<>();
+
+    /**
+     * Record an event from {@code memberId}.
+     *
+     * @return false if it was already seen or is too old to tell
+     */
+    public boolean accept(long memberId, long eventId, GapListener gaps)
+    {
+        final int epoch = (int) (eventId >>> 32);
+        final long seq = eventId & 0xFFFFFFFFL;
+        final Clock clock = clocks.computeIfAbsent(memberId, k -> new Clock());
+        long gapFrom = -1;
+        long gapTo = -1;
+        synchronized (clock)
+        {
+            if (clock.window == 0L || clock.epoch != epoch)
+            {
+                // First event of this session: it is the baseline, nothing before it is owed.
+                clock.epoch = epoch;
+                clock.highest = seq;
+                clock.window = 1L;
+                return true;
+            }
+            if (seq > clock.highest)
+            {
+                long shift = seq - clock.highest;
+                if (shift > 1)
+                {
+                    gapFrom = Math.max(clock.highest + 1, seq - (WINDOW - 1));
+                    gapTo = seq - 1;
+                }
+                clock.window = shift >= WINDOW ? 1L : (clock.window << shift) | 1L;
+                clock.highest = seq;
+            }
+            else
+            {
+                long age = clock.highest - seq;
+                if (age >= WINDOW || (clock.window & (1L << age)) != 0)
+                {
+                    return false;
+                }
+                clock.window |= 1L << age;
+                return true;
+            }
+        }
+        if (gapFrom >= 0 && gaps != null)
+        {
+            long base = (long) epoch << 32;
+            gaps.onGap(memberId, base | gapFrom, base | gapTo);
+        }
+        return true;
+    }
+
+    public void forget(long memberId)
+    {
+        clocks.remove(memberId);
+    }
+
+    public void clear()
+    {
+        clocks.clear();
+    }
+}
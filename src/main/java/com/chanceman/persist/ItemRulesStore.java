@@ -0,0 +1,244 @@
+package com.chanceman.persist;
+
+import static net.runelite.client.RuneLite.RUNELITE_DIR;
+
+import com.chanceman.filters.ItemRules;
+import com.google.gson.Gson;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Loads the user rule files from {@code .runelite/chanceman/rules/*.json}
+ * and reloads them when any file in that folder changes.
+ *
+ * <p>A file that fails to parse is skipped with a warning and the rest still
+ * apply. The owner is told through {@link #setOnChange} after each reload
+ * and recompiles its filters from {@link #getRules()}.</p>
+ */
+@Slf4j
+@Singleton
+public class ItemRulesStore
+{
+    private static final long FS_DEBOUNCE_MS = 300L;
+    private static final String README = "README.txt";
+
+    private final Gson gson;
+
+    @Setter private Runnable onChange;
+
+    private volatile List<ItemRules.RuleFile> rules = Collections.emptyList();
+    private volatile List<String> lastProblems = Collections.emptyList();
+
+    private WatchService watchService;
+    private volatile boolean watcherRunning;
+    private Thread watcherThread;
+
+    @Inject
+    public ItemRulesStore(Gson gson)
+    {
+        this.gson = gson;
+    }
+
+    /** Rule files as last loaded, in file name order. */
+    public List<ItemRules.RuleFile> getRules()
+    {
+        return rules;
+    }
+
+    /**
+     * Resolve the loaded rules against a scan. Rules that could not be read
+     * are logged once per distinct set of problems.
+     */
+    public ItemRules.Compiled compile(TradeableUniverseCache.Scan scan, Map<Integer, String> names)
+    {
+        ItemRules.Compiled compiled = ItemRules.compile(rules, names, scan.getCategories(), scan.getTradeable());
+        if (!compiled.getProblems().equals(lastProblems))
+        {
+            lastProblems = compiled.getProblems();
+            if (!lastProblems.isEmpty())
+            {
+                log.warn("Ignoring item rules that could not be understood: {}", lastProblems);
+            }
+        }
+        return compiled;
+    }
+
+    /** Load the rules now and start watching the folder. */
+    public synchronized void startUp()
+    {
+        Path dir = dir();
+        try
+        {
+            if (!Files.isDirectory(dir))
+            {
+                Files.createDirectories(dir);
+                writeReadme(dir);
+            }
+        }
+        catch (IOException e)
+        {
+            log.warn("Could not create rules folder {}", dir, e);
+            return;
+        }
+        rules = load(dir);
+        startWatching(dir);
+    }
+
+    public synchronized void shutDown()
+    {
+        watcherRunning = false;
+        if (watcherThread != null) watcherThread.interrupt();
+        closeWatchServiceQuietly();
+        watcherThread = null;
+        rules = Collections.emptyList();
+    }
+
+    private List<ItemRules.RuleFile> load(Path dir)
+    {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir))
+        {
+            files = new ArrayList<>();
+            stream.filter(p -> p.getFileName().toString().toLowerCase().endsWith(".json"))
+                    .sorted()
+                    .forEach(files::add);
+        }
+        catch (IOException e)
+        {
+            log.warn("Could not list rules folder {}", dir, e);
+            return rules;
+        }
+
+        List<ItemRules.RuleFile> loaded = new ArrayList<>(files.size());
+        for (Path file : files)
+        {
+            try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+            {
+                ItemRules.RuleFile rule = gson.fromJson(r, ItemRules.RuleFile.class);
+                if (rule != null)
+                {
+                    loaded.add(rule);
+                }
+            }
+            catch (Exception e)
+            {
+                log.warn("Skipping unreadable rule file {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+        log.debug("Loaded {} item rule files", loaded.size());
+        return Collections.unmodifiableList(loaded);
+    }
+
+    private void startWatching(Path dir)
+    {
+        if (watcherRunning) return;
+        try
+        {
+            watchService = FileSystems.getDefault().newWatchService();
+            dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        }
+        catch (IOException e)
+        {
+            closeWatchServiceQuietly();
+            log.warn("Rules watcher: could not register", e);
+            return;
+        }
+
+        watcherRunning = true;
+        watcherThread = new Thread(() -> runWatcherLoop(dir), "ChanceMan-Rules-Watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    private void runWatcherLoop(Path dir)
+    {
+        try
+        {
+            while (watcherRunning)
+            {
+                WatchKey key;
+                try { key = watchService.take(); }
+                catch (InterruptedException | ClosedWatchServiceException ie) { break; }
+
+                // Editors write in bursts; let them settle, then take everything queued
+                try { Thread.sleep(FS_DEBOUNCE_MS); }
+                catch (InterruptedException ie) { break; }
+
+                boolean relevant = false;
+                for (WatchEvent<?> ev : key.pollEvents())
+                {
+                    Object ctx = ev.context();
+                    if (ctx instanceof Path && ((Path) ctx).getFileName().toString().toLowerCase().endsWith(".json"))
+                    {
+                        relevant = true;
+                    }
+                }
+                if (!key.reset()) break;
+                if (!relevant) continue;
+
+                rules = load(dir);
+                Runnable cb = onChange;
+                if (cb != null)
+                {
+                    try { cb.run(); }
+                    catch (Throwable t) { log.error("Rules onChange threw", t); }
+                }
+            }
+        }
+        finally
+        {
+            closeWatchServiceQuietly();
+            watcherRunning = false;
+        }
+    }
+
+    private void closeWatchServiceQuietly()
+    {
+        try { if (watchService != null) watchService.close(); }
+        catch (IOException ignored) {}
+        watchService = null;
+    }
+
+    private static void writeReadme(Path dir) throws IOException
+    {
+        String text = String.join(System.lineSeparator(),
+                "Item rule files for ChanceMan. Every *.json file in this folder is applied",
+                "and reloaded when it changes. Each file may have \"block\" and \"allow\"",
+                "sections; allow wins over block and over the built-in lists.",
+                "",
+                "{",
+                "  \"block\": {",
+                "    \"ids\": [11802],",
+                "    \"ranges\": [\"27000-27100\"],",
+                "    \"names\": [\"* (deadman)\", \"/^Trailblazer .*/\"],",
+                "    \"categories\": [\"noted\"]",
+                "  },",
+                "  \"allow\": { \"ids\": [] }",
+                "}",
+                "",
+                "Categories: members, stackable, noted, equipable. Prefix with ! for items",
+                "outside a category, e.g. \"!equipable\".",
+                "");
+        Files.write(dir.resolve(README), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Path dir()
+    {
+        return RUNELITE_DIR.toPath().resolve("chanceman").resolve("rules");
+    }
+}
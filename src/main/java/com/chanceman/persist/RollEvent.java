@@ -0,0 +1,67 @@
+package com.chanceman.persist;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * One roll in the history: who obtained what, when, and the item it unlocked.
+ */
+@Getter
+public class RollEvent
+{
+    /** Event id as two longs; UUIDs map onto them directly. */
+    private final long idHi;
+    private final long idLo;
+    /** Epoch millis the roll was made at, on the roller's clock. */
+    private final long timestamp;
+    /** Display name of the member who rolled. */
+    private final String member;
+    private final int obtainedItemId;
+    private final int rolledItemId;
+    private final boolean manual;
+
+    public RollEvent(long idHi, long idLo, long timestamp, String member,
+                     int obtainedItemId, int rolledItemId, boolean manual)
+    {
+        this.idHi = idHi;
+        this.idLo = idLo;
+        this.timestamp = timestamp;
+        this.member = member;
+        this.obtainedItemId = obtainedItemId;
+        this.rolledItemId = rolledItemId;
+        this.manual = manual;
+    }
+
+    public UUID getEventId()
+    {
+        return new UUID(idHi, idLo);
+    }
+
+    /** A UUID string as is; any other id hashed into UUID space. */
+    public static UUID parseEventId(String eventId)
+    {
+        try
+        {
+            return UUID.fromString(eventId);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return UUID.nameUUIDFromBytes(eventId.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RollEvent{" +
+                "id=" + getEventId() +
+                ", timestamp=" + timestamp +
+                ", member=" + member +
+                ", obtained=" + obtainedItemId +
+                ", rolled=" + rolledItemId +
+                ", manual=" + manual +
+                '}';
+    }
+}
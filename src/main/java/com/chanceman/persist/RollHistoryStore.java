@@ -0,0 +1,468 @@
+package com.chanceman.persist;
+
+import static net.runelite.client.RuneLite.RUNELITE_DIR;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only history of every roll this client has seen, its own and the
+ * party's, in {@code .runelite/chanceman/history/}.
+ *
+ * <p>On disk each roll is one fixed 40-byte record after an 8-byte header:
+ * event id (16), timestamp (8), member index (4), obtained id (4), rolled id
+ * (4), flags (1) and padding. Member names are kept once each in a text
+ * sidecar, one per line, and records point at them by line number. A torn
+ * record at the end of the file is dropped on load.</p>
+ *
+ * <p>In memory the rows sit in parallel arrays with two indexes on top: rows
+ * per hour bucket, for time ranges, and rows per member. Range and member
+ * queries touch only the buckets or the member they ask about. Writes go out
+ * on one daemon thread in the order they were recorded.</p>
+ */
+@Slf4j
+@Singleton
+public class RollHistoryStore
+{
+    private static final int MAGIC = 0x434D5248; // "CMRH"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_BYTES = 40;
+    private static final byte FLAG_MANUAL = 1;
+    private static final long BUCKET_MS = TimeUnit.HOURS.toMillis(1);
+    private static final String HISTORY_FILE = "roll-history.bin";
+    private static final String MEMBERS_FILE = "roll-history-members.txt";
+
+    /** Growable int array for index postings. */
+    private static final class IntList
+    {
+        int[] a = new int[8];
+        int n;
+
+        void add(int v)
+        {
+            if (n == a.length)
+            {
+                a = Arrays.copyOf(a, n * 2);
+            }
+            a[n++] = v;
+        }
+    }
+
+    // Guarded by this: rows as parallel arrays, first size live
+    private int size;
+    private long[] idHi = new long[0];
+    private long[] idLo = new long[0];
+    private long[] times = new long[0];
+    private int[] memberOf = new int[0];
+    private int[] obtained = new int[0];
+    private int[] rolled = new int[0];
+    private byte[] flags = new byte[0];
+    private final Set<UUID> ids = new HashSet<>();
+    private final List<String> members = new ArrayList<>();
+    private final Map<String, Integer> memberIndex = new HashMap<>();
+    private final List<IntList> rowsByMember = new ArrayList<>();
+    private final TreeMap<Long, IntList> rowsByBucket = new TreeMap<>();
+    /** Recorded before the load found them on disk; their writes are skipped. */
+    private final Set<UUID> alreadyOnDisk = new HashSet<>();
+    private long sessionStart;
+
+    // Writer thread only
+    private FileChannel channel;
+    private final Map<String, Integer> diskMembers = new HashMap<>();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+
+    private ExecutorService writer;
+
+    /** Load the history in the background and open it for appends. */
+    public synchronized void startUp()
+    {
+        if (writer != null)
+        {
+            return;
+        }
+        sessionStart = System.currentTimeMillis();
+        writer = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("chanceman-history").setDaemon(true).build());
+        writer.execute(this::load);
+    }
+
+    /** Finish pending writes and drop the in-memory history. */
+    public void shutDown()
+    {
+        ExecutorService w;
+        synchronized (this)
+        {
+            w = writer;
+            writer = null;
+        }
+        if (w != null)
+        {
+            w.execute(this::closeChannel);
+            w.shutdown();
+        }
+        synchronized (this)
+        {
+            size = 0;
+            ids.clear();
+            members.clear();
+            memberIndex.clear();
+            rowsByMember.clear();
+            rowsByBucket.clear();
+            alreadyOnDisk.clear();
+        }
+    }
+
+    /**
+     * Add a roll unless its event id is already in the history.
+     *
+     * @return false for a duplicate
+     */
+    public boolean record(RollEvent event)
+    {
+        ExecutorService w;
+        synchronized (this)
+        {
+            if (!ids.add(event.getEventId()))
+            {
+                return false;
+            }
+            addRow(event);
+            w = writer;
+        }
+        if (w != null)
+        {
+            w.execute(() -> append(event));
+        }
+        return true;
+    }
+
+    /** Convenience for callers holding a string event id. */
+    public boolean record(String eventId, long timestamp, String member, int obtainedItemId, int rolledItemId, boolean manual)
+    {
+        UUID id = RollEvent.parseEventId(eventId);
+        return record(new RollEvent(id.getMostSignificantBits(), id.getLeastSignificantBits(),
+                timestamp, member, obtainedItemId, rolledItemId, manual));
+    }
+
+    public synchronized boolean contains(UUID eventId)
+    {
+        return ids.contains(eventId);
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /** Epoch millis the current session started at. */
+    public synchronized long getSessionStart()
+    {
+        return sessionStart;
+    }
+
+    /** Rolls made at or after {@code fromMs} and before {@code toMs}, oldest first. */
+    public synchronized List<RollEvent> between(long fromMs, long toMs)
+    {
+        if (toMs <= fromMs || rowsByBucket.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        IntList hits = new IntList();
+        for (IntList bucket : rowsByBucket.subMap(Math.floorDiv(fromMs, BUCKET_MS), true,
+                Math.floorDiv(toMs - 1, BUCKET_MS), true).values())
+        {
+            for (int i = 0; i < bucket.n; i++)
+            {
+                int row = bucket.a[i];
+                if (times[row] >= fromMs && times[row] < toMs)
+                {
+                    hits.add(row);
+                }
+            }
+        }
+        return toEvents(hits);
+    }
+
+    /** Rolls since this session started, oldest first. */
+    public List<RollEvent> thisSession()
+    {
+        return between(getSessionStart(), Long.MAX_VALUE);
+    }
+
+    /** Rolls by one member (case-insensitive) in [fromMs, toMs), oldest first. */
+    public synchronized List<RollEvent> byMember(String member, long fromMs, long toMs)
+    {
+        Integer m = memberIndex.get(normalize(member));
+        if (m == null)
+        {
+            return Collections.emptyList();
+        }
+        IntList rows = rowsByMember.get(m);
+        IntList hits = new IntList();
+        for (int i = 0; i < rows.n; i++)
+        {
+            int row = rows.a[i];
+            if (times[row] >= fromMs && times[row] < toMs)
+            {
+                hits.add(row);
+            }
+        }
+        return toEvents(hits);
+    }
+
+    /** The last {@code limit} rolls recorded, oldest first. */
+    public synchronized List<RollEvent> recent(int limit)
+    {
+        IntList hits = new IntList();
+        for (int row = Math.max(0, size - limit); row < size; row++)
+        {
+            hits.add(row);
+        }
+        return toEvents(hits);
+    }
+
+    /** Names of every member in the history. */
+    public synchronized List<String> getMembers()
+    {
+        return new ArrayList<>(members);
+    }
+
+    private List<RollEvent> toEvents(IntList rows)
+    {
+        Integer[] order = new Integer[rows.n];
+        for (int i = 0; i < rows.n; i++)
+        {
+            order[i] = rows.a[i];
+        }
+        // Party rolls arrive late and out of order; sort by roll time, then arrival
+        Arrays.sort(order, (x, y) -> times[x] != times[y] ? Long.compare(times[x], times[y]) : Integer.compare(x, y));
+        List<RollEvent> out = new ArrayList<>(order.length);
+        for (int row : order)
+        {
+            out.add(new RollEvent(idHi[row], idLo[row], times[row], members.get(memberOf[row]),
+                    obtained[row], rolled[row], (flags[row] & FLAG_MANUAL) != 0));
+        }
+        return out;
+    }
+
+    private void addRow(RollEvent e)
+    {
+        if (size == times.length)
+        {
+            int cap = Math.max(1024, size * 2);
+            idHi = Arrays.copyOf(idHi, cap);
+            idLo = Arrays.copyOf(idLo, cap);
+            times = Arrays.copyOf(times, cap);
+            memberOf = Arrays.copyOf(memberOf, cap);
+            obtained = Arrays.copyOf(obtained, cap);
+            rolled = Arrays.copyOf(rolled, cap);
+            flags = Arrays.copyOf(flags, cap);
+        }
+        String name = e.getMember() != null ? e.getMember() : "";
+        Integer m = memberIndex.get(normalize(name));
+        if (m == null)
+        {
+            m = members.size();
+            members.add(name);
+            memberIndex.put(normalize(name), m);
+            rowsByMember.add(new IntList());
+        }
+
+        int row = size++;
+        idHi[row] = e.getIdHi();
+        idLo[row] = e.getIdLo();
+        times[row] = e.getTimestamp();
+        memberOf[row] = m;
+        obtained[row] = e.getObtainedItemId();
+        rolled[row] = e.getRolledItemId();
+        flags[row] = e.isManual() ? FLAG_MANUAL : 0;
+        rowsByMember.get(m).add(row);
+        rowsByBucket.computeIfAbsent(Math.floorDiv(e.getTimestamp(), BUCKET_MS), k -> new IntList()).add(row);
+    }
+
+    private static String normalize(String member)
+    {
+        return member == null ? "" : member.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Writer: read the member table and records, then keep the file open for appends. */
+    private void load()
+    {
+        Path dir = RUNELITE_DIR.toPath().resolve("chanceman").resolve("history");
+        Path file = dir.resolve(HISTORY_FILE);
+        Path membersFile = dir.resolve(MEMBERS_FILE);
+        try
+        {
+            Files.createDirectories(dir);
+            List<String> names = Files.exists(membersFile)
+                    ? Files.readAllLines(membersFile, StandardCharsets.UTF_8)
+                    : new ArrayList<>();
+            for (int i = 0; i < names.size(); i++)
+            {
+                diskMembers.put(names.get(i), i);
+            }
+
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() < HEADER_BYTES || !readHeader())
+            {
+                if (channel.size() > 0)
+                {
+                    channel.close();
+                    Files.move(file, dir.resolve(HISTORY_FILE + ".bad"), StandardCopyOption.REPLACE_EXISTING);
+                    log.warn("Roll history had an unknown format; started a new one");
+                    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+                header.flip();
+                channel.write(header, 0);
+            }
+
+            long records = (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+            long end = HEADER_BYTES + records * RECORD_BYTES;
+            if (end < channel.size())
+            {
+                channel.truncate(end); // torn final record
+            }
+            readRecords(records, names);
+            channel.position(end);
+            log.debug("Roll history: {} events loaded", records);
+        }
+        catch (IOException e)
+        {
+            log.warn("Could not open roll history; new rolls will not be saved", e);
+            closeChannel();
+        }
+    }
+
+    private boolean readHeader() throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == VERSION;
+    }
+
+    private void readRecords(long records, List<String> names) throws IOException
+    {
+        final int batch = 4096;
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_BYTES * batch);
+        long pos = HEADER_BYTES;
+        long left = records;
+        while (left > 0)
+        {
+            int n = (int) Math.min(batch, left);
+            buf.clear().limit(n * RECORD_BYTES);
+            while (buf.hasRemaining())
+            {
+                if (channel.read(buf, pos + buf.position()) < 0)
+                {
+                    throw new IOException("roll history ended early");
+                }
+            }
+            buf.flip();
+            synchronized (this)
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    long hi = buf.getLong();
+                    long lo = buf.getLong();
+                    long ts = buf.getLong();
+                    int m = buf.getInt();
+                    int obtainedId = buf.getInt();
+                    int rolledId = buf.getInt();
+                    byte f = buf.get();
+                    buf.position(buf.position() + 3);
+                    UUID id = new UUID(hi, lo);
+                    if (!ids.add(id))
+                    {
+                        alreadyOnDisk.add(id);
+                        continue;
+                    }
+                    String name = m >= 0 && m < names.size() ? names.get(m) : "";
+                    addRow(new RollEvent(hi, lo, ts, name, obtainedId, rolledId, (f & FLAG_MANUAL) != 0));
+                }
+            }
+            pos += (long) n * RECORD_BYTES;
+            left -= n;
+        }
+    }
+
+    /** Writer: append one record, adding its member to the sidecar first if new. */
+    private void append(RollEvent e)
+    {
+        if (channel == null)
+        {
+            return;
+        }
+        synchronized (this)
+        {
+            if (alreadyOnDisk.remove(e.getEventId()))
+            {
+                return;
+            }
+        }
+        try
+        {
+            String name = e.getMember() != null ? e.getMember().replace('\n', ' ').replace('\r', ' ') : "";
+            Integer m = diskMembers.get(name);
+            if (m == null)
+            {
+                m = diskMembers.size();
+                Path membersFile = RUNELITE_DIR.toPath().resolve("chanceman").resolve("history").resolve(MEMBERS_FILE);
+                Files.write(membersFile, (name + "\n").getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                diskMembers.put(name, m);
+            }
+
+            record.clear();
+            record.putLong(e.getIdHi())
+                    .putLong(e.getIdLo())
+                    .putLong(e.getTimestamp())
+                    .putInt(m)
+                    .putInt(e.getObtainedItemId())
+                    .putInt(e.getRolledItemId())
+                    .put(e.isManual() ? FLAG_MANUAL : 0)
+                    .put((byte) 0).put((byte) 0).put((byte) 0);
+            record.flip();
+            while (record.hasRemaining())
+            {
+                channel.write(record);
+            }
+        }
+        catch (IOException ex)
+        {
+            log.warn("Could not append to roll history", ex);
+        }
+    }
+
+    private void closeChannel()
+    {
+        try
+        {
+            if (channel != null)
+            {
+                channel.close();
+            }
+        }
+        catch (IOException ignored)
+        {
+        }
+        channel = null;
+        diskMembers.clear();
+    }
+}
@@ -0,0 +1,235 @@
+package com.chanceman.persist;
+
+import static net.runelite.client.RuneLite.RUNELITE_DIR;
+
+import com.google.gson.Gson;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Saved result of the tradeable item scan, so logins and account switches
+ * can skip walking every item composition on the client thread.
+ *
+ * <p>The scan is stored as bitsets, tradeable items and a few categories
+ * among them (members, stackable, noted, equipable), keyed by the client
+ * cache revision and the number of item definitions, since the item index can
+ * change without a revision bump. Filters and the
+ * weapon poison rule are applied after loading, so changing settings never
+ * needs a rescan. Item names for the panel search live in a second file.</p>
+ */
+@Slf4j
+@Singleton
+public class TradeableUniverseCache
+{
+    /** Bump when what the scan records changes. */
+    private static final int FORMAT = 4;
+    private static final String UNIVERSE_FILE = "tradeables.json";
+    private static final String NAMES_FILE = "item-names.json";
+
+    private final Gson gson;
+
+    // Last scan and names seen, so repeat refreshes skip the disk
+    private int memRevision = -1;
+    private int memDefinitions = -1;
+    private Scan memScan;
+    private int memNamesRevision = -1;
+    private int memNamesDefinitions = -1;
+    private Map<Integer, String> memNames;
+
+    @Inject
+    public TradeableUniverseCache(Gson gson)
+    {
+        this.gson = gson;
+    }
+
+    /** Config-independent scan output. Treat the bitsets as read-only. */
+    public static final class Scan
+    {
+        public static final String MEMBERS = "members";
+        public static final String STACKABLE = "stackable";
+        public static final String NOTED = "noted";
+        public static final String EQUIPABLE = "equipable";
+
+        @Getter
+        private final BitSet tradeable;
+        /** Category name → tradeable ids in it. */
+        @Getter
+        private final Map<String, BitSet> categories;
+
+        public Scan(BitSet tradeable, Map<String, BitSet> categories)
+        {
+            this.tradeable = tradeable;
+            this.categories = Collections.unmodifiableMap(categories);
+        }
+
+        public BitSet getMembers()
+        {
+            return getCategory(MEMBERS);
+        }
+
+        /** Ids in a category; empty for unknown names. */
+        public BitSet getCategory(String name)
+        {
+            BitSet ids = categories.get(name);
+            return ids != null ? ids : new BitSet();
+        }
+    }
+
+    private static final class StoredUniverse
+    {
+        int format;
+        int revision;
+        int definitions;
+        /** Base64 of {@link BitSet#toByteArray()}. */
+        String tradeable;
+        Map<String, String> categories;
+    }
+
+    private static final class StoredNames
+    {
+        int format;
+        int revision;
+        int definitions;
+        Map<Integer, String> names;
+    }
+
+    /**
+     * Saved scan for this revision and item definition count, or null if there
+     * is none. Reads disk; keep off the client thread.
+     */
+    public synchronized Scan loadScan(int revision, int definitions)
+    {
+        if (memScan != null && memRevision == revision && memDefinitions == definitions)
+        {
+            return memScan;
+        }
+        StoredUniverse stored = read(UNIVERSE_FILE, StoredUniverse.class);
+        if (stored == null || stored.format != FORMAT || stored.revision != revision
+                || stored.definitions != definitions || stored.tradeable == null || stored.categories == null)
+        {
+            return null;
+        }
+        try
+        {
+            Map<String, BitSet> categories = new HashMap<>();
+            for (Map.Entry<String, String> e : stored.categories.entrySet())
+            {
+                categories.put(e.getKey(), BitSet.valueOf(Base64.getDecoder().decode(e.getValue())));
+            }
+            Scan scan = new Scan(BitSet.valueOf(Base64.getDecoder().decode(stored.tradeable)), categories);
+            remember(revision, definitions, scan);
+            return scan;
+        }
+        catch (IllegalArgumentException e)
+        {
+            log.debug("Ignoring corrupt tradeable scan", e);
+            return null;
+        }
+    }
+
+    /** Saved item names for this revision and definition count, or null. Reads disk; keep off the client thread. */
+    public synchronized Map<Integer, String> loadNames(int revision, int definitions)
+    {
+        if (memNames != null && memNamesRevision == revision && memNamesDefinitions == definitions)
+        {
+            return memNames;
+        }
+        StoredNames stored = read(NAMES_FILE, StoredNames.class);
+        if (stored == null || stored.format != FORMAT || stored.revision != revision
+                || stored.definitions != definitions || stored.names == null)
+        {
+            return null;
+        }
+        memNamesRevision = revision;
+        memNamesDefinitions = definitions;
+        memNames = Collections.unmodifiableMap(stored.names);
+        return memNames;
+    }
+
+    /** Remember a fresh scan and write it out. Writes disk; keep off the client thread. */
+    public synchronized void save(int revision, int definitions, Scan scan, Map<Integer, String> names)
+    {
+        remember(revision, definitions, scan);
+
+        StoredUniverse u = new StoredUniverse();
+        u.format = FORMAT;
+        u.revision = revision;
+        u.definitions = definitions;
+        u.tradeable = Base64.getEncoder().encodeToString(scan.getTradeable().toByteArray());
+        u.categories = new TreeMap<>();
+        for (Map.Entry<String, BitSet> e : scan.getCategories().entrySet())
+        {
+            u.categories.put(e.getKey(), Base64.getEncoder().encodeToString(e.getValue().toByteArray()));
+        }
+        write(UNIVERSE_FILE, u);
+
+        if (memNames == null || memNamesRevision != revision || memNamesDefinitions != definitions
+                || !memNames.equals(names))
+        {
+            StoredNames n = new StoredNames();
+            n.format = FORMAT;
+            n.revision = revision;
+            n.definitions = definitions;
+            n.names = new TreeMap<>(names);
+            write(NAMES_FILE, n);
+            memNamesRevision = revision;
+            memNamesDefinitions = definitions;
+            memNames = Collections.unmodifiableMap(new HashMap<>(names));
+        }
+    }
+
+    private void remember(int revision, int definitions, Scan scan)
+    {
+        memRevision = revision;
+        memDefinitions = definitions;
+        memScan = scan;
+    }
+
+    private <T> T read(String fileName, Class<T> type)
+    {
+        Path file = dir().resolve(fileName);
+        if (!Files.exists(file))
+        {
+            return null;
+        }
+        try
+        {
+            return gson.fromJson(Files.readString(file, StandardCharsets.UTF_8), type);
+        }
+        catch (Exception e)
+        {
+            log.debug("Ignoring unreadable {}", file, e);
+            return null;
+        }
+    }
+
+    private void write(String fileName, Object value)
+    {
+        Path file = dir().resolve(fileName);
+        try
+        {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(fileName + ".tmp");
+            Files.writeString(tmp, gson.toJson(value), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            log.warn("Could not save {}", file, e);
+        }
+    }
+
+    private static Path dir()
+    {
+        return RUNELITE_DIR.toPath().resolve("chanceman");
+    }
+}
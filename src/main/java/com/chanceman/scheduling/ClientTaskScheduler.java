@@ -0,0 +1,273 @@
+package com.chanceman.scheduling;
+
+import com.chanceman.ChanceManConfig;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.callback.ClientThread;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs long client-thread jobs a slice at a time so none of them can drop a
+ * frame. Jobs are written as small resumable steps; each client frame the
+ * scheduler steps every active job in turn until the configured budget is
+ * spent, then yields until the next frame.
+ *
+ * <p>A step that alone runs past the budget, or a frame whose steps do, is
+ * counted as an overrun so a job with oversized units shows up in the
+ * numbers.</p>
+ */
+@Slf4j
+@Singleton
+public class ClientTaskScheduler
+{
+    /** A resumable client-thread job. */
+    @FunctionalInterface
+    public interface Job
+    {
+        /**
+         * Do one small unit of work on the client thread.
+         *
+         * @return true once the job has nothing left to do
+         */
+        boolean step(Progress progress);
+    }
+
+    /** Lets a job report how far along it is. */
+    public interface Progress
+    {
+        void update(int done, int total);
+    }
+
+    /** A submitted job: its progress, its per-job metrics and a way to stop it. */
+    public static final class Handle implements Progress
+    {
+        @Getter
+        private final String name;
+        private final Job job;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private volatile boolean cancelled;
+        private volatile int done;
+        private volatile int total;
+
+        // Client thread only
+        @Getter private int frames;
+        @Getter private int overruns;
+        private long nanos;
+        private int lastFrame = -1;
+
+        private Handle(String name, Job job)
+        {
+            this.name = name;
+            this.job = job;
+        }
+
+        @Override
+        public void update(int done, int total)
+        {
+            this.done = done;
+            this.total = total;
+        }
+
+        /** Fraction complete, or -1 if the job has not reported a total. */
+        public double getProgress()
+        {
+            int t = total;
+            return t > 0 ? Math.min(1.0, (double) done / t) : -1;
+        }
+
+        /** Stop before the next step; {@link #getCompletion()} is then cancelled. */
+        public void cancel()
+        {
+            cancelled = true;
+        }
+
+        public boolean isCancelled()
+        {
+            return cancelled;
+        }
+
+        public boolean isDone()
+        {
+            return completion.isDone();
+        }
+
+        /** Completes when the job finishes, fails, or is cancelled. */
+        public CompletableFuture<Void> getCompletion()
+        {
+            return completion;
+        }
+
+        public double getClientThreadMillis()
+        {
+            return nanos / 1e6;
+        }
+    }
+
+    private final ClientThread clientThread;
+    private final ChanceManConfig config;
+
+    // Guarded by this
+    private final List<Handle> active = new ArrayList<>();
+    private boolean pumping;
+
+    // Client thread only, read anywhere for display
+    @Getter private volatile int frames;
+    /** Frames whose steps together ran past the budget. */
+    @Getter private volatile int frameOverruns;
+    /** Single steps that alone ran past the budget. */
+    @Getter private volatile int stepOverruns;
+    @Getter private volatile long worstFrameNanos;
+
+    @Inject
+    public ClientTaskScheduler(ClientThread clientThread, ChanceManConfig config)
+    {
+        this.clientThread = clientThread;
+        this.config = config;
+    }
+
+    /** Queue a job; it starts on the next client frame. Safe from any thread. */
+    public Handle submit(String name, Job job)
+    {
+        Handle handle = new Handle(name, job);
+        synchronized (this)
+        {
+            active.add(handle);
+            if (pumping)
+            {
+                return handle;
+            }
+            pumping = true;
+        }
+        clientThread.invokeLater(this::runFrame);
+        return handle;
+    }
+
+    /** Cancel every queued or running job. */
+    public void shutDown()
+    {
+        synchronized (this)
+        {
+            for (Handle h : active)
+            {
+                h.cancel();
+            }
+        }
+    }
+
+    private long budgetNanos()
+    {
+        return Math.max(1, config.clientTaskBudgetMs()) * 1_000_000L;
+    }
+
+    /** One frame's worth of steps; true once no jobs are left, ending the pump. */
+    private boolean runFrame()
+    {
+        final long budget = budgetNanos();
+        final long start = System.nanoTime();
+        final long deadline = start + budget;
+        final int frame = frames++;
+
+        long now = start;
+        while (now < deadline)
+        {
+            List<Handle> round;
+            synchronized (this)
+            {
+                if (active.isEmpty())
+                {
+                    break;
+                }
+                round = new ArrayList<>(active);
+            }
+
+            for (Iterator<Handle> it = round.iterator(); it.hasNext() && now < deadline; )
+            {
+                Handle h = it.next();
+                if (h.cancelled)
+                {
+                    finish(h, null);
+                    continue;
+                }
+                if (h.lastFrame != frame)
+                {
+                    h.lastFrame = frame;
+                    h.frames++;
+                }
+
+                boolean finished;
+                Throwable failure = null;
+                long stepStart = now;
+                try
+                {
+                    finished = h.job.step(h);
+                }
+                catch (Exception e)
+                {
+                    finished = true;
+                    failure = e;
+                }
+                now = System.nanoTime();
+                long took = now - stepStart;
+                h.nanos += took;
+                if (took > budget)
+                {
+                    h.overruns++;
+                    stepOverruns++;
+                }
+                if (finished)
+                {
+                    finish(h, failure);
+                }
+            }
+        }
+
+        long used = now - start;
+        if (used > budget)
+        {
+            frameOverruns++;
+        }
+        if (used > worstFrameNanos)
+        {
+            worstFrameNanos = used;
+        }
+
+        synchronized (this)
+        {
+            if (active.isEmpty())
+            {
+                pumping = false;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private void finish(Handle h, Throwable failure)
+    {
+        synchronized (this)
+        {
+            active.remove(h);
+        }
+        if (h.cancelled)
+        {
+            h.completion.cancel(false);
+        }
+        else if (failure != null)
+        {
+            log.warn("Client-thread job {} failed", h.name, failure);
+            h.completion.completeExceptionally(failure);
+        }
+        else
+        {
+            log.debug("{} finished: {} frames, {} ms on the client thread, {} overrun steps",
+                    h.name, h.frames, String.format("%.1f", h.getClientThreadMillis()), h.overruns);
+            h.completion.complete(null);
+        }
+    }
+}
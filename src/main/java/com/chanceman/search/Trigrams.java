@@ -0,0 +1,26 @@
+package com.chanceman.search;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Trigram keys shared by the name indexes. Three UTF-16 chars pack into one
+ * {@code long}, so posting maps need no string keys.
+ */
+public final class Trigrams
+{
+    private Trigrams()
+    {
+    }
+
+    /** Every distinct trigram of {@code s}; empty when it is shorter than three chars. */
+    public static Set<Long> distinct(String s)
+    {
+        Set<Long> out = new HashSet<>();
+        for (int i = 0; i + 3 <= s.length(); i++)
+        {
+            out.add(((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2));
+        }
+        return out;
+    }
+}
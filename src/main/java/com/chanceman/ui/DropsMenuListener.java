@@ -1,6 +1,7 @@
 package com.chanceman.ui;
 
 import com.chanceman.drops.DropCache;
+import com.chanceman.drops.FetchPriority;
 import lombok.extern.slf4j.Slf4j;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -84,14 +85,19 @@ public class DropsMenuListener
                 attackIdx - 1,
                 attackEntry
         );
-        showDrops.onClick(me -> fetchAndDisplayDrops(id, name, level, 1));
+        showDrops.onClick(me -> fetchAndDisplayDrops(id, name, level));
 
         entries.add(attackIdx + 1, showDrops);
         event.setMenuEntries(entries.toArray(new MenuEntry[0]));
     }
-    private void fetchAndDisplayDrops(int id, String name, int level, int attemptsLeft)
+
+    /**
+     * Retries with backoff are handled by the fetch scheduler, and a newer
+     * click supersedes one still waiting in the interactive lane.
+     */
+    private void fetchAndDisplayDrops(int id, String name, int level)
     {
-        dropCache.get(id, name, level)
+        dropCache.get(id, name, level, FetchPriority.INTERACTIVE)
                 .whenComplete((dropData, ex) ->
                 {
                     if (dropData != null && ex == null)
@@ -100,9 +106,7 @@ public class DropsMenuListener
                         return;
                     }
 
-                    if (attemptsLeft > 0) fetchAndDisplayDrops(id, name, level, attemptsLeft - 1);
-                    else log.error("Failed to fetch drop data for {}", name, ex);
-
+                    log.debug("No drop data for {}", name, ex);
                 });
     }
 }
\ No newline at end of file
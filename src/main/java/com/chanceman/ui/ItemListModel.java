@@ -0,0 +1,135 @@
+package com.chanceman.ui;
+
+import javax.swing.AbstractListModel;
+import java.util.*;
+
+/**
+ * List model of item ids that moves to a new list by firing the smallest
+ * run-length removes and inserts it can find, so the list keeps its
+ * selection and scroll position and only repaints rows that changed.
+ *
+ * <p>The diff assumes the items that stay keep their relative order, which
+ * holds for insertion-ordered sets. If they were reordered, or most of the
+ * list changed, it falls back to a single contents-changed event. Use it
+ * only on the Swing event thread.</p>
+ */
+public class ItemListModel extends AbstractListModel<Integer>
+{
+    private List<Integer> items = new ArrayList<>();
+
+    @Override
+    public int getSize()
+    {
+        return items.size();
+    }
+
+    @Override
+    public Integer getElementAt(int index)
+    {
+        return items.get(index);
+    }
+
+    /** Replace the contents with {@code next}, firing minimal change events. */
+    public void apply(List<Integer> next)
+    {
+        if (next.equals(items))
+        {
+            return;
+        }
+
+        Set<Integer> keep = new HashSet<>(next);
+        Set<Integer> had = new HashSet<>(items);
+        int removed = 0;
+        for (Integer id : items)
+        {
+            if (!keep.contains(id))
+            {
+                removed++;
+            }
+        }
+        int added = next.size() - (items.size() - removed);
+
+        if (removed + added > Math.max(items.size(), next.size()) / 2 || !sameSurvivorOrder(next, keep, had))
+        {
+            replaceAll(next);
+            return;
+        }
+
+        // Removes, back to front so indices of earlier runs stay valid
+        for (int i = items.size() - 1; i >= 0; )
+        {
+            if (keep.contains(items.get(i)))
+            {
+                i--;
+                continue;
+            }
+            int end = i;
+            while (i >= 0 && !keep.contains(items.get(i)))
+            {
+                i--;
+            }
+            items.subList(i + 1, end + 1).clear();
+            fireIntervalRemoved(this, i + 1, end);
+        }
+
+        // Inserts, front to back; every position before i already matches next
+        for (int i = 0; i < next.size(); )
+        {
+            if (had.contains(next.get(i)))
+            {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < next.size() && !had.contains(next.get(i)))
+            {
+                i++;
+            }
+            items.addAll(start, next.subList(start, i));
+            fireIntervalAdded(this, start, i - 1);
+        }
+    }
+
+    private boolean sameSurvivorOrder(List<Integer> next, Set<Integer> keep, Set<Integer> had)
+    {
+        Iterator<Integer> it = next.iterator();
+        for (Integer id : items)
+        {
+            if (!keep.contains(id))
+            {
+                continue;
+            }
+            Integer n;
+            do
+            {
+                n = it.next();
+            }
+            while (!had.contains(n));
+            if (!n.equals(id))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void replaceAll(List<Integer> next)
+    {
+        int oldSize = items.size();
+        items = new ArrayList<>(next);
+        int newSize = items.size();
+        if (oldSize > newSize)
+        {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        }
+        else if (newSize > oldSize)
+        {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        }
+        int common = Math.min(oldSize, newSize);
+        if (common > 0)
+        {
+            fireContentsChanged(this, 0, common - 1);
+        }
+    }
+}
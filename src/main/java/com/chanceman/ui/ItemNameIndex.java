@@ -0,0 +1,298 @@
+package com.chanceman.ui;
+
+import com.chanceman.search.Trigrams;
+
+import java.util.*;
+
+/**
+ * Immutable name and id index over the tradeable item universe, used to
+ * filter the panel list without touching item compositions.
+ *
+ * <p>Names are kept lower-cased in sorted order, so whole-name prefixes are a
+ * binary search. Substring queries of three or more characters intersect
+ * trigram posting lists, starting from the rarest, and only verify the
+ * survivors. All-digit queries also match ids that start with those digits.</p>
+ */
+public final class ItemNameIndex
+{
+    /** Item ids, ordered by lower-cased name. */
+    private final int[] ids;
+    private final String[] lower;
+    /** Item ids ascending, for id-prefix ranges and name lookups. */
+    private final int[] sortedIds;
+    /** Display names, parallel to {@link #sortedIds}. */
+    private final String[] displayById;
+    /** Trigram → positions in {@link #ids}, ascending. */
+    private final Map<Long, int[]> postings;
+
+    private ItemNameIndex(int[] ids, String[] lower, int[] sortedIds, String[] displayById, Map<Long, int[]> postings)
+    {
+        this.ids = ids;
+        this.lower = lower;
+        this.sortedIds = sortedIds;
+        this.displayById = displayById;
+        this.postings = postings;
+    }
+
+    /** @param names item id → display name; blank names are skipped */
+    public static ItemNameIndex build(Map<Integer, String> names)
+    {
+        List<Map.Entry<Integer, String>> entries = new ArrayList<>(names.size());
+        for (Map.Entry<Integer, String> e : names.entrySet())
+        {
+            String n = e.getValue() == null ? "" : e.getValue().trim();
+            if (!n.isEmpty())
+            {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), n.toLowerCase(Locale.ROOT)));
+            }
+        }
+        entries.sort(Map.Entry.<Integer, String>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+
+        int n = entries.size();
+        int[] ids = new int[n];
+        String[] lower = new String[n];
+        Map<Long, List<Integer>> lists = new HashMap<>();
+        for (int i = 0; i < n; i++)
+        {
+            ids[i] = entries.get(i).getKey();
+            lower[i] = entries.get(i).getValue();
+            for (long gram : Trigrams.distinct(lower[i]))
+            {
+                lists.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<Long, List<Integer>> e : lists.entrySet())
+        {
+            List<Integer> pos = e.getValue();
+            int[] arr = new int[pos.size()];
+            for (int i = 0; i < arr.length; i++)
+            {
+                arr[i] = pos.get(i);
+            }
+            postings.put(e.getKey(), arr);
+        }
+
+        int[] sortedIds = ids.clone();
+        Arrays.sort(sortedIds);
+        String[] displayById = new String[n];
+        for (int i = 0; i < n; i++)
+        {
+            displayById[i] = names.get(sortedIds[i]).trim();
+        }
+        return new ItemNameIndex(ids, lower, sortedIds, displayById, postings);
+    }
+
+    public int size()
+    {
+        return ids.length;
+    }
+
+    /** Whether the item has a name in this index. */
+    public boolean contains(int itemId)
+    {
+        return Arrays.binarySearch(sortedIds, itemId) >= 0;
+    }
+
+    /** Display name of an indexed item, or null. */
+    public String getName(int itemId)
+    {
+        int at = Arrays.binarySearch(sortedIds, itemId);
+        return at >= 0 ? displayById[at] : null;
+    }
+
+    /**
+     * Ids whose name contains {@code query} (case-insensitive) and, for
+     * all-digit queries, ids starting with those digits.
+     */
+    public BitSet match(String query)
+    {
+        BitSet out = new BitSet();
+        String q = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (q.isEmpty())
+        {
+            return out;
+        }
+
+        if (q.length() < 3)
+        {
+            // Too short for trigrams; the answer is a large share of the index anyway
+            int from = lowerBound(q);
+            int to = from;
+            while (to < lower.length && lower[to].startsWith(q))
+            {
+                out.set(ids[to++]);
+            }
+            for (int i = 0; i < lower.length; i++)
+            {
+                if ((i < from || i >= to) && lower[i].contains(q))
+                {
+                    out.set(ids[i]);
+                }
+            }
+        }
+        else
+        {
+            matchTrigrams(q, out);
+        }
+
+        if (isDigits(q))
+        {
+            matchIdPrefix(q, out);
+        }
+        return out;
+    }
+
+    private void matchTrigrams(String q, BitSet out)
+    {
+        Set<Long> grams = Trigrams.distinct(q);
+        List<int[]> lists = new ArrayList<>(grams.size());
+        for (long gram : grams)
+        {
+            int[] list = postings.get(gram);
+            if (list == null)
+            {
+                return;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(a -> a.length));
+
+        int[] cand = lists.get(0);
+        int size = cand.length;
+        for (int l = 1; l < lists.size() && size > 0; l++)
+        {
+            int[] other = lists.get(l);
+            int[] next = new int[size];
+            int n = 0;
+            int j = 0;
+            for (int i = 0; i < size; i++)
+            {
+                int v = cand[i];
+                j = gallop(other, j, v);
+                if (j < other.length && other[j] == v)
+                {
+                    next[n++] = v;
+                }
+            }
+            cand = next;
+            size = n;
+        }
+
+        for (int i = 0; i < size; i++)
+        {
+            int pos = cand[i];
+            // Shared trigrams only bound the match; confirm the actual substring
+            if (lower[pos].contains(q))
+            {
+                out.set(ids[pos]);
+            }
+        }
+    }
+
+    /** Ids whose decimal form starts with {@code digits}: one contiguous range per extra digit. */
+    private void matchIdPrefix(String digits, BitSet out)
+    {
+        if (digits.length() > 9)
+        {
+            return;
+        }
+        long lo = Long.parseLong(digits);
+        long hi = lo + 1;
+        long max = sortedIds.length == 0 ? 0 : sortedIds[sortedIds.length - 1];
+        boolean leadingZero = digits.length() > 1 && digits.charAt(0) == '0';
+        while (lo <= max && !leadingZero)
+        {
+            int from = ceil(sortedIds, lo);
+            for (int i = from; i < sortedIds.length && sortedIds[i] < hi; i++)
+            {
+                out.set(sortedIds[i]);
+            }
+            if (lo == 0)
+            {
+                break; // "0" only names id 0
+            }
+            lo *= 10;
+            hi *= 10;
+        }
+    }
+
+    /** First position whose name is not less than {@code prefix}. */
+    private int lowerBound(String prefix)
+    {
+        int lo = 0;
+        int hi = lower.length;
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (lower[mid].compareTo(prefix) < 0)
+            {
+                lo = mid + 1;
+            }
+            else
+            {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** First index at or after {@code from} holding a value not less than {@code v}. */
+    private static int gallop(int[] a, int from, int v)
+    {
+        int step = 1;
+        int hi = from;
+        while (hi < a.length && a[hi] < v)
+        {
+            from = hi + 1;
+            hi += step;
+            step <<= 1;
+        }
+        hi = Math.min(hi, a.length);
+        while (from < hi)
+        {
+            int mid = (from + hi) >>> 1;
+            if (a[mid] < v)
+            {
+                from = mid + 1;
+            }
+            else
+            {
+                hi = mid;
+            }
+        }
+        return from;
+    }
+
+    private static int ceil(int[] sorted, long v)
+    {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < v)
+            {
+                lo = mid + 1;
+            }
+            else
+            {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static boolean isDigits(String s)
+    {
+        for (int i = 0; i < s.length(); i++)
+        {
+            if (s.charAt(i) < '0' || s.charAt(i) > '9')
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
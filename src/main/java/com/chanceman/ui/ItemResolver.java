@@ -0,0 +1,248 @@
+package com.chanceman.ui;
+
+import net.runelite.api.ItemComposition;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.game.ItemManager;
+
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Resolves item icons and names for the panel list in batches.
+ *
+ * <p>Misses queue up instead of each scheduling its own client-thread task.
+ * A single task drains the queue a couple of milliseconds per client frame:
+ * rows the renderer asked for first, then the prefetch window around the
+ * viewport. Each slice hands its results to the Swing thread in one go.
+ * Icons and names not covered by the {@link ItemNameIndex} are held in
+ * bounded LRU maps.</p>
+ */
+public class ItemResolver
+{
+    private static final int MAX_ICONS = 1024;
+    private static final int MAX_NAMES = 2048;
+    private static final long SLICE_BUDGET_NANOS = 2_000_000L;
+
+    /** Client thread only; may throw for unknown ids. */
+    private final IntFunction<String> nameLookup;
+    private final IntFunction<BufferedImage> imageLookup;
+    private final ClientThread clientThread;
+    /** Called on the Swing thread with the ids resolved in one slice. */
+    private final Consumer<Set<Integer>> onResolved;
+
+    // Guarded by this
+    private final Map<Integer, ImageIcon> icons = lru(MAX_ICONS);
+    private final Map<Integer, String> names = lru(MAX_NAMES);
+    private final LinkedHashSet<Integer> urgent = new LinkedHashSet<>();
+    private final LinkedHashSet<Integer> window = new LinkedHashSet<>();
+    private boolean draining;
+    private boolean closed;
+
+    private volatile ItemNameIndex nameIndex;
+
+    public ItemResolver(ItemManager itemManager, ClientThread clientThread, Consumer<Set<Integer>> onResolved)
+    {
+        this(id ->
+        {
+            ItemComposition comp = itemManager.getItemComposition(id);
+            return comp != null ? comp.getName() : null;
+        }, id -> itemManager.getImage(id, 1, false), clientThread, onResolved);
+    }
+
+    ItemResolver(IntFunction<String> nameLookup, IntFunction<BufferedImage> imageLookup, ClientThread clientThread,
+                 Consumer<Set<Integer>> onResolved)
+    {
+        this.nameLookup = nameLookup;
+        this.imageLookup = imageLookup;
+        this.clientThread = clientThread;
+        this.onResolved = onResolved;
+    }
+
+    /** Names in the index are served from it and never queued. */
+    public void setNameIndex(ItemNameIndex index)
+    {
+        this.nameIndex = index;
+    }
+
+    /** Cached icon, or null after queueing the item ahead of any prefetch. */
+    public synchronized ImageIcon getIcon(int itemId)
+    {
+        ImageIcon icon = icons.get(itemId);
+        if (icon == null)
+        {
+            enqueueUrgent(itemId);
+        }
+        return icon;
+    }
+
+    /** Name from the index or cache, or null after queueing the item. */
+    public synchronized String getName(int itemId)
+    {
+        String name = peekName(itemId);
+        if (name == null)
+        {
+            enqueueUrgent(itemId);
+        }
+        return name;
+    }
+
+    /** Name if already known; never queues. Safe from any thread. */
+    public synchronized String peekName(int itemId)
+    {
+        ItemNameIndex index = nameIndex;
+        String name = index != null ? index.getName(itemId) : null;
+        return name != null ? name : names.get(itemId);
+    }
+
+    /**
+     * Replace the prefetch window. Items that scrolled out of it are dropped
+     * from the queue, so a fast scroll never leaves a backlog behind it.
+     */
+    public synchronized void prefetch(List<Integer> ids)
+    {
+        window.clear();
+        for (Integer id : ids)
+        {
+            if (!isResolved(id) && !urgent.contains(id))
+            {
+                window.add(id);
+            }
+        }
+        scheduleDrain();
+    }
+
+    /** Drop queued work and stop resolving; cached entries stay readable. */
+    public synchronized void close()
+    {
+        closed = true;
+        urgent.clear();
+        window.clear();
+    }
+
+    private void enqueueUrgent(int itemId)
+    {
+        if (closed || !urgent.add(itemId))
+        {
+            return;
+        }
+        window.remove(itemId);
+        scheduleDrain();
+    }
+
+    private boolean isResolved(int itemId)
+    {
+        return icons.containsKey(itemId) && peekName(itemId) != null;
+    }
+
+    private void scheduleDrain()
+    {
+        if (draining || closed || (urgent.isEmpty() && window.isEmpty()))
+        {
+            return;
+        }
+        draining = true;
+        clientThread.invokeLater(this::drainSlice);
+    }
+
+    /** Client thread: resolve until the frame budget runs out; true once the queue is empty. */
+    private boolean drainSlice()
+    {
+        Map<Integer, ImageIcon> newIcons = new HashMap<>();
+        Map<Integer, String> newNames = new HashMap<>();
+        long deadline = System.nanoTime() + SLICE_BUDGET_NANOS;
+        boolean done;
+        do
+        {
+            Integer id;
+            boolean needName;
+            synchronized (this)
+            {
+                id = poll();
+                if (id == null)
+                {
+                    break;
+                }
+                needName = peekName(id) == null;
+            }
+            resolve(id, needName, newIcons, newNames);
+        }
+        while (System.nanoTime() < deadline);
+
+        synchronized (this)
+        {
+            done = closed || (urgent.isEmpty() && window.isEmpty());
+            if (done)
+            {
+                draining = false;
+            }
+        }
+
+        if (!newIcons.isEmpty() || !newNames.isEmpty())
+        {
+            SwingUtilities.invokeLater(() -> publish(newIcons, newNames));
+        }
+        return done;
+    }
+
+    private Integer poll()
+    {
+        LinkedHashSet<Integer> from = !urgent.isEmpty() ? urgent : window;
+        Iterator<Integer> it = from.iterator();
+        if (!it.hasNext())
+        {
+            return null;
+        }
+        Integer id = it.next();
+        it.remove();
+        return id;
+    }
+
+    private void resolve(int itemId, boolean needName, Map<Integer, ImageIcon> newIcons, Map<Integer, String> newNames)
+    {
+        try
+        {
+            if (needName)
+            {
+                String name = nameLookup.apply(itemId);
+                newNames.put(itemId, name != null ? name : "Unknown");
+            }
+            BufferedImage img = imageLookup.apply(itemId);
+            if (img != null)
+            {
+                newIcons.put(itemId, new ImageIcon(img));
+            }
+        }
+        catch (Exception ignored)
+        {
+            newNames.putIfAbsent(itemId, "Unknown");
+        }
+    }
+
+    private void publish(Map<Integer, ImageIcon> newIcons, Map<Integer, String> newNames)
+    {
+        synchronized (this)
+        {
+            icons.putAll(newIcons);
+            names.putAll(newNames);
+        }
+        Set<Integer> ids = new HashSet<>(newIcons.keySet());
+        ids.addAll(newNames.keySet());
+        onResolved.accept(ids);
+    }
+
+    private static <V> Map<Integer, V> lru(int max)
+    {
+        return new LinkedHashMap<Integer, V>(max * 4 / 3 + 1, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest)
+            {
+                return size() > max;
+            }
+        };
+    }
+}
@@ -89,6 +89,8 @@ public class MusicWidgetController
     private final NpcSearchService searchService;
 
     private NpcDropData currentDrops = null;
+    /** Only touched on the Swing event thread. */
+    private NpcSearchDialog searchDialog;
 
     private static final class ChildBackup
     {
@@ -648,61 +650,22 @@ public class MusicWidgetController
     }
 
     /**
-     * Display a Swing dialog prompting the user for an NPC name or ID. The
-     * potentially long running search executes on a background thread so the
-     * UI remains responsive. Selecting a result will override the widget with
-     * the chosen drop table.
+     * Open the search-as-you-type NPC dialog, or bring it forward if it is
+     * already open. Picking a result overrides the widget with that drop
+     * table on the client thread.
      */
     private void showSearchDialog()
     {
         SwingUtilities.invokeLater(() ->
         {
-            String query = JOptionPane.showInputDialog(
-                    null,
-                    "Enter NPC name or ID:",
-                    "Search NPC",
-                    JOptionPane.PLAIN_MESSAGE
-            );
-            if (query == null || query.trim().isEmpty())
+            if (searchDialog != null && searchDialog.isDisplayable())
             {
+                searchDialog.toFront();
                 return;
             }
-
-            new Thread(() -> {
-                List<NpcDropData> results = searchService.search(query.trim());
-
-                SwingUtilities.invokeLater(() -> {
-                    if (results.isEmpty())
-                    {
-                        JOptionPane.showMessageDialog(
-                                null,
-                                "No NPCs found for: " + query,
-                                "Search NPC",
-                                JOptionPane.INFORMATION_MESSAGE
-                        );
-                        return;
-                    }
-
-                    List<NpcDropData> limited = results.stream().limit(5).collect(Collectors.toList());
-                    String[] choices = limited.stream()
-                            .map(n -> String.format("%s (ID %d, Lvl %d)", n.getName(), n.getNpcId(), n.getLevel()))
-                            .toArray(String[]::new);
-                    int idx = JOptionPane.showOptionDialog(
-                            null,
-                            "Select NPC:",
-                            "Search Results",
-                            JOptionPane.DEFAULT_OPTION,
-                            JOptionPane.PLAIN_MESSAGE,
-                            null,
-                            choices,
-                            choices[0]
-                    );
-                    if (idx >= 0 && idx < limited.size())
-                    {
-                        override(limited.get(idx));
-                    }
-                });
-            }).start();
+            searchDialog = new NpcSearchDialog(searchService,
+                    selected -> clientThread.invokeLater(() -> override(selected)));
+            searchDialog.setVisible(true);
         });
     }
 
@@ -0,0 +1,208 @@
+package com.chanceman.ui;
+
+import com.chanceman.drops.NpcDropData;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Search-as-you-type dialog for drop tables. Each keystroke restarts a short
+ * debounce timer; when it fires the previous search is cancelled, along with
+ * its queued wiki fetches, and the new one streams results into the list.
+ * Everything here runs on the Swing event thread.
+ */
+class NpcSearchDialog extends JDialog
+{
+    private static final int DEBOUNCE_MS = 250;
+
+    private final NpcSearchService searchService;
+    private final Consumer<NpcDropData> onSelect;
+
+    private final JTextField queryField = new JTextField(24);
+    private final DefaultListModel<NpcDropData> model = new DefaultListModel<>();
+    private final JList<NpcDropData> resultList = new JList<>(model);
+    private final JLabel status = new JLabel(" ");
+    private final Timer debounce;
+
+    private NpcSearchService.Search current;
+    /** Bumped per search so late snapshots from a superseded one are dropped. */
+    private int generation;
+
+    NpcSearchDialog(NpcSearchService searchService, Consumer<NpcDropData> onSelect)
+    {
+        super((Frame) null, "Search NPC", false);
+        this.searchService = searchService;
+        this.onSelect = onSelect;
+
+        debounce = new Timer(DEBOUNCE_MS, e -> runSearch());
+        debounce.setRepeats(false);
+
+        queryField.getDocument().addDocumentListener(new DocumentListener()
+        {
+            @Override public void insertUpdate(DocumentEvent e) { debounce.restart(); }
+            @Override public void removeUpdate(DocumentEvent e) { debounce.restart(); }
+            @Override public void changedUpdate(DocumentEvent e) { debounce.restart(); }
+        });
+        queryField.addActionListener(e -> choose(resultList.getSelectedValue()));
+        bindKey(queryField, KeyEvent.VK_DOWN, () -> moveSelection(1));
+        bindKey(queryField, KeyEvent.VK_UP, () -> moveSelection(-1));
+
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultList.setVisibleRowCount(10);
+        resultList.setCellRenderer(new DefaultListCellRenderer()
+        {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus)
+            {
+                NpcDropData n = (NpcDropData) value;
+                String text = String.format("%s (ID %d, Lvl %d)", n.getName(), n.getNpcId(), n.getLevel());
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        resultList.addMouseListener(new MouseAdapter()
+        {
+            @Override
+            public void mouseClicked(MouseEvent e)
+            {
+                if (e.getClickCount() == 2)
+                {
+                    choose(resultList.getSelectedValue());
+                }
+            }
+        });
+        bindKey(resultList, KeyEvent.VK_ENTER, () -> choose(resultList.getSelectedValue()));
+
+        JPanel top = new JPanel(new BorderLayout(0, 4));
+        top.add(new JLabel("Enter NPC name or ID:"), BorderLayout.NORTH);
+        top.add(queryField, BorderLayout.CENTER);
+
+        JPanel content = new JPanel(new BorderLayout(0, 6));
+        content.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        content.add(top, BorderLayout.NORTH);
+        content.add(new JScrollPane(resultList), BorderLayout.CENTER);
+        content.add(status, BorderLayout.SOUTH);
+        setContentPane(content);
+
+        getRootPane().registerKeyboardAction(e -> dispose(),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0),
+                JComponent.WHEN_IN_FOCUSED_WINDOW);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setAlwaysOnTop(true);
+        pack();
+        setLocationRelativeTo(null);
+    }
+
+    @Override
+    public void dispose()
+    {
+        debounce.stop();
+        cancelCurrent();
+        super.dispose();
+    }
+
+    private void runSearch()
+    {
+        cancelCurrent();
+        final int gen = ++generation;
+        String query = queryField.getText().trim();
+        if (query.isEmpty())
+        {
+            model.clear();
+            status.setText(" ");
+            return;
+        }
+
+        status.setText("Searching…");
+        current = searchService.search(query, (results, complete) ->
+                SwingUtilities.invokeLater(() ->
+                {
+                    if (gen == generation)
+                    {
+                        showResults(query, results, complete);
+                    }
+                }));
+    }
+
+    private void showResults(String query, List<NpcDropData> results, boolean complete)
+    {
+        NpcDropData selected = resultList.getSelectedValue();
+        model.clear();
+        for (NpcDropData d : results)
+        {
+            model.addElement(d);
+        }
+
+        // Keep the user's pick while later results stream in above or below it
+        int keep = selected == null ? -1 : model.indexOf(selected);
+        if (!model.isEmpty())
+        {
+            resultList.setSelectedIndex(keep >= 0 ? keep : 0);
+        }
+
+        if (!complete)
+        {
+            status.setText("Searching…");
+        }
+        else if (results.isEmpty())
+        {
+            status.setText("No NPCs found for: " + query);
+        }
+        else
+        {
+            status.setText(results.size() + (results.size() == 1 ? " result" : " results"));
+        }
+    }
+
+    private void choose(NpcDropData selected)
+    {
+        if (selected == null)
+        {
+            return;
+        }
+        dispose();
+        onSelect.accept(selected);
+    }
+
+    private void moveSelection(int delta)
+    {
+        if (model.isEmpty())
+        {
+            return;
+        }
+        int next = Math.max(0, Math.min(model.size() - 1, resultList.getSelectedIndex() + delta));
+        resultList.setSelectedIndex(next);
+        resultList.ensureIndexIsVisible(next);
+    }
+
+    private void cancelCurrent()
+    {
+        if (current != null)
+        {
+            current.cancel();
+            current = null;
+        }
+    }
+
+    private static void bindKey(JComponent c, int keyCode, Runnable action)
+    {
+        String name = "npcsearch-" + keyCode;
+        c.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(keyCode, 0), name);
+        c.getActionMap().put(name, new AbstractAction()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                action.run();
+            }
+        });
+    }
+}
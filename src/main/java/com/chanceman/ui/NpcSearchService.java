@@ -1,21 +1,30 @@
 package com.chanceman.ui;
 
 import com.chanceman.drops.DropCache;
+import com.chanceman.drops.FetchPriority;
+import com.chanceman.drops.NpcCatalog;
 import com.chanceman.drops.NpcDropData;
+import com.chanceman.drops.NpcNameIndex;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Provides fuzzy search over available NPC drop data. The cache is consulted
- * first and any misses fall back to a wiki lookup. Results without drop tables
- * are discarded and lookups for multiple candidates are performed in parallel
- * to keep searches snappy.
+ * Provides fuzzy search over available NPC drop data. Candidate names come
+ * from a local {@link NpcNameIndex} over cached drops and the NPC catalog; the
+ * wiki is only asked when that finds too few. Results without drop tables
+ * are discarded; lookups for all candidates run in parallel and are streamed
+ * to the caller as they finish.
  */
 @Singleton
 public class NpcSearchService
@@ -26,12 +35,26 @@ public class NpcSearchService
     private static final Pattern NAME_NUM_PATTERN = Pattern.compile("^(.*\\D)\\s+(\\d+)$");
     private static final Pattern NUM_NAME_PATTERN = Pattern.compile("^(\\d+)\\s+(\\D.*)$");
 
+    private static final int MAX_CANDIDATES = 10;
+    /** Below this many local name hits, wiki search results are appended. */
+    private static final int MIN_LOCAL_CANDIDATES = 3;
+    private static final int TIER_CACHED = 0;
+    private static final int TIER_ATTACKABLE = 1;
+    private static final int TIER_OTHER = 2;
+
     private final DropCache dropCache;
+    private final NpcCatalog npcCatalog;
+
+    private NpcNameIndex nameIndex;
+    private int indexedCacheVersion = -1;
+    private int indexedCatalogSize = -1;
+    private ExecutorService executor;
 
     @Inject
-    public NpcSearchService(DropCache dropCache)
+    public NpcSearchService(DropCache dropCache, NpcCatalog npcCatalog)
     {
         this.dropCache = dropCache;
+        this.npcCatalog = npcCatalog;
     }
 
     private static class ParsedQuery
@@ -97,96 +120,283 @@ public class NpcSearchService
         return pq;
     }
 
+    /** Receives result snapshots from a running {@link #search(String, Listener)}. */
+    public interface Listener
+    {
+        /**
+         * @param results  matches so far, drops already on disk first, then by
+         *                 name relevance
+         * @param complete true on the final call for this search
+         */
+        void onResults(List<NpcDropData> results, boolean complete);
+    }
+
+    /** Handle on a running search. */
+    public static final class Search
+    {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+
+        /** Stop reporting and cancel any lookups still waiting on the wiki. */
+        public void cancel()
+        {
+            if (cancelled.compareAndSet(false, true))
+            {
+                for (CompletableFuture<?> f : pending)
+                {
+                    f.cancel(false);
+                }
+                pending.clear();
+            }
+        }
+
+        public boolean isCancelled()
+        {
+            return cancelled.get();
+        }
+
+        private <T> CompletableFuture<T> track(CompletableFuture<T> f)
+        {
+            pending.add(f);
+            f.whenComplete((r, ex) -> pending.remove(f));
+            if (cancelled.get())
+            {
+                f.cancel(false);
+            }
+            return f;
+        }
+    }
+
     /**
-     * Search by partial name, level, or ID. Results are limited and ordered by
-     * Levenshtein distance when appropriate.
+     * Search by partial name, level, or ID without blocking the caller.
+     * Candidates whose drops are already cached are looked up first, so the
+     * listener usually hears about them before any wiki fetch finishes; each
+     * later result is pushed as it arrives. The listener is called from a
+     * background thread and never after the search is cancelled.
      */
-    public List<NpcDropData> search(String query)
+    public Search search(String query, Listener listener)
     {
-        ParsedQuery pq = parse(query);
+        final Search search = new Search();
+        final ParsedQuery pq = parse(query);
         if (pq == null)
         {
-            return Collections.emptyList();
+            listener.onResults(Collections.emptyList(), true);
+            return search;
         }
+        ensureExecutor().execute(() ->
+        {
+            if (!search.isCancelled())
+            {
+                start(search, pq, listener);
+            }
+        });
+        return search;
+    }
 
-        // 1) name only → fetch all candidates by name
-        if (pq.npcId == null && pq.level == null && pq.name != null)
+    private void start(Search search, ParsedQuery pq, Listener listener)
+    {
+        // ID only → fetch by ID
+        if (pq.npcId != null && pq.name == null)
         {
-            List<String> names = dropCache.searchNpcNames(pq.name).join();
-            List<NpcDropData> fetched = fetchAll(names.stream().limit(10).collect(Collectors.toList()), 0);
-            return fetched.stream()
-                    .sorted(Comparator.comparingInt(d ->
-                            levenshtein(d.getName().toLowerCase(Locale.ROOT), pq.name)))
-                    .collect(Collectors.toList());
+            Collector c = new Collector(search, listener, null, -1, Collections.emptySet());
+            c.lookup(search.track(dropCache.get(pq.npcId, "", pq.level != null ? pq.level : 0, FetchPriority.SEARCH)));
+            c.sourceDone();
+            return;
         }
 
-        // 2) ID only → fetch by ID
-        if (pq.npcId != null && pq.name == null)
+        // name, optionally with level → index candidates, then the wiki if too few
+        final String nameFilter = pq.name != null ? pq.name : "";
+        final int lvlFilter = pq.level != null ? pq.level : -1;
+        Set<String> cachedNames = new HashSet<>();
+        for (NpcDropData d : dropCache.getAllNpcData())
         {
-            int lvl = (pq.level != null ? pq.level : 0);
-            NpcDropData d = dropCache.get(pq.npcId, "", lvl).join();
-            if (d == null || d.getDropTableSections().isEmpty())
+            if (d.getName() != null)
             {
-                return Collections.emptyList();
+                cachedNames.add(d.getName().toLowerCase(Locale.ROOT));
             }
-            return Collections.singletonList(d);
         }
 
-        // 3) mixed or partial → fuzzy search
-        String nameFilter = (pq.name != null ? pq.name : "");
-        int lvlFilter = (pq.level != null ? pq.level : -1);
+        Collector c = new Collector(search, listener, pq.npcId, lvlFilter, cachedNames);
+        List<String> local = index().search(nameFilter, MAX_CANDIDATES);
+        c.request(local);
+        if (local.size() < MIN_LOCAL_CANDIDATES)
+        {
+            c.sourceStarted();
+            search.track(dropCache.searchNpcNames(nameFilter)).whenComplete((names, ex) ->
+            {
+                if (names != null && !search.isCancelled())
+                {
+                    c.request(names);
+                }
+                c.sourceDone();
+            });
+        }
+        c.sourceDone();
+    }
+
+    /**
+     * Gathers results for one search. Candidate names are looked up in batches
+     * as they are found, cached ones first, and every accepted result pushes a
+     * fresh snapshot to the listener.
+     */
+    private final class Collector
+    {
+        private final Search search;
+        private final Listener listener;
+        private final Integer npcId;
+        private final int level;
+        private final Set<String> cachedNames;
 
-        List<String> candidates = dropCache.searchNpcNames(nameFilter).join();
-        List<NpcDropData> all = fetchAll(candidates.stream().limit(10).collect(Collectors.toList()),
-                lvlFilter > -1 ? lvlFilter : 0);
+        private final Map<String, Integer> rank = new HashMap<>();
+        private final List<NpcDropData> found = new ArrayList<>();
+        /** Lookups plus candidate sources still running; the caller holds one until it is done adding. */
+        private int outstanding = 1;
+        private boolean finished;
 
-        // if ID also provided, filter it
-        if (pq.npcId != null)
+        Collector(Search search, Listener listener, Integer npcId, int level, Set<String> cachedNames)
         {
-            all = all.stream()
-                    .filter(d -> d.getNpcId() == pq.npcId)
-                    .collect(Collectors.toList());
+            this.search = search;
+            this.listener = listener;
+            this.npcId = npcId;
+            this.level = level;
+            this.cachedNames = cachedNames;
         }
 
-        // filter by level + sort by name distance
-        final int lvl = lvlFilter;
-        return all.stream()
-                .filter(d -> lvl < 0 || d.getLevel() == lvl)
-                .sorted(Comparator.comparingInt(d ->
-                        levenshtein(d.getName().toLowerCase(Locale.ROOT), nameFilter)))
-                .collect(Collectors.toList());
+        /** Look up the new names among {@code names}, up to {@link #MAX_CANDIDATES} overall. */
+        void request(List<String> names)
+        {
+            List<String> fresh = new ArrayList<>();
+            synchronized (this)
+            {
+                for (String n : names)
+                {
+                    if (rank.size() >= MAX_CANDIDATES)
+                    {
+                        break;
+                    }
+                    String k = key(n);
+                    if (!rank.containsKey(k))
+                    {
+                        rank.put(k, rank.size());
+                        fresh.add(n);
+                    }
+                }
+            }
+            fresh.sort(Comparator.comparing(n -> !cachedNames.contains(key(n))));
+
+            int lvl = level > -1 ? level : 0;
+            for (String n : fresh)
+            {
+                lookup(search.track(dropCache.get(0, n, lvl, FetchPriority.SEARCH)));
+            }
+        }
+
+        void lookup(CompletableFuture<NpcDropData> future)
+        {
+            sourceStarted();
+            future.whenComplete((d, ex) ->
+            {
+                if (d != null && accepts(d))
+                {
+                    synchronized (this)
+                    {
+                        found.add(d);
+                        found.sort(order());
+                        publish(false);
+                    }
+                }
+                sourceDone();
+            });
+        }
+
+        synchronized void sourceStarted()
+        {
+            outstanding++;
+        }
+
+        synchronized void sourceDone()
+        {
+            if (--outstanding == 0 && !finished)
+            {
+                finished = true;
+                publish(true);
+            }
+        }
+
+        private boolean accepts(NpcDropData d)
+        {
+            return !d.getDropTableSections().isEmpty()
+                    && (npcId == null || d.getNpcId() == npcId)
+                    && (level < 0 || d.getLevel() == level);
+        }
+
+        private Comparator<NpcDropData> order()
+        {
+            return Comparator.<NpcDropData, Boolean>comparing(
+                            d -> !cachedNames.contains(key(d.getName())))
+                    .thenComparingInt(d -> rank.getOrDefault(key(d.getName()), Integer.MAX_VALUE));
+        }
+
+        private void publish(boolean complete)
+        {
+            if (!search.isCancelled())
+            {
+                listener.onResults(new ArrayList<>(found), complete);
+            }
+        }
     }
 
-    /**
-     * Fetch drop data for a list of names concurrently.
-     */
-    private List<NpcDropData> fetchAll(List<String> names, int level)
+    /** Rebuild the name index when the cache or catalog has changed since the last build. */
+    private synchronized NpcNameIndex index()
     {
-        List<CompletableFuture<NpcDropData>> futures = names.stream()
-                .map(n -> dropCache.get(0, n, level))
-                .collect(Collectors.toList());
+        int cacheVersion = dropCache.getVersion();
+        List<NpcCatalog.Entry> catalog = npcCatalog.getEntries();
+        if (nameIndex != null && cacheVersion == indexedCacheVersion && catalog.size() == indexedCatalogSize)
+        {
+            return nameIndex;
+        }
 
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        Map<String, Integer> tiers = new HashMap<>();
+        for (NpcCatalog.Entry e : catalog)
+        {
+            tiers.merge(e.getName(), e.getCombatLevel() > 0 ? TIER_ATTACKABLE : TIER_OTHER, Math::min);
+        }
+        for (NpcDropData d : dropCache.getAllNpcData())
+        {
+            if (d.getName() != null)
+            {
+                tiers.put(d.getName(), TIER_CACHED);
+            }
+        }
 
-        return futures.stream()
-                .map(CompletableFuture::join)
-                .filter(Objects::nonNull)
-                .filter(d -> !d.getDropTableSections().isEmpty())
-                .collect(Collectors.toList());
+        nameIndex = NpcNameIndex.build(tiers);
+        indexedCacheVersion = cacheVersion;
+        indexedCatalogSize = catalog.size();
+        return nameIndex;
     }
 
-    // simple DP Levenshtein
-    private static int levenshtein(String a, String b)
+    private static String key(String name)
     {
-        int[][] dp = new int[a.length()+1][b.length()+1];
-        for (int i = 0; i <= a.length(); i++) dp[i][0] = i;
-        for (int j = 0; j <= b.length(); j++) dp[0][j] = j;
-        for (int i = 1; i <= a.length(); i++)
-            for (int j = 1; j <= b.length(); j++)
-                dp[i][j] = Math.min(
-                        Math.min(dp[i-1][j] + 1, dp[i][j-1] + 1),
-                        dp[i-1][j-1] + (a.charAt(i-1)==b.charAt(j-1) ? 0 : 1)
-                );
-        return dp[a.length()][b.length()];
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    private synchronized ExecutorService ensureExecutor()
+    {
+        if (executor == null || executor.isShutdown())
+        {
+            executor = Executors.newSingleThreadExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("npcsearch").setDaemon(true).build());
+        }
+        return executor;
+    }
+
+    /** Stop the search thread; searches still running stop reporting. */
+    public synchronized void shutDown()
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+            executor = null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package com.chanceman.drops;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest
+{
+	private static final int THRESHOLD = 3;
+	private static final long COOLDOWN_MS = 1_000L;
+
+	private long now;
+	private FetchScheduler.CircuitBreaker breaker;
+
+	@Before
+	public void setUp()
+	{
+		now = 10_000L;
+		breaker = new FetchScheduler.CircuitBreaker(THRESHOLD, COOLDOWN_MS, () -> now);
+	}
+
+	private void trip()
+	{
+		for (int i = 0; i < THRESHOLD; i++)
+		{
+			assertTrue(breaker.allowRequest());
+			breaker.recordFailure();
+		}
+		assertTrue(breaker.isOpen());
+	}
+
+	@Test
+	public void staysClosedBelowThreshold()
+	{
+		for (int i = 0; i < THRESHOLD - 1; i++)
+		{
+			breaker.recordFailure();
+		}
+		assertFalse(breaker.isOpen());
+		assertTrue(breaker.allowRequest());
+	}
+
+	@Test
+	public void openHalfOpenClosed()
+	{
+		trip();
+		assertFalse(breaker.allowRequest());
+
+		now += COOLDOWN_MS - 1;
+		assertFalse(breaker.allowRequest());
+
+		now += 1;
+		assertTrue("probe after cool-down", breaker.allowRequest());
+		assertFalse("only one probe at a time", breaker.allowRequest());
+
+		breaker.recordSuccess();
+		assertFalse(breaker.isOpen());
+		assertTrue(breaker.allowRequest());
+		assertTrue(breaker.allowRequest());
+	}
+
+	@Test
+	public void failedProbeReopensForAnotherCooldown()
+	{
+		trip();
+		now += COOLDOWN_MS;
+		assertTrue(breaker.allowRequest());
+		breaker.recordFailure();
+
+		assertTrue(breaker.isOpen());
+		assertFalse(breaker.allowRequest());
+		now += COOLDOWN_MS;
+		assertTrue(breaker.allowRequest());
+	}
+
+	@Test
+	public void releasedProbeLetsTheNextRequestProbe()
+	{
+		trip();
+		now += COOLDOWN_MS;
+		assertTrue(breaker.allowRequest());
+		assertFalse(breaker.allowRequest());
+
+		breaker.releaseProbe(); // e.g. the probing thread was interrupted
+		assertTrue(breaker.isOpen());
+		assertTrue(breaker.allowRequest());
+	}
+}
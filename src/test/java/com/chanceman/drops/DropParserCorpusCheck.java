@@ -0,0 +1,148 @@
+package com.chanceman.drops;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times {@link DomDropPageParser} and {@link StreamingDropPageParser} over every
+ * page in the corpus. Their output is checked by {@link DropParserParityTest}.
+ *
+ * <pre>
+ *   DropParserCorpusCheck [corpusDir]
+ *   DropParserCorpusCheck --record [corpusDir] "Hill Giant" "Guard" ...
+ * </pre>
+ *
+ * Recording saves the rendered wiki page as {@code Page_Name.html} so the corpus
+ * can grow with real layouts that break the streaming parser.
+ *
+ * The bundled pages are small hand-built layout fixtures and say little about
+ * speed, so record a few large live pages before quoting timings.
+ */
+public class DropParserCorpusCheck
+{
+	private static final Path DEFAULT_CORPUS = Paths.get("src/test/resources/com/chanceman/drops/corpus");
+	private static final String WIKI_PAGE = "https://oldschool.runescape.wiki/w/";
+	private static final String USER_AGENT = "RuneLite-ChanceMan/2.0 (corpus recorder)";
+	private static final int WARMUP_ROUNDS = 20;
+	private static final int TIMED_ROUNDS = 100;
+
+	public static void main(String[] args) throws Exception
+	{
+		int argi = 0;
+		boolean record = args.length > 0 && args[0].equals("--record");
+		if (record)
+		{
+			argi++;
+		}
+		Path corpus = DEFAULT_CORPUS;
+		if (argi < args.length && Files.isDirectory(Paths.get(args[argi])))
+		{
+			corpus = Paths.get(args[argi++]);
+		}
+
+		if (record)
+		{
+			for (; argi < args.length; argi++)
+			{
+				recordPage(corpus, args[argi]);
+			}
+		}
+
+		List<Path> pages = listPages(corpus);
+		if (pages.isEmpty())
+		{
+			System.out.println("No pages in " + corpus.toAbsolutePath());
+			return;
+		}
+
+		List<String> html = new ArrayList<>();
+		long bytes = 0;
+		for (Path p : pages)
+		{
+			String s = new String(Files.readAllBytes(p), StandardCharsets.UTF_8);
+			html.add(s);
+			bytes += s.length();
+		}
+
+		System.out.printf("%d page(s), %d KB%n", pages.size(), bytes / 1024);
+		System.out.printf("dom:       %s%n", time(new DomDropPageParser(), html, bytes));
+		System.out.printf("streaming: %s%n", time(new StreamingDropPageParser(), html, bytes));
+	}
+
+	private static String time(DropPageParser parser, List<String> html, long bytes)
+	{
+		int sink = 0;
+		for (int r = 0; r < WARMUP_ROUNDS; r++)
+		{
+			for (String s : html)
+			{
+				sink += parser.parse(s).getSections().size();
+			}
+		}
+
+		long start = System.nanoTime();
+		for (int r = 0; r < TIMED_ROUNDS; r++)
+		{
+			for (String s : html)
+			{
+				sink += parser.parse(s).getSections().size();
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		double pages = (double) TIMED_ROUNDS * html.size();
+		double msPerPage = elapsed / 1e6 / pages;
+		double mbPerSec = (bytes * (double) TIMED_ROUNDS / (1024 * 1024)) / (elapsed / 1e9);
+		return String.format("%.3f ms/page, %.1f MB/s (sink %d)", msPerPage, mbPerSec, sink);
+	}
+
+	static List<Path> listPages(Path corpus) throws IOException
+	{
+		List<Path> pages = new ArrayList<>();
+		if (!Files.isDirectory(corpus))
+		{
+			return pages;
+		}
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(corpus, "*.html"))
+		{
+			ds.forEach(pages::add);
+		}
+		pages.sort(null);
+		return pages;
+	}
+
+	private static void recordPage(Path corpus, String name) throws IOException, InterruptedException
+	{
+		String slug = name.trim().replace(' ', '_');
+		HttpRequest request = HttpRequest.newBuilder(
+				URI.create(WIKI_PAGE + URLEncoder.encode(slug, StandardCharsets.UTF_8).replace("%2F", "/")))
+			.header("User-Agent", USER_AGENT)
+			.GET()
+			.build();
+		HttpResponse<String> response = HttpClient.newBuilder()
+			.followRedirects(HttpClient.Redirect.NORMAL)
+			.build()
+			.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+		if (response.statusCode() / 100 != 2)
+		{
+			System.out.println("Skipping " + name + ": HTTP " + response.statusCode());
+			return;
+		}
+
+		Files.createDirectories(corpus);
+		Path out = corpus.resolve(slug.replaceAll("[^A-Za-z0-9_()-]", "_") + ".html");
+		Files.write(out, response.body().getBytes(StandardCharsets.UTF_8));
+		System.out.println("Recorded " + out.getFileName());
+	}
+}
@@ -0,0 +1,41 @@
+package com.chanceman.drops;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * The streaming parser must produce exactly what the DOM parser does on every
+ * page in the corpus. Add a page with {@link DropParserCorpusCheck} --record
+ * whenever a wiki layout breaks it.
+ */
+public class DropParserParityTest
+{
+	@Test
+	public void streamingMatchesDomOnEveryCorpusPage() throws Exception
+	{
+		URL dir = getClass().getResource("corpus");
+		List<Path> pages = DropParserCorpusCheck.listPages(Paths.get(dir.toURI()));
+		assertFalse("corpus is empty", pages.isEmpty());
+
+		DropPageParser dom = new DomDropPageParser();
+		DropPageParser streaming = new StreamingDropPageParser();
+		Gson gson = new Gson();
+		for (Path page : pages)
+		{
+			String html = new String(Files.readAllBytes(page), StandardCharsets.UTF_8);
+			ParsedDropPage expected = dom.parse(html);
+			assertFalse(page.getFileName() + " has no drop tables", expected.getSections().isEmpty());
+			assertEquals(page.getFileName().toString(), gson.toJson(expected), gson.toJson(streaming.parse(html)));
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package com.chanceman.drops;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NpcNameIndexTest
+{
+	/** Reference: minimum edit distance between {@code p} and any substring of {@code t}. */
+	private static int substringDistance(String p, String t)
+	{
+		int[] prev = new int[p.length() + 1];
+		int[] cur = new int[p.length() + 1];
+		for (int i = 0; i <= p.length(); i++)
+		{
+			prev[i] = i;
+		}
+		int best = prev[p.length()];
+		for (int j = 1; j <= t.length(); j++)
+		{
+			cur[0] = 0;
+			for (int i = 1; i <= p.length(); i++)
+			{
+				int sub = prev[i - 1] + (p.charAt(i - 1) == t.charAt(j - 1) ? 0 : 1);
+				cur[i] = Math.min(sub, Math.min(prev[i] + 1, cur[i - 1] + 1));
+			}
+			best = Math.min(best, cur[p.length()]);
+			int[] tmp = prev;
+			prev = cur;
+			cur = tmp;
+		}
+		return best;
+	}
+
+	private static String random(Random random, int length, String alphabet)
+	{
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++)
+		{
+			sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return sb.toString();
+	}
+
+	private static NpcNameIndex index(String... names)
+	{
+		Map<String, Integer> tiers = new HashMap<>();
+		for (String name : names)
+		{
+			tiers.put(name, 0);
+		}
+		return NpcNameIndex.build(tiers);
+	}
+
+	@Test
+	public void matcherAgreesWithDynamicProgramming()
+	{
+		Random random = new Random(31);
+		for (int trial = 0; trial < 2_000; trial++)
+		{
+			String pattern = random(random, 1 + random.nextInt(12), "abcde ");
+			String text = random(random, random.nextInt(30), "abcde ");
+			int expected = substringDistance(pattern, text);
+			int actual = new NpcNameIndex.Matcher(pattern).distance(text, pattern.length());
+			assertEquals(pattern + " in " + text, expected, actual);
+		}
+	}
+
+	@Test
+	public void matcherHandlesSixtyFourCharacterPatterns()
+	{
+		Random random = new Random(64);
+		String pattern = random(random, 64, "abc");
+		String text = "xx" + pattern.substring(0, 30) + "q" + pattern.substring(31) + "yy";
+		assertEquals(1, new NpcNameIndex.Matcher(pattern).distance(text, 64));
+	}
+
+	@Test
+	public void matcherGivesUpPastTheBudget()
+	{
+		NpcNameIndex.Matcher matcher = new NpcNameIndex.Matcher("dragon");
+		assertEquals(0, matcher.distance("green dragon", 1));
+		assertEquals(2, matcher.distance("zzzzzzzz", 1));
+	}
+
+	@Test
+	public void nonAsciiCharactersMatch()
+	{
+		assertEquals(0, new NpcNameIndex.Matcher("kalphité").distance("the kalphité queen", 0));
+	}
+
+	@Test
+	public void searchToleratesTypos()
+	{
+		NpcNameIndex index = index("Hill Giant", "Moss giant", "Giant mole", "Goblin", "Cow");
+		assertEquals("Hill Giant", index.search("hill gi", 5).get(0));
+		assertEquals("Hill Giant", index.search("hil giamt", 5).get(0));
+		assertEquals(Collections.singletonList("Goblin"), index.search("gobln", 5));
+		assertTrue(index.search("zzzz", 5).isEmpty());
+	}
+
+	@Test
+	public void shortQueriesAreExactSubstrings()
+	{
+		NpcNameIndex index = index("Cow", "Cow calf", "Crow", "Dwarf");
+		List<String> hits = index.search("cow", 10);
+		assertEquals(Arrays.asList("Cow", "Cow calf"), hits);
+	}
+
+	@Test
+	public void ranksByDistanceThenTierThenPrefix()
+	{
+		Map<String, Integer> tiers = new HashMap<>();
+		tiers.put("Giant spider", 1);
+		tiers.put("Spider", 0);
+		tiers.put("Spiderweb cave crawler", 0);
+		tiers.put("Spidine", 0);
+		NpcNameIndex index = NpcNameIndex.build(tiers);
+
+		List<String> hits = index.search("spider", 10);
+		assertEquals(Arrays.asList("Spider", "Spiderweb cave crawler", "Giant spider", "Spidine"), hits);
+		assertEquals(2, index.search("spider", 2).size());
+	}
+
+	@Test
+	public void buildDeduplicatesCaseInsensitivelyKeepingTheLowestTier()
+	{
+		Map<String, Integer> tiers = new HashMap<>();
+		tiers.put("goblin", 2);
+		tiers.put("Goblin", 0);
+		tiers.put("  ", 0);
+		NpcNameIndex index = NpcNameIndex.build(tiers);
+		assertEquals(1, index.size());
+		assertEquals(Collections.singletonList("Goblin"), index.search("goblin", 5));
+	}
+
+	@Test
+	public void errorBudgetGrowsWithQueryLength()
+	{
+		assertEquals(0, NpcNameIndex.maxErrors(3));
+		assertEquals(1, NpcNameIndex.maxErrors(4));
+		assertEquals(2, NpcNameIndex.maxErrors(6));
+		assertEquals(3, NpcNameIndex.maxErrors(20));
+	}
+}
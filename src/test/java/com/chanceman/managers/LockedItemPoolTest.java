@@ -0,0 +1,194 @@
+package com.chanceman.managers;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LockedItemPoolTest
+{
+	private LockedItemPool pool;
+	private Map<Integer, Integer> weights;
+
+	@Before
+	public void setUp()
+	{
+		pool = new LockedItemPool();
+		weights = new HashMap<>();
+	}
+
+	/** Random whose nextDouble lands on {@code target} of {@code total}. */
+	private static Random at(long target, long total)
+	{
+		final double d = (target + 0.5) / total;
+		return new Random()
+		{
+			@Override
+			public double nextDouble()
+			{
+				return d;
+			}
+		};
+	}
+
+	private void weighted(int... idWeightPairs)
+	{
+		for (int i = 0; i < idWeightPairs.length; i += 2)
+		{
+			weights.put(idWeightPairs[i], idWeightPairs[i + 1]);
+		}
+		pool.setWeigher(id -> weights.getOrDefault(id, 1));
+	}
+
+	@Test
+	public void resetSkipsRolledItems()
+	{
+		pool.reset(Arrays.asList(5, 7, 9, 11), id -> id == 7);
+		assertEquals(3, pool.size());
+		assertTrue(pool.contains(5));
+		assertFalse(pool.contains(7));
+		assertArrayEquals(new int[]{5, 7, 9, 11}, pool.getUniverse());
+	}
+
+	@Test
+	public void removeSwapsWithTheLastSlot()
+	{
+		pool.reset(Arrays.asList(1, 2, 3, 4), id -> false);
+		pool.remove(2);
+		pool.remove(2);
+		assertEquals(3, pool.size());
+		assertFalse(pool.contains(2));
+
+		Set<Integer> drawn = new HashSet<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 200; i++)
+		{
+			drawn.add(pool.pick(random));
+		}
+		assertEquals(new HashSet<>(Arrays.asList(1, 3, 4)), drawn);
+
+		pool.remove(1);
+		pool.remove(3);
+		pool.remove(4);
+		assertTrue(pool.isEmpty());
+		assertEquals(-1, pool.pick(random));
+		assertEquals(-1, pool.pickWeighted(random));
+	}
+
+	@Test
+	public void weightedDescentFindsThePrefixSumSlot()
+	{
+		pool.reset(Arrays.asList(10, 20, 30, 40, 50), id -> false);
+		weighted(10, 1, 20, 3, 30, 6, 40, 2, 50, 8);
+
+		// Prefix ranges: 10 [0,1) 20 [1,4) 30 [4,10) 40 [10,12) 50 [12,20)
+		int[] expected = {10, 20, 20, 20, 30, 30, 30, 30, 30, 30, 40, 40, 50, 50, 50, 50, 50, 50, 50, 50};
+		for (int target = 0; target < expected.length; target++)
+		{
+			assertEquals("target " + target, expected[target], pool.pickWeighted(at(target, 20)));
+		}
+	}
+
+	@Test
+	public void weightsFollowItemsThroughSwapRemove()
+	{
+		pool.reset(Arrays.asList(10, 20, 30, 40), id -> false);
+		weighted(10, 1, 20, 2, 30, 3, 40, 4);
+
+		// 40 moves into 20's slot; total is now 1 + 4 + 3
+		pool.remove(20);
+		int[] expected = {10, 40, 40, 40, 40, 30, 30, 30};
+		for (int target = 0; target < expected.length; target++)
+		{
+			assertEquals("target " + target, expected[target], pool.pickWeighted(at(target, 8)));
+		}
+	}
+
+	@Test
+	public void setWeightUpdatesInPlace()
+	{
+		pool.reset(Arrays.asList(10, 20), id -> false);
+		weighted(10, 1, 20, 1);
+
+		pool.setWeight(10, 9);
+		assertEquals(10, pool.pickWeighted(at(8, 10)));
+		assertEquals(20, pool.pickWeighted(at(9, 10)));
+
+		pool.setWeight(10, 0); // clamps to 1
+		assertEquals(10, pool.pickWeighted(at(0, 2)));
+		assertEquals(20, pool.pickWeighted(at(1, 2)));
+	}
+
+	@Test
+	public void universePatchesKeepTheTreeInStep()
+	{
+		pool.reset(Arrays.asList(10, 20), id -> false);
+		weighted(10, 1, 20, 1, 99, 5);
+
+		for (int id = 100; id < 140; id++)
+		{
+			pool.addToUniverse(id, id % 2 == 0); // grows past the initial capacity
+		}
+		pool.addToUniverse(99, false);
+		assertEquals(2 + 20 + 1, pool.size());
+
+		pool.removeFromUniverse(10);
+		assertFalse(pool.contains(10));
+		assertEquals(22, pool.size());
+		assertDrawsMatchWeights();
+
+		pool.remove(99);
+		pool.remove(101);
+		assertDrawsMatchWeights();
+	}
+
+	@Test
+	public void weightedDrawsMatchTheWeights()
+	{
+		pool.reset(Arrays.asList(1, 2, 3), id -> false);
+		weighted(1, 1, 2, 2, 3, 7);
+
+		int[] counts = new int[4];
+		Random random = new Random(7);
+		int n = 100_000;
+		for (int i = 0; i < n; i++)
+		{
+			counts[pool.pickWeighted(random)]++;
+		}
+		assertEquals(0.1, counts[1] / (double) n, 0.01);
+		assertEquals(0.2, counts[2] / (double) n, 0.01);
+		assertEquals(0.7, counts[3] / (double) n, 0.01);
+	}
+
+	/** Walk every draw target: each live item must own exactly its weight's worth. */
+	private void assertDrawsMatchWeights()
+	{
+		Map<Integer, Integer> expected = new HashMap<>();
+		int total = 0;
+		for (int id : pool.getUniverse())
+		{
+			if (pool.contains(id))
+			{
+				int w = Math.max(1, weights.getOrDefault(id, 1));
+				expected.put(id, w);
+				total += w;
+			}
+		}
+		Map<Integer, Integer> drawn = new HashMap<>();
+		for (int target = 0; target < total; target++)
+		{
+			drawn.merge(pool.pickWeighted(at(target, total)), 1, Integer::sum);
+		}
+		assertEquals(expected, drawn);
+	}
+}
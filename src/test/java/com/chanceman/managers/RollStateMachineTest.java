@@ -0,0 +1,149 @@
+package com.chanceman.managers;
+
+import com.chanceman.managers.RollStateMachine.Phase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RollStateMachineTest
+{
+	private static final long SPIN_MS = 1_000L;
+	private static final long SETTLE_MS = 200L;
+	private static final long HIGHLIGHT_MS = 500L;
+
+	private final List<Phase> seen = new ArrayList<>();
+	private RollStateMachine machine;
+
+	@Before
+	public void setUp()
+	{
+		seen.clear();
+		machine = new RollStateMachine(SPIN_MS, SETTLE_MS, HIGHLIGHT_MS, (from, to) -> seen.add(to));
+	}
+
+	@Test
+	public void phasesFollowTheClock()
+	{
+		machine.start(100);
+		assertEquals(Phase.SPINNING, machine.getPhase());
+
+		machine.advance(100 + SPIN_MS - 1);
+		assertEquals(Phase.SPINNING, machine.getPhase());
+
+		machine.advance(100 + SPIN_MS);
+		assertEquals(Phase.SETTLING, machine.getPhase());
+
+		machine.advance(100 + SPIN_MS + SETTLE_MS);
+		assertEquals(Phase.HIGHLIGHT, machine.getPhase());
+
+		machine.advance(100 + SPIN_MS + HIGHLIGHT_MS);
+		assertTrue(machine.isIdle());
+		assertEquals(Arrays.asList(Phase.SPINNING, Phase.SETTLING, Phase.HIGHLIGHT, Phase.IDLE), seen);
+	}
+
+	@Test
+	public void oneLateAdvanceFiresEveryTransitionInOrder()
+	{
+		machine.start(0);
+		machine.advance(60_000);
+		assertEquals(Arrays.asList(Phase.SPINNING, Phase.SETTLING, Phase.HIGHLIGHT, Phase.IDLE), seen);
+	}
+
+	@Test
+	public void clockGoingBackwardsDoesNotRewind()
+	{
+		machine.start(0);
+		machine.advance(SPIN_MS);
+		machine.advance(10);
+		assertEquals(Phase.SETTLING, machine.getPhase());
+		assertEquals(SPIN_MS, machine.getElapsedMs());
+	}
+
+	@Test
+	public void pauseStopsTheTimeline()
+	{
+		machine.start(0);
+		machine.pause(400);
+		assertTrue(machine.isPaused());
+
+		machine.advance(5_000);
+		assertEquals(Phase.SPINNING, machine.getPhase());
+		assertEquals(400, machine.getElapsedMs());
+
+		machine.resume(5_000);
+		assertFalse(machine.isPaused());
+		machine.advance(5_000 + SPIN_MS - 400 - 1);
+		assertEquals(Phase.SPINNING, machine.getPhase());
+		machine.advance(5_000 + SPIN_MS - 400);
+		assertEquals(Phase.SETTLING, machine.getPhase());
+	}
+
+	@Test
+	public void skipJumpsToTheEndOfThePhase()
+	{
+		machine.start(0);
+		machine.advance(300);
+		machine.skip(300);
+		assertEquals(Phase.SETTLING, machine.getPhase());
+		assertEquals(SPIN_MS, machine.getElapsedMs());
+
+		// The skipped time stays skipped: the settle ends SETTLE_MS later
+		machine.advance(300 + SETTLE_MS - 1);
+		assertEquals(Phase.SETTLING, machine.getPhase());
+		machine.advance(300 + SETTLE_MS);
+		assertEquals(Phase.HIGHLIGHT, machine.getPhase());
+	}
+
+	@Test
+	public void skipWhilePausedStaysPaused()
+	{
+		machine.start(0);
+		machine.pause(100);
+		machine.skip(200);
+		assertEquals(Phase.SETTLING, machine.getPhase());
+		assertTrue(machine.isPaused());
+
+		machine.advance(10_000);
+		assertEquals(Phase.SETTLING, machine.getPhase());
+	}
+
+	@Test
+	public void skippingThroughTheLastPhaseClearsThePause()
+	{
+		machine.start(0);
+		machine.advance(SPIN_MS + SETTLE_MS);
+		machine.pause(SPIN_MS + SETTLE_MS);
+		machine.skip(SPIN_MS + SETTLE_MS);
+		assertTrue(machine.isIdle());
+		assertFalse(machine.isPaused());
+	}
+
+	@Test
+	public void startIsIgnoredWhileRunningAndResetIsSilent()
+	{
+		machine.start(0);
+		machine.start(500);
+		assertEquals(1, seen.size());
+
+		machine.reset();
+		assertTrue(machine.isIdle());
+		assertEquals(1, seen.size());
+
+		machine.start(1_000);
+		assertEquals(Phase.SPINNING, machine.getPhase());
+		assertEquals(0, machine.getElapsedMs());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void highlightMustCoverTheSettle()
+	{
+		new RollStateMachine(SPIN_MS, HIGHLIGHT_MS, SETTLE_MS, null);
+	}
+}
@@ -0,0 +1,122 @@
+package com.chanceman.party;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SetDigestTest
+{
+	private static Set<Integer> set(Integer... ids)
+	{
+		return new LinkedHashSet<>(Arrays.asList(ids));
+	}
+
+	private static Set<Integer> randomSet(Random random, int n)
+	{
+		Set<Integer> ids = new HashSet<>();
+		while (ids.size() < n)
+		{
+			ids.add(random.nextInt(30_000));
+		}
+		return ids;
+	}
+
+	private static void union(Set<Integer> into, int[] ids)
+	{
+		for (int id : ids)
+		{
+			into.add(id);
+		}
+	}
+
+	@Test
+	public void orderDoesNotMatter()
+	{
+		List<Integer> ids = Arrays.asList(4151, 11802, 995, 1038, 20997);
+		Set<Integer> forward = new LinkedHashSet<>(ids);
+		Collections.reverse(ids);
+		Set<Integer> backward = new LinkedHashSet<>(ids);
+
+		SetDigest a = SetDigest.of(1, forward);
+		SetDigest b = SetDigest.of(2, backward);
+		assertEquals(a.getRoot(), b.getRoot());
+		assertArrayEquals(a.getSegments(), b.getSegments());
+		assertEquals(0L, a.diffMask(b.getSegments()));
+	}
+
+	@Test
+	public void oneExtraIdChangesRootAndOneSegment()
+	{
+		SetDigest a = SetDigest.of(0, set(1, 2, 3));
+		SetDigest b = SetDigest.of(0, set(1, 2, 3, 4));
+		assertNotEquals(a.getRoot(), b.getRoot());
+
+		long mask = a.diffMask(b.getSegments());
+		assertEquals(1, Long.bitCount(mask));
+		assertArrayEquals(new int[]{4}, SetDigest.idsIn(set(1, 2, 3, 4), mask, null));
+	}
+
+	@Test
+	public void diffMaskIgnoresMalformedSegments()
+	{
+		SetDigest a = SetDigest.of(0, set(1, 2, 3));
+		assertEquals(0L, a.diffMask(null));
+		assertEquals(0L, a.diffMask(new long[3]));
+	}
+
+	@Test
+	public void idsInHonoursMaskAndExclusions()
+	{
+		Set<Integer> ids = set(10, 20, 30, 40);
+		assertEquals(0, SetDigest.idsIn(ids, 0L, null).length);
+		assertEquals(4, SetDigest.idsIn(ids, -1L, null).length);
+		assertArrayEquals(new int[]{10, 40}, SetDigest.idsIn(ids, -1L, set(20, 30)));
+	}
+
+	/** The three-message exchange PartySetSync runs, on plain sets. */
+	@Test
+	public void exchangeConvergesByUnion()
+	{
+		Random random = new Random(99);
+		Set<Integer> shared = randomSet(random, 5_000);
+		Set<Integer> a = new HashSet<>(shared);
+		Set<Integer> b = new HashSet<>(shared);
+		a.addAll(randomSet(random, 40));
+		b.addAll(randomSet(random, 25));
+		Set<Integer> expected = new HashSet<>(a);
+		expected.addAll(b);
+
+		// 1: A advertises its root; B differs and answers with its segments
+		SetDigest digestA = SetDigest.of(0, a);
+		SetDigest digestB = SetDigest.of(0, b);
+		assertNotEquals(digestA.getRoot(), digestB.getRoot());
+
+		// 2: A sends its ids for differing segments and requests B's
+		long mask = digestA.diffMask(digestB.getSegments());
+		assertTrue(Long.bitCount(mask) < SetDigest.SEGMENTS);
+		int[] fromA = SetDigest.idsIn(a, mask, null);
+
+		// 3: B merges, then answers with what A lacks
+		Set<Integer> received = new HashSet<>();
+		union(received, fromA);
+		union(b, fromA);
+		int[] fromB = SetDigest.idsIn(b, mask, received);
+		union(a, fromB);
+
+		assertEquals(expected, a);
+		assertEquals(expected, b);
+		assertEquals(SetDigest.of(0, a).getRoot(), SetDigest.of(0, b).getRoot());
+		assertTrue("only differing segments travel", fromA.length + fromB.length < shared.size());
+	}
+}
@@ -0,0 +1,125 @@
+package com.chanceman.party;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VersionVectorTest
+{
+	private static final long MEMBER = 1234L;
+	private static final int EPOCH = 0x5EED;
+
+	private final List<long[]> gaps = new ArrayList<>();
+	private VersionVector vector;
+
+	@Before
+	public void setUp()
+	{
+		gaps.clear();
+		vector = new VersionVector();
+	}
+
+	private static long id(int epoch, long seq)
+	{
+		return ((long) epoch << 32) | seq;
+	}
+
+	private boolean accept(long seq)
+	{
+		return vector.accept(MEMBER, id(EPOCH, seq), (member, first, last) -> gaps.add(new long[]{member, first, last}));
+	}
+
+	@Test
+	public void duplicatesAreRejected()
+	{
+		assertTrue(accept(1));
+		assertTrue(accept(2));
+		assertFalse(accept(2));
+		assertFalse(accept(1));
+		assertTrue(gaps.isEmpty());
+	}
+
+	@Test
+	public void firstEventIsTheBaseline()
+	{
+		assertTrue(accept(500));
+		assertTrue("nothing before the first event is owed", gaps.isEmpty());
+	}
+
+	@Test
+	public void skippedSequencesAreReportedOnceAndCanStillArrive()
+	{
+		accept(1);
+		assertTrue(accept(5));
+		assertEquals(1, gaps.size());
+		assertEquals(MEMBER, gaps.get(0)[0]);
+		assertEquals(id(EPOCH, 2), gaps.get(0)[1]);
+		assertEquals(id(EPOCH, 4), gaps.get(0)[2]);
+
+		assertTrue(accept(3));
+		assertFalse(accept(3));
+		assertTrue(accept(6));
+		assertEquals(1, gaps.size());
+	}
+
+	@Test
+	public void gapsAreClampedToTheWindow()
+	{
+		accept(1);
+		accept(1_000);
+		assertEquals(1, gaps.size());
+		assertEquals(id(EPOCH, 1_000 - 63), gaps.get(0)[1]);
+		assertEquals(id(EPOCH, 999), gaps.get(0)[2]);
+	}
+
+	@Test
+	public void eventsOlderThanTheWindowAreTreatedAsSeen()
+	{
+		accept(1);
+		for (long seq = 2; seq <= 100; seq++)
+		{
+			accept(seq);
+		}
+		assertFalse(accept(100 - 64));
+		assertFalse("edge of the window was seen", accept(100 - 63));
+	}
+
+	@Test
+	public void windowSlidesOverMissingEvents()
+	{
+		accept(10);
+		accept(12); // 11 missing
+		accept(40);
+		assertTrue("still inside the window", accept(11));
+		assertFalse(accept(11));
+		accept(80);
+		assertFalse("slid out of the window", accept(15));
+	}
+
+	@Test
+	public void newEpochStartsOver()
+	{
+		accept(50);
+		assertTrue(vector.accept(MEMBER, id(EPOCH + 1, 1), null));
+		assertFalse(vector.accept(MEMBER, id(EPOCH + 1, 1), null));
+		assertTrue(gaps.isEmpty());
+	}
+
+	@Test
+	public void membersAreIndependentAndCanBeForgotten()
+	{
+		accept(1);
+		assertTrue(vector.accept(MEMBER + 1, id(EPOCH, 1), null));
+
+		vector.forget(MEMBER);
+		assertTrue(accept(1));
+		vector.clear();
+		assertTrue(vector.accept(MEMBER + 1, id(EPOCH, 1), null));
+	}
+}
@@ -0,0 +1,156 @@
+package com.chanceman.ui;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ItemListModelTest
+{
+	private ItemListModel model;
+	/** Rebuilt from nothing but the fired events. */
+	private List<Integer> shadow;
+	private List<String> events;
+
+	@Before
+	public void setUp()
+	{
+		model = new ItemListModel();
+		shadow = new ArrayList<>();
+		events = new ArrayList<>();
+		model.addListDataListener(new ListDataListener()
+		{
+			@Override
+			public void intervalAdded(ListDataEvent e)
+			{
+				events.add("add " + e.getIndex0() + "-" + e.getIndex1());
+				for (int i = e.getIndex0(); i <= e.getIndex1(); i++)
+				{
+					shadow.add(i, model.getElementAt(i));
+				}
+			}
+
+			@Override
+			public void intervalRemoved(ListDataEvent e)
+			{
+				events.add("remove " + e.getIndex0() + "-" + e.getIndex1());
+				shadow.subList(e.getIndex0(), e.getIndex1() + 1).clear();
+			}
+
+			@Override
+			public void contentsChanged(ListDataEvent e)
+			{
+				events.add("change " + e.getIndex0() + "-" + e.getIndex1());
+				for (int i = e.getIndex0(); i <= e.getIndex1(); i++)
+				{
+					shadow.set(i, model.getElementAt(i));
+				}
+			}
+		});
+	}
+
+	private void apply(Integer... ids)
+	{
+		model.apply(Arrays.asList(ids));
+	}
+
+	@Test
+	public void oneUnlockFiresOneInsert()
+	{
+		apply(5, 4, 3, 2, 1);
+		events.clear();
+		apply(6, 5, 4, 3, 2, 1);
+		assertEquals(Collections.singletonList("add 0-0"), events);
+		assertEquals(Arrays.asList(6, 5, 4, 3, 2, 1), shadow);
+	}
+
+	@Test
+	public void removalsAndInsertsAreRunLength()
+	{
+		apply(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+		events.clear();
+		apply(1, 2, 20, 21, 5, 6, 7, 8, 9, 10);
+		assertEquals(Arrays.asList("remove 2-3", "add 2-3"), events);
+		assertEquals(Arrays.asList(1, 2, 20, 21, 5, 6, 7, 8, 9, 10), shadow);
+	}
+
+	@Test
+	public void reorderedSurvivorsFallBackToOneChange()
+	{
+		apply(1, 2, 3, 4);
+		events.clear();
+		apply(2, 1, 3, 4);
+		assertEquals(Collections.singletonList("change 0-3"), events);
+		assertEquals(Arrays.asList(2, 1, 3, 4), shadow);
+	}
+
+	@Test
+	public void sameListFiresNothing()
+	{
+		apply(1, 2, 3);
+		events.clear();
+		apply(1, 2, 3);
+		assertEquals(Collections.emptyList(), events);
+	}
+
+	@Test
+	public void randomMutationsReplayExactly()
+	{
+		Random random = new Random(20_000);
+		List<Integer> current = new ArrayList<>();
+		int nextId = 0;
+		for (int round = 0; round < 20_000; round++)
+		{
+			List<Integer> next = new ArrayList<>(current);
+			int op = random.nextInt(10);
+			if (op < 4)
+			{
+				// Unlocks land at the front of the newest-first view
+				for (int i = 1 + random.nextInt(3); i > 0; i--)
+				{
+					next.add(0, nextId++);
+				}
+			}
+			else if (op < 7 && !next.isEmpty())
+			{
+				for (int i = 1 + random.nextInt(Math.min(4, next.size())); i > 0; i--)
+				{
+					next.remove(random.nextInt(next.size()));
+				}
+			}
+			else if (op < 9)
+			{
+				// Scattered inserts and removes, e.g. a search filter changing
+				for (int i = random.nextInt(5); i > 0; i--)
+				{
+					next.add(random.nextInt(next.size() + 1), nextId++);
+				}
+				for (int i = random.nextInt(5); i > 0 && !next.isEmpty(); i--)
+				{
+					next.remove(random.nextInt(next.size()));
+				}
+			}
+			else if (next.size() > 1)
+			{
+				Collections.swap(next, random.nextInt(next.size()), random.nextInt(next.size()));
+			}
+			if (next.size() > 200)
+			{
+				next.subList(100, next.size()).clear();
+			}
+
+			model.apply(next);
+			current = next;
+			assertEquals("round " + round, current, shadow);
+			assertEquals(current.size(), model.getSize());
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package com.chanceman.ui;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ItemNameIndexTest
+{
+	/** Reference: substring scan over every name, plus the id-prefix rule for all-digit queries. */
+	private static BitSet bruteForce(Map<Integer, String> names, String query)
+	{
+		String q = query.trim().toLowerCase(Locale.ROOT);
+		BitSet out = new BitSet();
+		if (q.isEmpty())
+		{
+			return out;
+		}
+		boolean digits = q.chars().allMatch(c -> c >= '0' && c <= '9');
+		for (Map.Entry<Integer, String> e : names.entrySet())
+		{
+			String name = e.getValue().trim().toLowerCase(Locale.ROOT);
+			if (name.isEmpty())
+			{
+				continue;
+			}
+			if (name.contains(q) || (digits && Integer.toString(e.getKey()).startsWith(q)))
+			{
+				out.set(e.getKey());
+			}
+		}
+		return out;
+	}
+
+	private static BitSet bits(int... ids)
+	{
+		BitSet out = new BitSet();
+		for (int id : ids)
+		{
+			out.set(id);
+		}
+		return out;
+	}
+
+	@Test
+	public void shortQueriesFindPrefixesAndInnerMatches()
+	{
+		Map<Integer, String> names = new HashMap<>();
+		names.put(1, "Abyssal whip");
+		names.put(2, "Ab");
+		names.put(3, "Crab claw");
+		names.put(4, "Bones");
+		ItemNameIndex index = ItemNameIndex.build(names);
+
+		assertEquals(bits(1, 2, 3), index.match("ab"));
+		assertEquals(bits(1, 2, 3, 4), index.match("b"));
+		assertEquals(bits(), index.match("zz"));
+		assertEquals(bits(), index.match("   "));
+	}
+
+	@Test
+	public void idPrefixesFollowDecimalDigits()
+	{
+		Map<Integer, String> names = new HashMap<>();
+		for (int id : new int[]{0, 1, 4, 12, 120, 1203, 2, 21, 99999})
+		{
+			names.put(id, "Item");
+		}
+		ItemNameIndex index = ItemNameIndex.build(names);
+
+		assertEquals(bits(1, 12, 120, 1203), index.match("1"));
+		assertEquals(bits(12, 120, 1203), index.match("12"));
+		assertEquals(bits(120, 1203), index.match("120"));
+		assertEquals("0 names only id 0", bits(0), index.match("0"));
+		assertEquals("leading zeros name nothing", bits(), index.match("01"));
+		assertEquals(bits(), index.match("00"));
+		assertEquals(bits(99999), index.match("9999"));
+		assertEquals(bits(), index.match("1234567890"));
+	}
+
+	@Test
+	public void digitsAlsoMatchNames()
+	{
+		Map<Integer, String> names = new HashMap<>();
+		names.put(5, "Dragon (p++) 123");
+		names.put(123, "Bronze");
+		ItemNameIndex index = ItemNameIndex.build(names);
+		assertEquals(bits(5, 123), index.match("123"));
+	}
+
+	@Test
+	public void missingTrigramMatchesNothing()
+	{
+		Map<Integer, String> names = new HashMap<>();
+		names.put(1, "Rune scimitar");
+		names.put(2, "Rune platebody");
+		ItemNameIndex index = ItemNameIndex.build(names);
+		assertEquals(bits(), index.match("rune scimitqr"));
+		assertEquals(bits(1, 2), index.match("rune"));
+	}
+
+	@Test
+	public void trigramsMustAppearInOrder()
+	{
+		Map<Integer, String> names = new HashMap<>();
+		names.put(1, "abcd bcde");
+		names.put(2, "abcde");
+		ItemNameIndex index = ItemNameIndex.build(names);
+		assertEquals("shares every trigram but not the substring", bits(2), index.match("abcde"));
+	}
+
+	@Test
+	public void gallopingAcrossVeryDifferentListSizes()
+	{
+		Map<Integer, String> names = new HashMap<>();
+		Random random = new Random(3);
+		for (int id = 0; id < 20_000; id++)
+		{
+			// "potion" is in every name; "xyz" only in a scattered few
+			String suffix = random.nextInt(500) == 0 ? " xyz" : " " + random.nextInt(1000);
+			names.put(id, "Potion" + suffix);
+		}
+		names.put(20_000, "Potion xyz");
+		names.put(20_001, "xyz");
+		ItemNameIndex index = ItemNameIndex.build(names);
+
+		BitSet expected = bruteForce(names, "potion xyz");
+		assertTrue(expected.cardinality() > 10);
+		assertEquals(expected, index.match("potion xyz"));
+		assertEquals(bruteForce(names, "xyz"), index.match("xyz"));
+		assertEquals(bruteForce(names, "on 99"), index.match("on 99"));
+	}
+
+	@Test
+	public void randomQueriesMatchBruteForce()
+	{
+		Random random = new Random(33);
+		Map<Integer, String> names = new HashMap<>();
+		String alphabet = "abcd 1";
+		for (int i = 0; i < 3_000; i++)
+		{
+			int id = random.nextInt(30_000);
+			StringBuilder name = new StringBuilder();
+			for (int c = 3 + random.nextInt(12); c > 0; c--)
+			{
+				name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			names.put(id, random.nextInt(20) == 0 ? " " : name.toString().toUpperCase(Locale.ROOT));
+		}
+		ItemNameIndex index = ItemNameIndex.build(names);
+
+		for (int i = 0; i < 2_000; i++)
+		{
+			String query;
+			if (random.nextInt(4) == 0)
+			{
+				query = Integer.toString(random.nextInt(3_000));
+			}
+			else
+			{
+				StringBuilder q = new StringBuilder();
+				for (int c = 1 + random.nextInt(6); c > 0; c--)
+				{
+					q.append(alphabet.charAt(random.nextInt(alphabet.length())));
+				}
+				query = q.toString();
+			}
+			assertEquals("query '" + query + "'", bruteForce(names, query), index.match(query));
+		}
+	}
+
+	@Test
+	public void namesAndMembership()
+	{
+		Map<Integer, String> names = new HashMap<>();
+		names.put(4151, " Abyssal whip ");
+		names.put(7, "");
+		ItemNameIndex index = ItemNameIndex.build(names);
+
+		assertEquals(1, index.size());
+		assertTrue(index.contains(4151));
+		assertEquals("Abyssal whip", index.getName(4151));
+		assertNull(index.getName(7));
+	}
+}
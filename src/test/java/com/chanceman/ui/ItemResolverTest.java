@@ -0,0 +1,185 @@
+package com.chanceman.ui;
+
+import net.runelite.client.callback.ClientThread;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.SwingUtilities;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ItemResolverTest
+{
+	/** Runs queued tasks only when the test steps a frame. */
+	private static final class FakeClientThread extends ClientThread
+	{
+		final Deque<BooleanSupplier> tasks = new ArrayDeque<>();
+		int submitted;
+
+		@Override
+		public void invokeLater(BooleanSupplier task)
+		{
+			submitted++;
+			tasks.add(task);
+		}
+
+		/** Run frames until no task is left. */
+		void drain()
+		{
+			while (!tasks.isEmpty())
+			{
+				frame();
+			}
+		}
+
+		void frame()
+		{
+			for (int i = tasks.size(); i > 0; i--)
+			{
+				BooleanSupplier task = tasks.poll();
+				if (!task.getAsBoolean())
+				{
+					tasks.add(task);
+				}
+			}
+		}
+	}
+
+	private final BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+	private FakeClientThread clientThread;
+	private List<Integer> looked;
+	private Set<Integer> published;
+	private long lookupMillis;
+	private ItemResolver resolver;
+
+	@Before
+	public void setUp()
+	{
+		clientThread = new FakeClientThread();
+		looked = new ArrayList<>();
+		published = Collections.synchronizedSet(new HashSet<>());
+		lookupMillis = 0;
+		resolver = new ItemResolver(id ->
+		{
+			looked.add(id);
+			sleep(lookupMillis);
+			return "Item " + id;
+		}, id -> image, clientThread, published::addAll);
+	}
+
+	private static void sleep(long ms)
+	{
+		try
+		{
+			Thread.sleep(ms);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void flushSwing() throws Exception
+	{
+		SwingUtilities.invokeAndWait(() -> { });
+	}
+
+	@Test
+	public void urgentRowsResolveBeforeTheWindow() throws Exception
+	{
+		resolver.prefetch(Arrays.asList(1, 2, 3));
+		assertNull(resolver.getName(9));
+		assertNull(resolver.getIcon(8));
+		clientThread.drain();
+
+		assertEquals(Arrays.asList(9, 8, 1, 2, 3), looked);
+		flushSwing();
+		assertEquals(new HashSet<>(Arrays.asList(1, 2, 3, 8, 9)), published);
+		assertEquals("Item 9", resolver.getName(9));
+		assertNotNull(resolver.getIcon(8));
+	}
+
+	@Test
+	public void urgentRowLeavesTheWindow()
+	{
+		resolver.prefetch(Arrays.asList(1, 2, 3));
+		resolver.getName(2);
+		clientThread.drain();
+		assertEquals(Arrays.asList(2, 1, 3), looked);
+	}
+
+	@Test
+	public void replacedWindowIsDropped()
+	{
+		resolver.prefetch(Arrays.asList(1, 2, 3));
+		resolver.prefetch(Arrays.asList(4, 5));
+		clientThread.drain();
+		assertEquals(Arrays.asList(4, 5), looked);
+	}
+
+	@Test
+	public void oneTaskSpreadsOverFramesAndSkipsScrolledPastRows() throws Exception
+	{
+		lookupMillis = 1;
+		List<Integer> window = new ArrayList<>();
+		for (int id = 0; id < 40; id++)
+		{
+			window.add(id);
+		}
+		resolver.prefetch(window);
+		clientThread.frame();
+		int firstFrame = looked.size();
+		assertTrue("budget splits the work", firstFrame < window.size());
+
+		// Scroll far away: only the new window is resolved from here on
+		resolver.prefetch(Arrays.asList(100, 101));
+		clientThread.drain();
+		assertEquals(Arrays.asList(100, 101), looked.subList(firstFrame, looked.size()));
+		assertEquals("a single drain task", 1, clientThread.submitted);
+
+		flushSwing();
+		assertTrue(published.contains(100));
+	}
+
+	@Test
+	public void closeEndsTheDrainAndQueuesNothingMore()
+	{
+		resolver.prefetch(Arrays.asList(1, 2, 3));
+		assertEquals(1, clientThread.tasks.size());
+		resolver.close();
+
+		clientThread.frame();
+		assertTrue("pending task finishes", clientThread.tasks.isEmpty());
+		assertTrue(looked.isEmpty());
+
+		resolver.getName(7);
+		resolver.prefetch(Arrays.asList(8));
+		assertEquals(1, clientThread.submitted);
+	}
+
+	@Test
+	public void drainRestartsAfterTheQueueEmpties()
+	{
+		resolver.prefetch(Arrays.asList(1));
+		clientThread.drain();
+		assertTrue(clientThread.tasks.isEmpty());
+
+		resolver.getName(2);
+		assertEquals("draining was reset, so a new task starts", 2, clientThread.submitted);
+		clientThread.drain();
+		assertEquals(Arrays.asList(1, 2), looked);
+	}
+}